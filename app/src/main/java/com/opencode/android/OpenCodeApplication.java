@@ -25,12 +25,13 @@ public class OpenCodeApplication extends Application {
     }
 
     private void initApp() {
+        // Initialize WorkManager with default configuration, before the container
+        // schedules any work
+        WorkManager.initialize(this, new Configuration.Builder().build());
+
         // Initialize dependency injection container
         appContainer = AppContainer.getInstance(this);
         appContainer.initialize();
-
-        // Initialize WorkManager with default configuration
-        WorkManager.initialize(this, new Configuration.Builder().build());
     }
 
     public static OpenCodeApplication getInstance() {
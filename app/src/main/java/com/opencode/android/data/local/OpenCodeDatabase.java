@@ -7,13 +7,16 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.opencode.android.data.local.dao.MessageDao;
+import com.opencode.android.data.local.dao.PendingSendDao;
 import com.opencode.android.data.local.dao.ProjectDao;
 import com.opencode.android.data.local.dao.SessionDao;
 import com.opencode.android.data.local.dao.SettingsDao;
 import com.opencode.android.data.local.entity.MessageEntity;
+import com.opencode.android.data.local.entity.PendingSendEntity;
 import com.opencode.android.data.local.entity.ProjectEntity;
 import com.opencode.android.data.local.entity.SessionEntity;
 import com.opencode.android.data.local.entity.SettingsEntity;
@@ -23,16 +26,17 @@ import java.util.concurrent.Executors;
 
 /**
  * Room Database for OpenCode Android.
- * Manages sessions, messages, settings, and projects.
+ * Manages sessions, messages, settings, projects, and the offline send queue.
  */
 @Database(
     entities = {
         SessionEntity.class,
         MessageEntity.class,
         SettingsEntity.class,
-        ProjectEntity.class
+        ProjectEntity.class,
+        PendingSendEntity.class
     },
-    version = 1,
+    version = 2,
     exportSchema = false
 )
 @TypeConverters(DateConverter.class)
@@ -51,6 +55,31 @@ public abstract class OpenCodeDatabase extends RoomDatabase {
     public abstract MessageDao messageDao();
     public abstract SettingsDao settingsDao();
     public abstract ProjectDao projectDao();
+    public abstract PendingSendDao pendingSendDao();
+
+    /**
+     * Version 2 adds the offline send queue. Queued requests must survive upgrades,
+     * so this is a real migration rather than a destructive one.
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `pending_sends` ("
+                    + "`idempotency_key` TEXT NOT NULL, "
+                    + "`session_id` TEXT NOT NULL, "
+                    + "`message_id` TEXT, "
+                    + "`request_json` TEXT NOT NULL, "
+                    + "`created_at` INTEGER NOT NULL, "
+                    + "`attempts` INTEGER NOT NULL, "
+                    + "`claimed_at` INTEGER NOT NULL, "
+                    + "`last_error` TEXT, "
+                    + "PRIMARY KEY(`idempotency_key`), "
+                    + "FOREIGN KEY(`session_id`) REFERENCES `sessions`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_sends_session_id` "
+                    + "ON `pending_sends` (`session_id`)");
+        }
+    };
 
     /**
      * Get the singleton instance of the database.
@@ -73,6 +102,7 @@ public abstract class OpenCodeDatabase extends RoomDatabase {
                 DATABASE_NAME
             )
             .addCallback(new DatabaseCallback())
+            .addMigrations(MIGRATION_1_2)
             .fallbackToDestructiveMigration()
             .build();
     }
@@ -144,6 +174,7 @@ public abstract class OpenCodeDatabase extends RoomDatabase {
             messageDao().deleteAll();
             settingsDao().deleteAll();
             projectDao().deleteAll();
+            pendingSendDao().deleteAll();
         });
     }
 
@@ -6,6 +6,7 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.opencode.android.data.local.entity.MessageEntity;
@@ -81,9 +82,29 @@ public interface MessageDao {
     @Query("UPDATE messages SET is_complete = :isComplete WHERE id = :messageId")
     void updateComplete(String messageId, boolean isComplete);
 
+    @Query("UPDATE messages SET is_streaming = :isStreaming WHERE id = :messageId")
+    void updateStreaming(String messageId, boolean isStreaming);
+
     @Query("UPDATE messages SET token_count = :tokenCount WHERE id = :messageId")
     void updateTokenCount(String messageId, int tokenCount);
 
+    @Query("UPDATE messages SET tool_calls = :toolCalls WHERE id = :messageId")
+    void updateToolCalls(String messageId, String toolCalls);
+
+    /**
+     * Write the final state of a streamed message in one transaction.
+     */
+    @Transaction
+    default void completeStreamedMessage(String messageId, String content, String toolCalls, int tokenCount) {
+        updateContent(messageId, content);
+        if (toolCalls != null) {
+            updateToolCalls(messageId, toolCalls);
+        }
+        updateStreaming(messageId, false);
+        updateComplete(messageId, true);
+        updateTokenCount(messageId, tokenCount);
+    }
+
     @Query("SELECT * FROM messages WHERE session_id = :sessionId AND role = 'assistant' ORDER BY created_at DESC LIMIT 1")
     MessageEntity getLastAssistantMessageSync(String sessionId);
 }
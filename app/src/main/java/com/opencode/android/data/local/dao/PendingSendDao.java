@@ -0,0 +1,53 @@
+package com.opencode.android.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.opencode.android.data.local.entity.PendingSendEntity;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the offline send queue.
+ */
+@Dao
+public interface PendingSendDao {
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insert(PendingSendEntity pendingSend);
+
+    /**
+     * Requests that are waiting, or whose replay was claimed before {@code staleBefore}
+     * and never finished, oldest first.
+     */
+    @Query("SELECT * FROM pending_sends WHERE claimed_at < :staleBefore ORDER BY created_at ASC")
+    List<PendingSendEntity> getReady(long staleBefore);
+
+    /**
+     * Take a request for replay. Only one caller can claim a request until the claim is
+     * released or goes stale.
+     *
+     * @return 1 if claimed, 0 if someone else holds it or it is gone
+     */
+    @Query("UPDATE pending_sends SET claimed_at = :now, attempts = attempts + 1 "
+            + "WHERE idempotency_key = :idempotencyKey AND claimed_at < :staleBefore")
+    int claim(String idempotencyKey, long now, long staleBefore);
+
+    @Query("UPDATE pending_sends SET claimed_at = 0, last_error = :error WHERE idempotency_key = :idempotencyKey")
+    void release(String idempotencyKey, String error);
+
+    @Query("DELETE FROM pending_sends WHERE idempotency_key = :idempotencyKey")
+    void deleteByKey(String idempotencyKey);
+
+    @Query("DELETE FROM pending_sends")
+    void deleteAll();
+
+    @Query("SELECT COUNT(*) FROM pending_sends")
+    LiveData<Integer> getCount();
+
+    @Query("SELECT COUNT(*) FROM pending_sends")
+    int getCountSync();
+}
@@ -70,6 +70,9 @@ public interface SettingsDao {
     @Query("UPDATE settings SET value = :value WHERE `key` = :key")
     void updateValue(String key, String value);
 
+    @Query("UPDATE settings SET updated_at = :timestamp WHERE `key` = :key")
+    void updateTimestamp(String key, long timestamp);
+
     // Convenience methods for common settings
     @Query("SELECT value FROM settings WHERE `key` = 'api_key'")
     String getApiKeySync();
@@ -238,6 +238,23 @@ public class MessageEntity {
         }
     }
 
+    /**
+     * Creates a copy of this message with the specified content.
+     */
+    public MessageEntity copyWithContent(String newContent) {
+        MessageEntity copy = new MessageEntity(this.sessionId, this.role, newContent);
+        copy.id = this.id;
+        copy.name = this.name;
+        copy.toolCalls = this.toolCalls;
+        copy.toolCallId = this.toolCallId;
+        copy.tokenCount = this.tokenCount;
+        copy.createdAt = this.createdAt;
+        copy.isStreaming = this.isStreaming;
+        copy.isComplete = this.isComplete;
+        copy.metadata = this.metadata;
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
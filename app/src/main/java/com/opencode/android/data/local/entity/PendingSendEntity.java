@@ -0,0 +1,143 @@
+package com.opencode.android.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.UUID;
+
+/**
+ * Entity for a chat request that could not be sent while offline and waits to be
+ * replayed. Its primary key is the idempotency key sent with every replay of it.
+ */
+@Entity(
+    tableName = "pending_sends",
+    foreignKeys = {
+        @ForeignKey(
+            entity = SessionEntity.class,
+            parentColumns = "id",
+            childColumns = "session_id",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index(value = "session_id")
+    }
+)
+public class PendingSendEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = "idempotency_key")
+    @NonNull
+    private String idempotencyKey;
+
+    @ColumnInfo(name = "session_id")
+    @NonNull
+    private String sessionId;
+
+    // Streaming placeholder to fill with the reply; null to insert a new message
+    @ColumnInfo(name = "message_id")
+    private String messageId;
+
+    @ColumnInfo(name = "request_json")
+    @NonNull
+    private String requestJson;
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    @ColumnInfo(name = "attempts")
+    private int attempts;
+
+    // When a replay took the request; 0 while it waits
+    @ColumnInfo(name = "claimed_at")
+    private long claimedAt;
+
+    @ColumnInfo(name = "last_error")
+    private String lastError;
+
+    public PendingSendEntity() {
+        this.idempotencyKey = UUID.randomUUID().toString();
+        this.sessionId = "";
+        this.requestJson = "";
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public PendingSendEntity(@NonNull String sessionId, String messageId, @NonNull String requestJson) {
+        this();
+        this.sessionId = sessionId;
+        this.messageId = messageId;
+        this.requestJson = requestJson;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(@NonNull String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    @NonNull
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(@NonNull String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    @NonNull
+    public String getRequestJson() {
+        return requestJson;
+    }
+
+    public void setRequestJson(@NonNull String requestJson) {
+        this.requestJson = requestJson;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(long claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
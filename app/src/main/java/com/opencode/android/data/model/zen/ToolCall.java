@@ -10,6 +10,9 @@ import java.util.Map;
  */
 public class ToolCall {
 
+    @SerializedName("index")
+    private Integer index;
+
     @SerializedName("id")
     private String id;
 
@@ -29,6 +32,17 @@ public class ToolCall {
     }
 
     // Getters and Setters
+    /**
+     * Position of the tool call in the response; only present on streamed fragments.
+     */
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
     public String getId() {
         return id;
     }
@@ -0,0 +1,115 @@
+package com.opencode.android.data.remote;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Opens a pooled connection to the Zen host ahead of the first chat request, so DNS,
+ * TCP and TLS setup are paid while the user is still typing instead of before the
+ * first token. The warm-up is a bodiless {@code HEAD} on the shared client; its
+ * connection stays in the shared pool and the next streaming call reuses it.
+ * Skipped on metered or absent networks and while a recent warm-up is still alive.
+ */
+public class ConnectionPrewarmer {
+
+    // Well inside the pool's keep-alive and typical server idle timeouts
+    static final long MIN_INTERVAL_MS = 60_000;
+
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final BooleanSupplier networkAllowed;
+    private final LongSupplier clock;
+
+    private boolean inFlight;
+    private long lastWarmedAt;
+    private boolean warmed;
+
+    public ConnectionPrewarmer(OkHttpClient client, String baseUrl, BooleanSupplier networkAllowed) {
+        this(client, baseUrl, networkAllowed, SystemClock::elapsedRealtime);
+    }
+
+    ConnectionPrewarmer(OkHttpClient client, String baseUrl, BooleanSupplier networkAllowed, LongSupplier clock) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.networkAllowed = networkAllowed;
+        this.clock = clock;
+    }
+
+    /**
+     * Pre-warm only on a validated, unmetered network.
+     */
+    public static BooleanSupplier unmeteredNetwork(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return () -> {
+            if (connectivityManager == null || connectivityManager.isActiveNetworkMetered()) {
+                return false;
+            }
+            Network network = connectivityManager.getActiveNetwork();
+            NetworkCapabilities capabilities = network != null
+                    ? connectivityManager.getNetworkCapabilities(network) : null;
+            return capabilities != null
+                    && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+        };
+    }
+
+    /**
+     * Open a connection in the background if the network allows it and none was
+     * opened recently. Returns immediately; failures are ignored.
+     */
+    public void prewarm() {
+        synchronized (this) {
+            if (inFlight || (warmed && clock.getAsLong() - lastWarmedAt < MIN_INTERVAL_MS)) {
+                return;
+            }
+            inFlight = true;
+        }
+        if (!networkAllowed.getAsBoolean()) {
+            finish(false);
+            return;
+        }
+
+        Request request = new Request.Builder()
+                .url(baseUrl)
+                .head()
+                .build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                // Any status means the connection is up; closing returns it to the pool
+                response.close();
+                finish(true);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                // The real request will connect and report errors itself
+                finish(false);
+            }
+        });
+    }
+
+    private synchronized void finish(boolean success) {
+        inFlight = false;
+        if (success) {
+            warmed = true;
+            lastWarmedAt = clock.getAsLong();
+        }
+    }
+}
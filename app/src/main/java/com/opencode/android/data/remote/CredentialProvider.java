@@ -0,0 +1,209 @@
+package com.opencode.android.data.remote;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.security.crypto.EncryptedSharedPreferences;
+import androidx.security.crypto.MasterKey;
+
+/**
+ * Source of the OpenCode Zen API key and its bearer token.
+ * The key is decrypted from secure storage once and the bearer string is cached in
+ * memory, so lookups on the send path are a volatile read instead of Keystore and Tink
+ * work. Saving or clearing the key through this provider updates the cache.
+ *
+ * <p>Older versions also kept the key in plaintext in the app preferences. That copy is
+ * removed once the key has been loaded from or saved to secure storage.
+ */
+public class CredentialProvider {
+
+    private static final String TAG = "CredentialProvider";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String LEGACY_PREF_NAME = "opencode_prefs";
+    private static final String LEGACY_KEY_API_KEY = "api_key";
+
+    /**
+     * Persistent storage for the API key.
+     */
+    public interface SecretStore {
+        String load() throws Exception;
+        void save(String apiKey) throws Exception;
+        void clear() throws Exception;
+    }
+
+    private static final Credential NONE = new Credential(null);
+
+    private final SecretStore store;
+    private final SharedPreferences legacyPreferences;
+    private final Object lock = new Object();
+    private volatile Credential cached;
+    private boolean legacyKeyRemoved;
+
+    public CredentialProvider(SecretStore store) {
+        this(store, null);
+    }
+
+    /**
+     * @param legacyPreferences preferences that may still hold a plaintext copy of the
+     *                          key, or null
+     */
+    public CredentialProvider(SecretStore store, SharedPreferences legacyPreferences) {
+        this.store = store;
+        this.legacyPreferences = legacyPreferences;
+    }
+
+    /**
+     * Create a provider backed by encrypted shared preferences.
+     */
+    public static CredentialProvider create(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        return new CredentialProvider(new EncryptedSecretStore(applicationContext),
+                applicationContext.getSharedPreferences(LEGACY_PREF_NAME, Context.MODE_PRIVATE));
+    }
+
+    /**
+     * Get the {@code Authorization} header value, or null if no API key is stored.
+     */
+    public String getBearerToken() {
+        return credential().bearerToken;
+    }
+
+    /**
+     * Get the raw API key, or null if none is stored.
+     */
+    public String getApiKey() {
+        return credential().apiKey;
+    }
+
+    public boolean hasCredentials() {
+        return credential().apiKey != null;
+    }
+
+    /**
+     * Store a new API key and make it visible to the next lookup.
+     */
+    public boolean saveApiKey(String apiKey) {
+        synchronized (lock) {
+            try {
+                store.save(apiKey);
+                cached = new Credential(apiKey);
+                removeLegacyKey();
+                return true;
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving API key", e);
+                cached = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Remove the stored API key.
+     */
+    public void clearApiKey() {
+        synchronized (lock) {
+            try {
+                store.clear();
+                cached = NONE;
+            } catch (Exception e) {
+                Log.e(TAG, "Error clearing API key", e);
+                cached = null;
+            }
+        }
+    }
+
+    /**
+     * Drop the cached credential so the next lookup reads storage again.
+     */
+    public void invalidate() {
+        cached = null;
+    }
+
+    private Credential credential() {
+        Credential credential = cached;
+        if (credential != null) {
+            return credential;
+        }
+        synchronized (lock) {
+            if (cached == null) {
+                try {
+                    cached = new Credential(store.load());
+                    removeLegacyKey();
+                } catch (Exception e) {
+                    // Leave the cache empty so the next lookup retries
+                    Log.e(TAG, "Error loading API key", e);
+                    return NONE;
+                }
+            }
+            return cached;
+        }
+    }
+
+    // Called with the lock held, once secure storage is known to work
+    private void removeLegacyKey() {
+        if (legacyPreferences != null && !legacyKeyRemoved) {
+            legacyPreferences.edit().remove(LEGACY_KEY_API_KEY).apply();
+            legacyKeyRemoved = true;
+        }
+    }
+
+    private static final class Credential {
+        final String apiKey;
+        final String bearerToken;
+
+        Credential(String apiKey) {
+            boolean present = apiKey != null && !apiKey.isEmpty();
+            this.apiKey = present ? apiKey : null;
+            this.bearerToken = present ? BEARER_PREFIX + apiKey : null;
+        }
+    }
+
+    /**
+     * Stores the key in encrypted shared preferences, created once on first use.
+     */
+    private static final class EncryptedSecretStore implements SecretStore {
+
+        private static final String PREF_NAME = "secure_prefs";
+        private static final String KEY_API_KEY = "api_key";
+
+        private final Context context;
+        private SharedPreferences preferences;
+
+        EncryptedSecretStore(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public String load() throws Exception {
+            return getPreferences().getString(KEY_API_KEY, null);
+        }
+
+        @Override
+        public void save(String apiKey) throws Exception {
+            getPreferences().edit().putString(KEY_API_KEY, apiKey).apply();
+        }
+
+        @Override
+        public void clear() throws Exception {
+            getPreferences().edit().remove(KEY_API_KEY).apply();
+        }
+
+        private synchronized SharedPreferences getPreferences() throws Exception {
+            if (preferences == null) {
+                MasterKey masterKey = new MasterKey.Builder(context)
+                        .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+                        .build();
+
+                preferences = EncryptedSharedPreferences.create(
+                        context,
+                        PREF_NAME,
+                        masterKey,
+                        EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                        EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
+                );
+            }
+            return preferences;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.opencode.android.data.remote;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.opencode.android.data.model.zen.ChatRequest;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Per-phase timings of every call on the shared client, from an OkHttp
+ * {@link EventListener}. Each call is split into DNS, connect, TLS, request upload,
+ * server time (request sent to response headers) and body transfer, and each phase is
+ * added to a histogram keyed by endpoint and model. Connection phases only occur on
+ * calls that open a new connection, so their sample counts show the reuse rate.
+ *
+ * <p>Histograms can be read with {@link #getHistogram} or written out as text with
+ * {@link #dump()} for bug reports.
+ */
+public class NetworkMetrics {
+
+    public static final String ENDPOINT_CHAT_COMPLETIONS = "chat/completions";
+    public static final String ENDPOINT_MODELS = "models";
+    public static final String ENDPOINT_RESPONSES = "responses";
+    public static final String ENDPOINT_MESSAGES = "messages";
+    public static final String ENDPOINT_OTHER = "other";
+    // Model of calls that are not about a single model, such as the catalog
+    public static final String NO_MODEL = "-";
+
+    public enum Phase {
+        DNS,
+        /** TCP connect, excluding TLS. */
+        CONNECT,
+        TLS,
+        /** Writing request headers and body. */
+        REQUEST,
+        /** Request sent to response headers received. */
+        SERVER,
+        /** Response headers to the end of the body; the whole stream for streamed replies. */
+        BODY,
+        /** Call start to call end. */
+        TOTAL
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LongSupplier clock;
+    private final Map<Key, Histogram[]> histograms = new ConcurrentHashMap<>();
+    private final Map<Key, AtomicLong> failures = new ConcurrentHashMap<>();
+
+    public NetworkMetrics() {
+        this(SystemClock::elapsedRealtimeNanos);
+    }
+
+    /**
+     * @param clock monotonic time in nanoseconds
+     */
+    NetworkMetrics(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Factory to install with {@code OkHttpClient.Builder.eventListenerFactory}.
+     */
+    public EventListener.Factory eventListenerFactory() {
+        return call -> new PhaseListener(keyOf(call.request()));
+    }
+
+    /**
+     * Histogram of one phase, or null if nothing was recorded for the endpoint and model.
+     */
+    public Histogram.Snapshot getHistogram(String endpoint, String model, Phase phase) {
+        Histogram[] phases = histograms.get(new Key(endpoint, model));
+        return phases != null ? phases[phase.ordinal()].snapshot() : null;
+    }
+
+    /**
+     * Number of calls to the endpoint and model that failed or were canceled.
+     */
+    public long getFailureCount(String endpoint, String model) {
+        AtomicLong count = failures.get(new Key(endpoint, model));
+        return count != null ? count.get() : 0;
+    }
+
+    public void reset() {
+        histograms.clear();
+        failures.clear();
+    }
+
+    /**
+     * All histograms as text, one line per endpoint, model and phase.
+     */
+    public String dump() {
+        List<Key> keys = new ArrayList<>(histograms.keySet());
+        Collections.sort(keys);
+        StringBuilder builder = new StringBuilder();
+        for (Key key : keys) {
+            builder.append(key.endpoint).append(' ').append(key.model)
+                    .append(" failures=").append(getFailureCount(key.endpoint, key.model))
+                    .append('\n');
+            Histogram[] phases = histograms.get(key);
+            for (Phase phase : PHASES) {
+                Histogram.Snapshot snapshot = phases[phase.ordinal()].snapshot();
+                if (snapshot.count > 0) {
+                    builder.append(String.format(Locale.US, "  %-5s %s%n", phase, snapshot));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private void record(Key key, Phase phase, long startNanos, long endNanos) {
+        // A start of 0 means the phase never began on this call
+        if (startNanos == 0 || endNanos < startNanos) {
+            return;
+        }
+        Histogram[] phases = histograms.computeIfAbsent(key, k -> {
+            Histogram[] created = new Histogram[PHASES.length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new Histogram();
+            }
+            return created;
+        });
+        phases[phase.ordinal()].add(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+    }
+
+    static Key keyOf(Request request) {
+        String endpoint = endpointOf(request.url());
+        return new Key(endpoint, modelOf(request, endpoint));
+    }
+
+    /**
+     * Zen endpoint of a URL, from the end of its path.
+     */
+    static String endpointOf(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        int last = segments.size() - 1;
+        // A trailing slash leaves an empty last segment
+        while (last >= 0 && segments.get(last).isEmpty()) {
+            last--;
+        }
+        if (last < 0) {
+            return ENDPOINT_OTHER;
+        }
+        String name = segments.get(last);
+        if ("completions".equals(name) && last > 0 && "chat".equals(segments.get(last - 1))) {
+            return ENDPOINT_CHAT_COMPLETIONS;
+        }
+        if (ENDPOINT_RESPONSES.equals(name) || ENDPOINT_MESSAGES.equals(name)) {
+            return name;
+        }
+        if (ENDPOINT_MODELS.equals(name) || (last > 0 && ENDPOINT_MODELS.equals(segments.get(last - 1)))) {
+            return ENDPOINT_MODELS;
+        }
+        return ENDPOINT_OTHER;
+    }
+
+    /**
+     * Model a call is for: the {@link ChatRequest} among the arguments of the Retrofit
+     * method that made it, or the id in {@code models/{id}}.
+     */
+    private static String modelOf(Request request, String endpoint) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            for (Object argument : invocation.arguments()) {
+                if (argument instanceof ChatRequest && ((ChatRequest) argument).getModel() != null) {
+                    return ((ChatRequest) argument).getModel();
+                }
+            }
+        }
+        if (ENDPOINT_MODELS.equals(endpoint)) {
+            List<String> segments = request.url().pathSegments();
+            String last = segments.get(segments.size() - 1);
+            if (!last.isEmpty() && !ENDPOINT_MODELS.equals(last)) {
+                return last;
+            }
+        }
+        return NO_MODEL;
+    }
+
+    /**
+     * Phase boundaries of one call. OkHttp reports a call's events in order, one at a time.
+     */
+    private final class PhaseListener extends EventListener {
+        private final Key key;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestStart;
+        private long requestEnd;
+        private long responseHeadersEnd;
+        private boolean failed;
+
+        PhaseListener(Key key) {
+            this.key = key;
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            callStart = clock.getAsLong();
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStart = clock.getAsLong();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName,
+                           @NonNull List<InetAddress> inetAddressList) {
+            record(key, Phase.DNS, dnsStart, clock.getAsLong());
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                                 @NonNull Proxy proxy) {
+            connectStart = clock.getAsLong();
+            secureConnectStart = 0;
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            secureConnectStart = clock.getAsLong();
+            record(key, Phase.CONNECT, connectStart, secureConnectStart);
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+            record(key, Phase.TLS, secureConnectStart, clock.getAsLong());
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                               @NonNull Proxy proxy, Protocol protocol) {
+            if (secureConnectStart == 0) {
+                // Plain TCP; with TLS the connect phase ended when the handshake began
+                record(key, Phase.CONNECT, connectStart, clock.getAsLong());
+            }
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            requestStart = clock.getAsLong();
+        }
+
+        @Override
+        public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+            requestEnd = clock.getAsLong();
+        }
+
+        @Override
+        public void requestBodyEnd(@NonNull Call call, long byteCount) {
+            requestEnd = clock.getAsLong();
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            long now = clock.getAsLong();
+            record(key, Phase.REQUEST, requestStart, requestEnd);
+            record(key, Phase.SERVER, requestEnd, now);
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            responseHeadersEnd = clock.getAsLong();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            record(key, Phase.BODY, responseHeadersEnd, clock.getAsLong());
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            record(key, Phase.TOTAL, callStart, clock.getAsLong());
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            fail();
+        }
+
+        @Override
+        public void canceled(@NonNull Call call) {
+            fail();
+        }
+
+        private void fail() {
+            // A canceled call may also fail; count it once
+            if (!failed) {
+                failed = true;
+                failures.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Endpoint and model a histogram belongs to.
+     */
+    static final class Key implements Comparable<Key> {
+        final String endpoint;
+        final String model;
+
+        Key(String endpoint, String model) {
+            this.endpoint = endpoint;
+            this.model = model;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return endpoint.equals(other.endpoint) && model.equals(other.model);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * endpoint.hashCode() + model.hashCode();
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byEndpoint = endpoint.compareTo(other.endpoint);
+            return byEndpoint != 0 ? byEndpoint : model.compareTo(other.model);
+        }
+    }
+
+    /**
+     * Durations in fixed, roughly logarithmic millisecond buckets.
+     */
+    public static final class Histogram {
+        /** Upper bounds of the buckets in ms; a last bucket holds everything slower. */
+        static final long[] BOUNDS_MS = {
+                5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000
+        };
+
+        private final long[] counts = new long[BOUNDS_MS.length + 1];
+        private long count;
+        private long sumMs;
+        private long maxMs;
+
+        synchronized void add(long ms) {
+            int bucket = 0;
+            while (bucket < BOUNDS_MS.length && ms > BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sumMs += ms;
+            maxMs = Math.max(maxMs, ms);
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(counts.clone(), count, sumMs, maxMs);
+        }
+
+        /**
+         * Copy of a histogram at one point in time.
+         */
+        public static final class Snapshot {
+            public final long count;
+            public final long sumMs;
+            public final long maxMs;
+            private final long[] counts;
+
+            Snapshot(long[] counts, long count, long sumMs, long maxMs) {
+                this.counts = counts;
+                this.count = count;
+                this.sumMs = sumMs;
+                this.maxMs = maxMs;
+            }
+
+            public long getMeanMs() {
+                return count > 0 ? sumMs / count : 0;
+            }
+
+            /**
+             * Upper bound of the bucket holding the given quantile, capped at the
+             * largest sample; 0 if empty.
+             */
+            public long getPercentileMs(double quantile) {
+                if (count == 0) {
+                    return 0;
+                }
+                long rank = Math.max(1, (long) Math.ceil(quantile * count));
+                long seen = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    seen += counts[i];
+                    if (seen >= rank) {
+                        return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMs) : maxMs;
+                    }
+                }
+                return maxMs;
+            }
+
+            @Override
+            public String toString() {
+                return "n=" + count + " mean=" + getMeanMs() + "ms p50=" + getPercentileMs(0.5)
+                        + "ms p90=" + getPercentileMs(0.9) + "ms p99=" + getPercentileMs(0.99)
+                        + "ms max=" + maxMs + "ms";
+            }
+        }
+    }
+}
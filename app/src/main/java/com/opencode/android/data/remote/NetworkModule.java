@@ -4,19 +4,26 @@ import android.content.Context;
 import android.content.SharedPreferences;
 
 import androidx.annotation.NonNull;
-import androidx.security.crypto.EncryptedSharedPreferences;
-import androidx.security.crypto.MasterKey;
 
+import com.google.gson.Gson;
+import com.opencode.android.BuildConfig;
+import com.opencode.android.data.remote.zen.ChatResponseConverterFactory;
 import com.opencode.android.data.remote.zen.ZenApiService;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava3.RxJava3CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -27,42 +34,147 @@ import retrofit2.converter.gson.GsonConverterFactory;
  */
 public final class NetworkModule {
 
-    private static final String PREF_NAME = "secure_prefs";
-    private static final String KEY_API_KEY = "api_key";
     private static final String KEY_API_BASE_URL = "api_base_url";
 
     private static final int CONNECT_TIMEOUT = 30;
     private static final int READ_TIMEOUT = 60;
     private static final int WRITE_TIMEOUT = 30;
+    // Reasoning models can pause for minutes between streamed tokens
+    private static final int STREAM_READ_TIMEOUT = 300;
+
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+
+    private static volatile CredentialProvider credentialProvider;
+    private static volatile OkHttpClient sharedClient;
+    private static volatile OkHttpClient streamingClient;
+    private static volatile RequestScheduler requestScheduler;
+    private static volatile Gson gson;
+    private static volatile NetworkMetrics networkMetrics;
 
     private NetworkModule() {
         // Utility class - prevent instantiation
     }
 
     /**
-     * Create an OkHttpClient with logging and auth interceptors.
+     * Get the process-wide OkHttpClient with logging and auth interceptors.
+     * Every client in the app is this one or derived from it with {@code newBuilder()},
+     * so they share one connection pool and dispatcher and reuse warm HTTP/2 connections.
      */
     public static OkHttpClient provideOkHttpClient(Context context) {
-        // Logging interceptor for debugging
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        if (sharedClient == null) {
+            synchronized (NetworkModule.class) {
+                if (sharedClient == null) {
+                    Cache cache = new Cache(new File(context.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE);
+                    sharedClient = createOkHttpClient(provideCredentialProvider(context),
+                            new ClientConfig().cache(cache)
+                                    .eventListenerFactory(provideNetworkMetrics().eventListenerFactory()));
+                }
+            }
+        }
+        return sharedClient;
+    }
+
+    /**
+     * Get the client for streaming endpoints. It shares the pool and dispatcher of
+     * {@link #provideOkHttpClient(Context)} and only relaxes the read timeout.
+     */
+    public static OkHttpClient provideStreamingOkHttpClient(Context context) {
+        if (streamingClient == null) {
+            synchronized (NetworkModule.class) {
+                if (streamingClient == null) {
+                    streamingClient = provideOkHttpClient(context).newBuilder()
+                            .readTimeout(STREAM_READ_TIMEOUT, TimeUnit.SECONDS)
+                            .build();
+                }
+            }
+        }
+        return streamingClient;
+    }
+
+    /**
+     * Create an OkHttpClient with its own pool and dispatcher sized by the config.
+     */
+    public static OkHttpClient createOkHttpClient(CredentialProvider credentialProvider, ClientConfig config) {
+        // Sampled logging that never buffers bodies ahead of the caller
+        SampledLoggingInterceptor loggingInterceptor = SampledLoggingInterceptor.forBuildType(BuildConfig.DEBUG);
 
         // Auth interceptor for adding API key
-        AuthInterceptor authInterceptor = new AuthInterceptor(context);
+        AuthInterceptor authInterceptor = new AuthInterceptor(credentialProvider);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.maxRequests);
+        dispatcher.setMaxRequestsPerHost(config.maxRequestsPerHost);
 
         // Build OkHttpClient
-        return new OkHttpClient.Builder()
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
                 .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
                 .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
+                .connectionPool(new ConnectionPool(
+                        config.maxIdleConnections, config.keepAliveMinutes, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                // Prefer multiplexing all calls to opencode.ai over one HTTP/2 connection
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
                 .addInterceptor(authInterceptor)
                 .addInterceptor(loggingInterceptor)
-                .retryOnConnectionFailure(true)
-                .build();
+                .retryOnConnectionFailure(true);
+        if (config.eventListenerFactory != null) {
+            builder.eventListenerFactory(config.eventListenerFactory);
+        }
+        if (config.cache != null) {
+            // Honors Cache-Control on GETs; callers sending their own validators get the 304
+            builder.cache(config.cache);
+        }
+        return builder.build();
     }
 
     /**
-     * Create a Retrofit instance.
+     * Get the process-wide scheduler that orders Zen API calls by priority.
+     */
+    public static RequestScheduler provideRequestScheduler() {
+        if (requestScheduler == null) {
+            synchronized (NetworkModule.class) {
+                if (requestScheduler == null) {
+                    requestScheduler = new RequestScheduler();
+                }
+            }
+        }
+        return requestScheduler;
+    }
+
+    /**
+     * Get the process-wide phase timings of calls on the shared client and the clients
+     * derived from it.
+     */
+    public static NetworkMetrics provideNetworkMetrics() {
+        if (networkMetrics == null) {
+            synchronized (NetworkModule.class) {
+                if (networkMetrics == null) {
+                    networkMetrics = new NetworkMetrics();
+                }
+            }
+        }
+        return networkMetrics;
+    }
+
+    /**
+     * Get the process-wide Gson. Gson caches the reflective adapter of each type per
+     * instance, so sharing one builds each adapter once per process.
+     */
+    public static Gson provideGson() {
+        if (gson == null) {
+            synchronized (NetworkModule.class) {
+                if (gson == null) {
+                    gson = new Gson();
+                }
+            }
+        }
+        return gson;
+    }
+
+    /**
+     * Create a Retrofit instance whose calls go through the shared request scheduler.
      */
     public static Retrofit provideRetrofit(Context context, OkHttpClient okHttpClient) {
         // Get base URL from preferences or use default
@@ -70,8 +182,9 @@ public final class NetworkModule {
 
         return new Retrofit.Builder()
                 .baseUrl(baseUrl)
-                .client(okHttpClient)
-                .addConverterFactory(GsonConverterFactory.create())
+                .callFactory(new ScheduledCallFactory(okHttpClient, provideRequestScheduler()))
+                .addConverterFactory(ChatResponseConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(provideGson()))
                 .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
                 .build();
     }
@@ -85,6 +198,15 @@ public final class NetworkModule {
         return retrofit.create(ZenApiService.class);
     }
 
+    /**
+     * Create a ZenApiService for streaming endpoints on the streaming client.
+     */
+    public static ZenApiService provideStreamingZenApiService(Context context) {
+        OkHttpClient okHttpClient = provideStreamingOkHttpClient(context);
+        Retrofit retrofit = provideRetrofit(context, okHttpClient);
+        return retrofit.create(ZenApiService.class);
+    }
+
     /**
      * Get base URL from preferences.
      */
@@ -93,48 +215,33 @@ public final class NetworkModule {
         return prefs.getString(KEY_API_BASE_URL, "https://opencode.ai/zen/v1/");
     }
 
+    /**
+     * Get the process-wide credential provider, shared with the app container so that
+     * saving or clearing the key is seen by every client.
+     */
+    public static CredentialProvider provideCredentialProvider(Context context) {
+        if (credentialProvider == null) {
+            synchronized (NetworkModule.class) {
+                if (credentialProvider == null) {
+                    credentialProvider = CredentialProvider.create(context);
+                }
+            }
+        }
+        return credentialProvider;
+    }
+
     /**
      * Get API key from secure preferences.
      */
     public static String getApiKey(Context context) {
-        try {
-            SharedPreferences prefs = getSecurePreferences(context);
-            return prefs.getString(KEY_API_KEY, null);
-        } catch (Exception e) {
-            return null;
-        }
+        return provideCredentialProvider(context).getApiKey();
     }
 
     /**
      * Save API key to secure preferences.
      */
     public static void saveApiKey(Context context, String apiKey) {
-        try {
-            SharedPreferences prefs = getSecurePreferences(context);
-            prefs.edit().putString(KEY_API_KEY, apiKey).apply();
-        } catch (Exception e) {
-            Log.e("NetworkModule", "Error saving API key", e);
-        }
-    }
-
-    private static SharedPreferences getSecurePreferences(Context context) throws Exception {
-        MasterKey masterKey = new MasterKey.Builder(context)
-                .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
-                .build();
-
-        return EncryptedSharedPreferences.create(
-                context,
-                PREF_NAME,
-                masterKey,
-                EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
-                EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
-        );
-    }
-
-    private static class Log {
-        public static void e(String tag, String message, Exception e) {
-            android.util.Log.e(tag, message, e);
-        }
+        provideCredentialProvider(context).saveApiKey(apiKey);
     }
 
     /**
@@ -143,11 +250,10 @@ public final class NetworkModule {
     private static class AuthInterceptor implements Interceptor {
 
         private static final String AUTH_HEADER = "Authorization";
-        private static final String BEARER_PREFIX = "Bearer ";
-        private final Context context;
+        private final CredentialProvider credentialProvider;
 
-        AuthInterceptor(Context context) {
-            this.context = context;
+        AuthInterceptor(CredentialProvider credentialProvider) {
+            this.credentialProvider = credentialProvider;
         }
 
         @NonNull
@@ -155,45 +261,68 @@ public final class NetworkModule {
         public Response intercept(@NonNull Chain chain) throws IOException {
             Request originalRequest = chain.request();
 
-            // Get API key from secure storage
-            String apiKey = getApiKey(context);
+            // Cached after the first lookup
+            String bearerToken = credentialProvider.getBearerToken();
 
-            if (apiKey == null || apiKey.isEmpty()) {
-                // No API key, proceed without auth
+            if (bearerToken == null || originalRequest.header(AUTH_HEADER) != null) {
+                // No API key, or the caller passed its own token
                 return chain.proceed(originalRequest);
             }
 
             // Add authorization header
-            Request authenticatedRequest = originalRequest.newBuilder()
-                    .header(AUTH_HEADER, BEARER_PREFIX + apiKey)
-                    .header("Content-Type", "application/json")
-                    .header("Accept", "application/json")
-                    .build();
+            Request.Builder builder = originalRequest.newBuilder()
+                    .header(AUTH_HEADER, bearerToken)
+                    .header("Content-Type", "application/json");
+            if (originalRequest.header("Accept") == null) {
+                // Streams ask for text/event-stream themselves
+                builder.header("Accept", "application/json");
+            }
+            Request authenticatedRequest = builder.build();
 
             return chain.proceed(authenticatedRequest);
         }
+    }
 
-        private String getApiKey(Context context) {
-            try {
-                SharedPreferences prefs = getSecurePreferences(context);
-                return prefs.getString(KEY_API_KEY, null);
-            } catch (Exception e) {
-                return null;
-            }
+    /**
+     * Connection pool, dispatcher sizing and HTTP cache for {@link #createOkHttpClient}.
+     */
+    public static final class ClientConfig {
+        int maxIdleConnections = 5;
+        long keepAliveMinutes = 5;
+        int maxRequests = 64;
+        // HTTP/2 multiplexes these over one connection; the limit only matters on HTTP/1.1
+        int maxRequestsPerHost = 16;
+        Cache cache;
+        EventListener.Factory eventListenerFactory;
+
+        public ClientConfig maxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        public ClientConfig keepAliveMinutes(long keepAliveMinutes) {
+            this.keepAliveMinutes = keepAliveMinutes;
+            return this;
+        }
+
+        public ClientConfig maxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        public ClientConfig maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
         }
 
-        private SharedPreferences getSecurePreferences(Context context) throws Exception {
-            MasterKey masterKey = new MasterKey.Builder(context)
-                    .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
-                    .build();
+        public ClientConfig cache(Cache cache) {
+            this.cache = cache;
+            return this;
+        }
 
-            return EncryptedSharedPreferences.create(
-                    context,
-                    PREF_NAME,
-                    masterKey,
-                    EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
-                    EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
-            );
+        public ClientConfig eventListenerFactory(EventListener.Factory eventListenerFactory) {
+            this.eventListenerFactory = eventListenerFactory;
+            return this;
         }
     }
 }
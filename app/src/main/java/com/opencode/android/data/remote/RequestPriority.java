@@ -0,0 +1,11 @@
+package com.opencode.android.data.remote;
+
+/**
+ * Scheduling class of a Zen API request. See {@link RequestScheduler}.
+ */
+public enum RequestPriority {
+    /** Work the user is waiting on, e.g. chat sends. */
+    INTERACTIVE,
+    /** Work nobody is watching, e.g. catalog refreshes and title generation. */
+    BACKGROUND
+}
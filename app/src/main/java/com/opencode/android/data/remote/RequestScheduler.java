@@ -0,0 +1,196 @@
+package com.opencode.android.data.remote;
+
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for Zen API calls with one queue per {@link RequestPriority}.
+ * A call runs once both its class and the scheduler as a whole are under their
+ * concurrency limits. Queued interactive calls are always admitted first, and queued
+ * background calls wait while any interactive call is queued, so a burst of background
+ * work never delays a chat send.
+ *
+ * <p>A slot is held until the response body is closed, except for streaming completions,
+ * which give it back once their headers arrive (see {@link ScheduledCallFactory}). The
+ * limits therefore bound connection setup and time to first byte, not open streams, so
+ * long or hedged streams never block catalog fetches or non-streaming sends.
+ *
+ * <p>Time spent queued is recorded per class and exposed through {@link #getStats}.
+ */
+public class RequestScheduler {
+
+    public static final int DEFAULT_MAX_INTERACTIVE = 8;
+    public static final int DEFAULT_MAX_BACKGROUND = 2;
+    public static final int DEFAULT_MAX_TOTAL = 8;
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final int[] limits = new int[PRIORITIES.length];
+    private final int maxTotal;
+    private final LongSupplier clock;
+
+    private final int[] running = new int[PRIORITIES.length];
+    private int totalRunning;
+    private final List<ArrayDeque<Ticket>> queues = new ArrayList<>(PRIORITIES.length);
+
+    // Queue-wait metrics per class
+    private final long[] admitted = new long[PRIORITIES.length];
+    private final long[] totalWaitMs = new long[PRIORITIES.length];
+    private final long[] maxWaitMs = new long[PRIORITIES.length];
+
+    public RequestScheduler() {
+        this(DEFAULT_MAX_INTERACTIVE, DEFAULT_MAX_BACKGROUND, DEFAULT_MAX_TOTAL);
+    }
+
+    public RequestScheduler(int maxInteractive, int maxBackground, int maxTotal) {
+        this(maxInteractive, maxBackground, maxTotal, SystemClock::elapsedRealtime);
+    }
+
+    RequestScheduler(int maxInteractive, int maxBackground, int maxTotal, LongSupplier clock) {
+        limits[RequestPriority.INTERACTIVE.ordinal()] = maxInteractive;
+        limits[RequestPriority.BACKGROUND.ordinal()] = maxBackground;
+        this.maxTotal = maxTotal;
+        this.clock = clock;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * A call waiting for, or holding, a slot.
+     */
+    static final class Ticket {
+        final RequestPriority priority;
+        final Runnable onAdmitted;
+        final long enqueuedAt;
+
+        Ticket(RequestPriority priority, Runnable onAdmitted, long enqueuedAt) {
+            this.priority = priority;
+            this.onAdmitted = onAdmitted;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Queue a call. {@code onAdmitted} runs once it holds a slot, either on this thread
+     * or on the thread that releases the slot it takes; it must not block. The holder
+     * must call {@link #release} exactly once when done.
+     */
+    Ticket enqueue(RequestPriority priority, Runnable onAdmitted) {
+        Ticket ticket = new Ticket(priority, onAdmitted, clock.getAsLong());
+        boolean runNow;
+        synchronized (this) {
+            runNow = isIdle(priority) && canAdmit(priority);
+            if (runNow) {
+                admit(ticket);
+            } else {
+                queues.get(priority.ordinal()).add(ticket);
+            }
+        }
+        if (runNow) {
+            ticket.onAdmitted.run();
+        }
+        return ticket;
+    }
+
+    /**
+     * Remove a queued call.
+     *
+     * @return false if the call was already admitted, in which case it holds a slot
+     */
+    synchronized boolean cancel(Ticket ticket) {
+        return queues.get(ticket.priority.ordinal()).remove(ticket);
+    }
+
+    /**
+     * Free the slot of an admitted call and admit whatever can run next.
+     */
+    void release(RequestPriority priority) {
+        List<Ticket> next = new ArrayList<>(1);
+        synchronized (this) {
+            running[priority.ordinal()]--;
+            totalRunning--;
+            // Highest priority first
+            for (RequestPriority candidate : PRIORITIES) {
+                ArrayDeque<Ticket> queue = queues.get(candidate.ordinal());
+                while (!queue.isEmpty() && canAdmit(candidate)) {
+                    Ticket ticket = queue.poll();
+                    admit(ticket);
+                    next.add(ticket);
+                }
+                if (!queue.isEmpty()) {
+                    // Lower classes wait behind this one
+                    break;
+                }
+            }
+        }
+        for (Ticket ticket : next) {
+            ticket.onAdmitted.run();
+        }
+    }
+
+    /**
+     * Queue-wait metrics and current load of one class.
+     */
+    public synchronized Stats getStats(RequestPriority priority) {
+        int i = priority.ordinal();
+        return new Stats(queues.get(i).size(), running[i], admitted[i], totalWaitMs[i], maxWaitMs[i]);
+    }
+
+    private boolean isIdle(RequestPriority priority) {
+        // Nothing of this or a higher class is waiting ahead of the call
+        for (int i = 0; i <= priority.ordinal(); i++) {
+            if (!queues.get(i).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean canAdmit(RequestPriority priority) {
+        return running[priority.ordinal()] < limits[priority.ordinal()] && totalRunning < maxTotal;
+    }
+
+    private void admit(Ticket ticket) {
+        int i = ticket.priority.ordinal();
+        running[i]++;
+        totalRunning++;
+        long waitMs = clock.getAsLong() - ticket.enqueuedAt;
+        admitted[i]++;
+        totalWaitMs[i] += waitMs;
+        maxWaitMs[i] = Math.max(maxWaitMs[i], waitMs);
+    }
+
+    /**
+     * Snapshot of one class.
+     */
+    public static final class Stats {
+        public final int queued;
+        public final int running;
+        public final long admitted;
+        public final long totalWaitMs;
+        public final long maxWaitMs;
+
+        Stats(int queued, int running, long admitted, long totalWaitMs, long maxWaitMs) {
+            this.queued = queued;
+            this.running = running;
+            this.admitted = admitted;
+            this.totalWaitMs = totalWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public long getAverageWaitMs() {
+            return admitted > 0 ? totalWaitMs / admitted : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "queued=" + queued + " running=" + running + " admitted=" + admitted
+                    + " avgWaitMs=" + getAverageWaitMs() + " maxWaitMs=" + maxWaitMs;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.opencode.android.data.remote;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * HTTP logging that is safe for streamed bodies.
+ * Unlike {@code HttpLoggingInterceptor} at {@code BODY}, nothing is buffered ahead of the
+ * caller: request and response bodies are observed as they are written and read, and
+ * only the last {@code maxBodyBytes} of each are kept in a ring buffer. The response is
+ * logged when its body is closed, with the total size and time to last byte.
+ * Only a sample of requests is logged; failures are always logged. Sensitive headers
+ * are redacted.
+ */
+public class SampledLoggingInterceptor implements Interceptor {
+
+    private static final String TAG = "OkHttp";
+
+    public enum Level {
+        /** Request line, status, timings and sizes. */
+        BASIC,
+        /** BASIC plus redacted headers. */
+        HEADERS,
+        /** HEADERS plus the capped tail of each body. */
+        BODY
+    }
+
+    /**
+     * Destination for log lines.
+     */
+    public interface Logger {
+        void log(String message);
+
+        /**
+         * Log a request that failed without a response. Defaults to {@link #log}.
+         */
+        default void logFailure(String message) {
+            log(message);
+        }
+    }
+
+    /**
+     * Sampled lines at INFO, so release builds keep them; failures at WARN.
+     */
+    private static final Logger ANDROID_LOGGER = new Logger() {
+        @Override
+        public void log(String message) {
+            Log.i(TAG, message);
+        }
+
+        @Override
+        public void logFailure(String message) {
+            Log.w(TAG, message);
+        }
+    };
+
+    private static final Set<String> REDACTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        REDACTED_HEADERS.add("Authorization");
+        REDACTED_HEADERS.add("Proxy-Authorization");
+        REDACTED_HEADERS.add("Cookie");
+        REDACTED_HEADERS.add("Set-Cookie");
+        REDACTED_HEADERS.add("x-api-key");
+    }
+
+    private final Level level;
+    private final double sampleRate;
+    private final int maxBodyBytes;
+    private final Logger logger;
+    private final Random random = new Random();
+
+    public SampledLoggingInterceptor(Level level, double sampleRate, int maxBodyBytes, Logger logger) {
+        this.level = level;
+        this.sampleRate = sampleRate;
+        this.maxBodyBytes = maxBodyBytes;
+        this.logger = logger;
+    }
+
+    /**
+     * Debug builds log every request with headers and a 4 KiB body tail; release builds
+     * log one request in a hundred with timings and sizes only.
+     */
+    public static SampledLoggingInterceptor forBuildType(boolean debug) {
+        return debug
+                ? new SampledLoggingInterceptor(Level.BODY, 1.0, 4096, ANDROID_LOGGER)
+                : new SampledLoggingInterceptor(Level.BASIC, 0.01, 0, ANDROID_LOGGER);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean sampled = sampleRate >= 1.0 || random.nextDouble() < sampleRate;
+        boolean captureBodies = sampled && level == Level.BODY && maxBodyBytes > 0;
+
+        RingBuffer requestTail = null;
+        if (captureBodies && request.body() != null && !request.body().isDuplex()
+                && !request.body().isOneShot()) {
+            requestTail = new RingBuffer(maxBodyBytes);
+            request = request.newBuilder()
+                    .method(request.method(), new CapturingRequestBody(request.body(), requestTail))
+                    .build();
+        }
+
+        long startNs = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            logger.logFailure("<-- HTTP FAILED " + request.method() + " " + request.url().encodedPath()
+                    + " (" + elapsedMs(startNs) + "ms): " + e);
+            throw e;
+        }
+        long headersMs = elapsedMs(startNs);
+
+        if (!sampled) {
+            return response;
+        }
+
+        StringBuilder message = new StringBuilder(256);
+        message.append("--> ").append(request.method()).append(' ').append(request.url());
+        if (request.body() != null) {
+            message.append(" (").append(describeLength(request.body().contentLength())).append(')');
+        }
+        if (level != Level.BASIC) {
+            appendHeaders(message, request.headers());
+        }
+        if (requestTail != null) {
+            message.append('\n').append(requestTail.describe());
+        }
+        message.append("\n<-- ").append(response.code()).append(' ').append(response.message())
+                .append(' ').append(response.protocol())
+                .append(" (").append(headersMs).append("ms to headers)");
+        if (level != Level.BASIC) {
+            appendHeaders(message, response.headers());
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            logger.log(message.toString());
+            return response;
+        }
+        // Log once the caller has finished with the body, without reading it ourselves
+        RingBuffer responseTail = captureBodies ? new RingBuffer(maxBodyBytes) : null;
+        return response.newBuilder()
+                .body(new ObservedResponseBody(body, responseTail, message, startNs))
+                .build();
+    }
+
+    private static void appendHeaders(StringBuilder message, Headers headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.name(i);
+            message.append('\n').append(name).append(": ")
+                    .append(REDACTED_HEADERS.contains(name) ? "\u2588\u2588" : headers.value(i));
+        }
+    }
+
+    private static String describeLength(long length) {
+        return length >= 0 ? length + "-byte body" : "unknown-length body";
+    }
+
+    private static long elapsedMs(long startNs) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+    }
+
+    /**
+     * Keeps the last {@code capacity} bytes written to it and counts the total.
+     */
+    static final class RingBuffer {
+        private final byte[] bytes;
+        private int position;
+        private boolean wrapped;
+        private long total;
+
+        RingBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        /**
+         * Record {@code count} bytes of {@code buffer} starting at {@code offset}, without
+         * consuming them.
+         */
+        synchronized void write(Buffer buffer, long offset, long count) {
+            total += count;
+            // Only the bytes that will survive in the ring need copying
+            long start = offset + Math.max(0, count - bytes.length);
+            for (long i = start; i < offset + count; i++) {
+                bytes[position++] = buffer.getByte(i);
+                if (position == bytes.length) {
+                    position = 0;
+                    wrapped = true;
+                }
+            }
+        }
+
+        synchronized long total() {
+            return total;
+        }
+
+        synchronized String describe() {
+            byte[] tail;
+            if (wrapped) {
+                tail = new byte[bytes.length];
+                System.arraycopy(bytes, position, tail, 0, bytes.length - position);
+                System.arraycopy(bytes, 0, tail, bytes.length - position, position);
+            } else {
+                tail = new byte[position];
+                System.arraycopy(bytes, 0, tail, 0, position);
+            }
+            String text = new String(tail, StandardCharsets.UTF_8);
+            return wrapped
+                    ? String.format(Locale.US, "[last %d of %d bytes] %s", tail.length, total, text)
+                    : text;
+        }
+    }
+
+    /**
+     * Request body that copies what OkHttp writes into a ring buffer.
+     */
+    private static final class CapturingRequestBody extends RequestBody {
+        private final RequestBody delegate;
+        private final RingBuffer tail;
+
+        CapturingRequestBody(RequestBody delegate, RingBuffer tail) {
+            this.delegate = delegate;
+            this.tail = tail;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            BufferedSink capturing = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(@NonNull Buffer source, long byteCount) throws IOException {
+                    tail.write(source, 0, Math.min(byteCount, source.size()));
+                    super.write(source, byteCount);
+                }
+            });
+            delegate.writeTo(capturing);
+            capturing.emit();
+        }
+    }
+
+    /**
+     * Response body that observes bytes as the caller reads them and logs on close.
+     */
+    private final class ObservedResponseBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final RingBuffer tail;
+        private final StringBuilder message;
+        private final long startNs;
+        private final AtomicBoolean logged = new AtomicBoolean();
+        private long bytesRead;
+        private BufferedSource source;
+
+        ObservedResponseBody(ResponseBody delegate, RingBuffer tail, StringBuilder message, long startNs) {
+            this.delegate = delegate;
+            this.tail = tail;
+            this.message = message;
+            this.startNs = startNs;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(observe(delegate.source()));
+            }
+            return source;
+        }
+
+        private Source observe(Source upstream) {
+            return new ForwardingSource(upstream) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        bytesRead += read;
+                        if (tail != null) {
+                            tail.write(sink, sink.size() - read, read);
+                        }
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    logOnce();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+            logOnce();
+        }
+
+        private void logOnce() {
+            if (!logged.compareAndSet(false, true)) {
+                return;
+            }
+            message.append("\n<-- END (").append(bytesRead).append(" bytes read, ")
+                    .append(elapsedMs(startNs)).append("ms total)");
+            if (tail != null && tail.total() > 0) {
+                message.append('\n').append(tail.describe());
+            }
+            logger.log(message.toString());
+        }
+    }
+}
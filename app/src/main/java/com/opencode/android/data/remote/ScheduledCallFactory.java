@@ -0,0 +1,268 @@
+package com.opencode.android.data.remote;
+
+import androidx.annotation.NonNull;
+
+import com.opencode.android.data.remote.zen.Priority;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Timeout;
+import retrofit2.Invocation;
+
+/**
+ * Call factory that puts each call through a {@link RequestScheduler} before it reaches
+ * OkHttp, so queued work is ordered by priority ahead of the dispatcher rather than
+ * behind it. The class of a call is the {@link RequestPriority} tag of its request, else
+ * the {@link Priority} of the Retrofit method that created it, else interactive.
+ * A call holds its slot until its response body is closed. An event stream gives its
+ * slot back as soon as its headers arrive instead, since it may stay open for minutes.
+ */
+public class ScheduledCallFactory implements Call.Factory {
+
+    private final Call.Factory delegate;
+    private final RequestScheduler scheduler;
+
+    public ScheduledCallFactory(Call.Factory delegate, RequestScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @NonNull
+    @Override
+    public Call newCall(@NonNull Request request) {
+        return new ScheduledCall(delegate.newCall(request), priorityOf(request), scheduler);
+    }
+
+    static RequestPriority priorityOf(Request request) {
+        RequestPriority tagged = request.tag(RequestPriority.class);
+        if (tagged != null) {
+            return tagged;
+        }
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            Priority annotation = invocation.method().getAnnotation(Priority.class);
+            if (annotation != null) {
+                return annotation.value();
+            }
+        }
+        return RequestPriority.INTERACTIVE;
+    }
+
+    /**
+     * Call that waits for a scheduler slot before running its delegate.
+     */
+    static final class ScheduledCall implements Call {
+        private final Call delegate;
+        private final RequestPriority priority;
+        private final RequestScheduler scheduler;
+        private final AtomicBoolean executed = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean canceled;
+        private volatile RequestScheduler.Ticket ticket;
+        // Runs if the call is canceled while still queued
+        private volatile Runnable onCanceledWhileQueued;
+        private boolean queuedCancel;
+
+        ScheduledCall(Call delegate, RequestPriority priority, RequestScheduler scheduler) {
+            this.delegate = delegate;
+            this.priority = priority;
+            this.scheduler = scheduler;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Response execute() throws IOException {
+            markExecuted();
+            CountDownLatch admitted = new CountDownLatch(1);
+            onCanceledWhileQueued = admitted::countDown;
+            ticket = scheduler.enqueue(priority, admitted::countDown);
+            if (canceled) {
+                // Canceled before the ticket existed
+                cancelQueued();
+            }
+            try {
+                admitted.await();
+            } catch (InterruptedException e) {
+                if (!scheduler.cancel(ticket)) {
+                    release();
+                }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while queued");
+            }
+            if (isQueuedCancel()) {
+                throw new IOException("Canceled");
+            }
+            try {
+                return releaseOnClose(delegate.execute());
+            } catch (IOException | RuntimeException e) {
+                release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback responseCallback) {
+            markExecuted();
+            onCanceledWhileQueued = () -> responseCallback.onFailure(this, new IOException("Canceled"));
+            ticket = scheduler.enqueue(priority, () -> delegate.enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                    responseCallback.onResponse(ScheduledCall.this, releaseOnClose(response));
+                }
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    release();
+                    responseCallback.onFailure(ScheduledCall.this, e);
+                }
+            }));
+            if (canceled) {
+                cancelQueued();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            delegate.cancel();
+            if (ticket != null) {
+                cancelQueued();
+            }
+        }
+
+        private void cancelQueued() {
+            RequestScheduler.Ticket current = ticket;
+            if (current != null && scheduler.cancel(current)) {
+                synchronized (this) {
+                    queuedCancel = true;
+                }
+                Runnable callback = onCanceledWhileQueued;
+                if (callback != null) {
+                    callback.run();
+                }
+            }
+        }
+
+        private synchronized boolean isQueuedCancel() {
+            return queuedCancel;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed.get();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || delegate.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+
+        @NonNull
+        @Override
+        public Call clone() {
+            return new ScheduledCall(delegate.clone(), priority, scheduler);
+        }
+
+        private void markExecuted() {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already Executed");
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                scheduler.release(priority);
+            }
+        }
+
+        private Response releaseOnClose(Response response) {
+            ResponseBody body = response.body();
+            if (body == null || isEventStream(body)) {
+                release();
+                return response;
+            }
+            return response.newBuilder()
+                    .body(new ReleasingResponseBody(body))
+                    .build();
+        }
+
+        private static boolean isEventStream(ResponseBody body) {
+            MediaType contentType = body.contentType();
+            return contentType != null && "text".equals(contentType.type())
+                    && "event-stream".equals(contentType.subtype());
+        }
+
+        /**
+         * Body that frees the call's slot when closed.
+         */
+        private final class ReleasingResponseBody extends ResponseBody {
+            private final ResponseBody delegate;
+            private BufferedSource source;
+
+            ReleasingResponseBody(ResponseBody delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public MediaType contentType() {
+                return delegate.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return delegate.contentLength();
+            }
+
+            @NonNull
+            @Override
+            public BufferedSource source() {
+                if (source == null) {
+                    source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                super.close();
+                            } finally {
+                                release();
+                            }
+                        }
+                    });
+                }
+                return source;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    delegate.close();
+                } finally {
+                    release();
+                }
+            }
+        }
+    }
+}
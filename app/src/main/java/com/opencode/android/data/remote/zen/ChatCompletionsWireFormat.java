@@ -0,0 +1,53 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.StreamingResponse;
+
+import java.io.IOException;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+
+/**
+ * OpenAI-compatible {@code chat/completions}: the request is sent as is and the stream
+ * is a sequence of {@code chat.completion.chunk} objects ending with {@code [DONE]}.
+ * Used for GLM, Kimi, Qwen, Grok and the other OpenAI-compatible models.
+ */
+public final class ChatCompletionsWireFormat implements WireFormat {
+
+    public static final ChatCompletionsWireFormat INSTANCE = new ChatCompletionsWireFormat();
+
+    private ChatCompletionsWireFormat() {
+    }
+
+    @Override
+    public String path() {
+        return "chat/completions";
+    }
+
+    @Override
+    public Call<ResponseBody> openStream(ZenApiService apiService, String authToken, ChatRequest request) {
+        return apiService.createCompletionStream(authToken, request);
+    }
+
+    @Override
+    public boolean readStream(BufferedSource source, Handler handler) throws IOException {
+        return new SseStreamReader().read(source, chunk -> {
+            String delta = chunk.getDeltaContent();
+            if (delta != null && !delta.isEmpty()) {
+                handler.onText(delta);
+            }
+            StreamingResponse.Choice choice = chunk.getFirstChoice();
+            if (choice != null && choice.getDelta() != null && choice.getDelta().hasToolCalls()) {
+                handler.onToolCallFragments(choice.getDelta().getToolCalls());
+            }
+            if (chunk.getUsage() != null && chunk.getUsage().getCompletionTokens() != null) {
+                handler.onUsage(chunk.getUsage().getCompletionTokens());
+            }
+            if (chunk.isDone()) {
+                handler.onFinish(choice.getFinishReason());
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.stream.JsonReader;
+import com.opencode.android.data.model.zen.ChatResponse;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Retrofit converter factory that decodes {@link ChatResponse} bodies with
+ * {@link ChatResponseDecoder} straight from the response stream. Every other type is
+ * left to the next factory, so register this one before the Gson converter.
+ * Methods annotated with {@link IncludeLogProbs} keep the logprobs section.
+ */
+public final class ChatResponseConverterFactory extends Converter.Factory {
+
+    private ChatResponseConverterFactory() {
+    }
+
+    public static ChatResponseConverterFactory create() {
+        return new ChatResponseConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(
+            Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != ChatResponse.class) {
+            return null;
+        }
+        boolean includeLogProbs = false;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof IncludeLogProbs) {
+                includeLogProbs = true;
+                break;
+            }
+        }
+        ChatResponseDecoder decoder = new ChatResponseDecoder(includeLogProbs);
+        return body -> {
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                return decoder.decode(reader);
+            }
+        };
+    }
+}
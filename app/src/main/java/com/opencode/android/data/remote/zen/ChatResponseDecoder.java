@@ -0,0 +1,203 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for non-streaming {@code chat.completion} responses.
+ * The body is read token by token from a {@link JsonReader}, so no intermediate JSON tree
+ * is built, and the message content is materialized exactly once by {@code nextString()}.
+ * Log probabilities, which can be several times larger than the answer, are skipped
+ * unless requested. Unknown fields are skipped.
+ */
+public class ChatResponseDecoder {
+
+    private final boolean includeLogProbs;
+
+    public ChatResponseDecoder(boolean includeLogProbs) {
+        this.includeLogProbs = includeLogProbs;
+    }
+
+    public ChatResponse decode(JsonReader reader) throws IOException {
+        ChatResponse response = new ChatResponse();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    response.setId(reader.nextString());
+                    break;
+                case "object":
+                    response.setObject(reader.nextString());
+                    break;
+                case "created":
+                    response.setCreated(reader.nextLong());
+                    break;
+                case "model":
+                    response.setModel(reader.nextString());
+                    break;
+                case "system_fingerprint":
+                    response.setSystemFingerprint(reader.nextString());
+                    break;
+                case "choices":
+                    response.setChoices(readChoices(reader));
+                    break;
+                case "usage":
+                    response.setUsage(StreamingResponseDecoder.readUsage(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return response;
+    }
+
+    private List<ChatResponse.Choice> readChoices(JsonReader reader) throws IOException {
+        List<ChatResponse.Choice> choices = new ArrayList<>(1);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            choices.add(readChoice(reader));
+        }
+        reader.endArray();
+        return choices;
+    }
+
+    private ChatResponse.Choice readChoice(JsonReader reader) throws IOException {
+        ChatResponse.Choice choice = new ChatResponse.Choice();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "index":
+                    choice.setIndex(reader.nextInt());
+                    break;
+                case "message":
+                    choice.setMessage(readMessage(reader));
+                    break;
+                case "finish_reason":
+                    choice.setFinishReason(reader.nextString());
+                    break;
+                case "logprobs":
+                    if (includeLogProbs) {
+                        choice.setLogProbs(readLogProbs(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return choice;
+    }
+
+    private ChatMessage readMessage(JsonReader reader) throws IOException {
+        ChatMessage message = new ChatMessage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "role":
+                    message.setRole(reader.nextString());
+                    break;
+                case "content":
+                    message.setContent(reader.nextString());
+                    break;
+                case "name":
+                    message.setName(reader.nextString());
+                    break;
+                case "tool_calls":
+                    message.setToolCalls(StreamingResponseDecoder.readToolCalls(reader));
+                    break;
+                case "tool_call_id":
+                    message.setToolCallId(reader.nextString());
+                    break;
+                case "reasoning_content":
+                    message.setReasoningContent(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+
+    private ChatResponse.LogProbs readLogProbs(JsonReader reader) throws IOException {
+        ChatResponse.LogProbs logProbs = new ChatResponse.LogProbs();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("content".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                List<ChatResponse.ContentLogProb> content = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    content.add(readContentLogProb(reader));
+                }
+                reader.endArray();
+                logProbs.setContent(content);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return logProbs;
+    }
+
+    private ChatResponse.ContentLogProb readContentLogProb(JsonReader reader) throws IOException {
+        ChatResponse.ContentLogProb logProb = new ChatResponse.ContentLogProb();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "token":
+                    logProb.setToken(reader.nextString());
+                    break;
+                case "logprob":
+                    logProb.setLogprob(reader.nextDouble());
+                    break;
+                case "bytes":
+                    List<Integer> bytes = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        bytes.add(reader.nextInt());
+                    }
+                    reader.endArray();
+                    logProb.setBytes(bytes);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return logProb;
+    }
+}
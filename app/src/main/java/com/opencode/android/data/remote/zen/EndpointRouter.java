@@ -0,0 +1,113 @@
+package com.opencode.android.data.remote.zen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routing table from model id to the endpoint and {@link WireFormat} the model speaks
+ * natively. Exact ids are checked first, then family prefixes (longest first), with
+ * the {@code opencode/} namespace ignored. Resolutions are memoized, so callers that
+ * resolve once per session pay for the table walk only on a new model.
+ */
+public final class EndpointRouter {
+
+    private static final String ZEN_PREFIX = "opencode/";
+
+    private final Map<String, WireFormat> models;
+    private final String[] familyPrefixes;
+    private final WireFormat[] familyFormats;
+    private final WireFormat fallback;
+    private final Map<String, WireFormat> resolved = new ConcurrentHashMap<>();
+
+    private EndpointRouter(Builder builder) {
+        this.models = new HashMap<>(builder.models);
+        // Longest prefix wins, e.g. "gpt-oss-" before "gpt-"
+        List<Map.Entry<String, WireFormat>> families = new ArrayList<>(builder.families.entrySet());
+        families.sort((a, b) -> b.getKey().length() - a.getKey().length());
+        this.familyPrefixes = new String[families.size()];
+        this.familyFormats = new WireFormat[families.size()];
+        for (int i = 0; i < families.size(); i++) {
+            familyPrefixes[i] = families.get(i).getKey();
+            familyFormats[i] = families.get(i).getValue();
+        }
+        this.fallback = builder.fallback;
+    }
+
+    /**
+     * Routes from the Zen documentation: GPT models on {@code responses}, Claude on
+     * {@code messages}, everything else on {@code chat/completions}.
+     */
+    public static EndpointRouter createDefault() {
+        return new Builder()
+                .family("gpt-", ResponsesWireFormat.INSTANCE)
+                .family("claude-", MessagesWireFormat.INSTANCE)
+                .fallback(ChatCompletionsWireFormat.INSTANCE)
+                .build();
+    }
+
+    /**
+     * Get the wire format for a model; unknown or null ids use the fallback.
+     */
+    public WireFormat resolve(String modelId) {
+        if (modelId == null) {
+            return fallback;
+        }
+        WireFormat format = resolved.get(modelId);
+        if (format == null) {
+            format = lookup(modelId);
+            resolved.put(modelId, format);
+        }
+        return format;
+    }
+
+    private WireFormat lookup(String modelId) {
+        String id = modelId.startsWith(ZEN_PREFIX) ? modelId.substring(ZEN_PREFIX.length()) : modelId;
+        WireFormat exact = models.get(id);
+        if (exact != null) {
+            return exact;
+        }
+        for (int i = 0; i < familyPrefixes.length; i++) {
+            if (id.startsWith(familyPrefixes[i])) {
+                return familyFormats[i];
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Builder for routing tables.
+     */
+    public static class Builder {
+        private final Map<String, WireFormat> models = new HashMap<>();
+        private final Map<String, WireFormat> families = new HashMap<>();
+        private WireFormat fallback = ChatCompletionsWireFormat.INSTANCE;
+
+        /**
+         * Route one model id, overriding its family.
+         */
+        public Builder model(String modelId, WireFormat format) {
+            models.put(modelId, format);
+            return this;
+        }
+
+        /**
+         * Route every model whose id starts with the prefix.
+         */
+        public Builder family(String prefix, WireFormat format) {
+            families.put(prefix, format);
+            return this;
+        }
+
+        public Builder fallback(WireFormat format) {
+            this.fallback = format;
+            return this;
+        }
+
+        public EndpointRouter build() {
+            return new EndpointRouter(this);
+        }
+    }
+}
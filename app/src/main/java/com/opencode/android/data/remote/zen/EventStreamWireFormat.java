@@ -0,0 +1,140 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ToolCall;
+import com.opencode.android.data.model.zen.ToolDefinition;
+import com.opencode.android.data.remote.NetworkModule;
+
+import java.io.IOException;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+
+/**
+ * Base for endpoints whose streams are typed JSON events ({@code {"type": ...}}) and
+ * whose end is a terminal event rather than a {@code [DONE]} marker. Events are read
+ * from the {@link SseFramer} one object at a time with a lenient {@link JsonReader}.
+ */
+abstract class EventStreamWireFormat implements WireFormat {
+
+    static final Gson GSON = NetworkModule.provideGson();
+
+    /**
+     * Decoding state of one stream.
+     */
+    interface EventDecoder {
+        /** Decode the next event object and forward it to the handler. */
+        void decode(JsonReader reader) throws IOException;
+
+        /** Whether the terminal event has been seen. */
+        boolean isTerminated();
+    }
+
+    /**
+     * Translate a request into this endpoint's native body.
+     */
+    abstract JsonObject encode(ChatRequest request);
+
+    abstract EventDecoder newDecoder(Handler handler);
+
+    @Override
+    public Call<ResponseBody> openStream(ZenApiService apiService, String authToken, ChatRequest request) {
+        RequestBody body = RequestBody.create(encode(request).toString(), JSON);
+        return apiService.createStream(authToken, path(), body, request);
+    }
+
+    @Override
+    public boolean readStream(BufferedSource source, Handler handler) throws IOException {
+        EventDecoder decoder = newDecoder(handler);
+        JsonReader reader = new JsonReader(new SseFramer(source));
+        // Lenient mode accepts the sequence of top-level objects the framer produces
+        reader.setLenient(true);
+
+        JsonToken token;
+        while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+            if (token != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            decoder.decode(reader);
+        }
+        return decoder.isTerminated();
+    }
+
+    /**
+     * JSON Schema of a tool's parameters.
+     */
+    static JsonElement parameterSchema(ToolDefinition tool) {
+        if (tool.getFunction() == null || tool.getFunction().getParameters() == null) {
+            JsonObject empty = new JsonObject();
+            empty.addProperty("type", "object");
+            return empty;
+        }
+        return GSON.toJsonTree(tool.getFunction().getParameters());
+    }
+
+    /**
+     * Parse tool call arguments, which the model may have left incomplete.
+     */
+    static JsonElement parseArguments(String arguments) {
+        if (arguments != null && !arguments.isEmpty()) {
+            try {
+                JsonElement parsed = JsonParser.parseString(arguments);
+                if (parsed.isJsonObject()) {
+                    return parsed;
+                }
+            } catch (JsonParseException e) {
+                // Fall through to an empty object
+            }
+        }
+        return new JsonObject();
+    }
+
+    /**
+     * Tool call fragment in chat completions form for {@link ToolCallAssembler}.
+     */
+    static ToolCall[] toolCallFragment(int index, String id, String name, String arguments) {
+        ToolCall fragment = new ToolCall();
+        fragment.setIndex(index);
+        fragment.setId(id);
+        if (id != null) {
+            fragment.setType(ToolDefinition.TYPE_FUNCTION);
+        }
+        fragment.setFunction(new ToolCall.FunctionInfo(name, arguments));
+        return new ToolCall[]{fragment};
+    }
+
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Read {@code output_tokens} from a usage object, or -1 if absent.
+     */
+    static int readOutputTokens(JsonReader reader) throws IOException {
+        int outputTokens = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("output_tokens".equals(reader.nextName()) && reader.peek() == JsonToken.NUMBER) {
+                outputTokens = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return outputTokens;
+    }
+}
@@ -0,0 +1,18 @@
+package com.opencode.android.data.remote.zen;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link ZenApiService} method whose {@code ChatResponse} should keep the
+ * {@code logprobs} of each choice. Without it, {@link ChatResponseConverterFactory}
+ * skips them while decoding.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IncludeLogProbs {
+}
@@ -0,0 +1,355 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ToolCall;
+import com.opencode.android.data.model.zen.ToolDefinition;
+
+import java.io.IOException;
+
+/**
+ * Anthropic {@code messages}, used for Claude models. System messages become a
+ * top-level system prompt marked for prompt caching, tool calls and results become
+ * {@code tool_use}/{@code tool_result} blocks, and the stream of {@code content_block_*}
+ * and {@code message_*} events ends with {@code message_stop}.
+ */
+public final class MessagesWireFormat extends EventStreamWireFormat {
+
+    public static final MessagesWireFormat INSTANCE = new MessagesWireFormat();
+
+    // The endpoint requires max_tokens
+    static final int DEFAULT_MAX_TOKENS = 4096;
+
+    private MessagesWireFormat() {
+    }
+
+    @Override
+    public String path() {
+        return "messages";
+    }
+
+    @Override
+    JsonObject encode(ChatRequest request) {
+        JsonObject body = new JsonObject();
+        body.addProperty("model", request.getModel());
+        body.addProperty("max_tokens", request.getMaxTokens() != null ? request.getMaxTokens() : DEFAULT_MAX_TOKENS);
+        if (request.getTemperature() != null) {
+            body.addProperty("temperature", request.getTemperature());
+        }
+        if (request.getTopP() != null) {
+            body.addProperty("top_p", request.getTopP());
+        }
+        body.addProperty("stream", true);
+
+        StringBuilder system = new StringBuilder();
+        JsonArray messages = new JsonArray();
+        if (request.getMessages() != null) {
+            int last = request.getMessages().size() - 1;
+            for (int i = 0; i <= last; i++) {
+                ChatMessage message = request.getMessages().get(i);
+                if (message.isSystem()) {
+                    if (message.getContent() != null && !message.getContent().isEmpty()) {
+                        if (system.length() > 0) {
+                            system.append("\n\n");
+                        }
+                        system.append(message.getContent());
+                    }
+                } else if (message.isTool()) {
+                    JsonObject result = new JsonObject();
+                    result.addProperty("type", "tool_result");
+                    result.addProperty("tool_use_id", message.getToolCallId());
+                    result.addProperty("content", message.getContent() != null ? message.getContent() : "");
+                    messages.add(blocksMessage(ChatMessage.ROLE_USER, result));
+                } else if (message.isAssistant() && message.hasToolCalls()) {
+                    messages.add(toolUseMessage(message));
+                } else if (message.getContent() != null && !message.getContent().isEmpty()) {
+                    String content = message.getContent();
+                    if (i == last && message.isAssistant()) {
+                        // A trailing assistant turn is a prefill, e.g. when resuming a
+                        // dropped stream, and the endpoint rejects trailing whitespace
+                        content = stripTrailingWhitespace(content);
+                        if (content.isEmpty()) {
+                            continue;
+                        }
+                    }
+                    JsonObject text = new JsonObject();
+                    text.addProperty("role", message.getRole());
+                    text.addProperty("content", content);
+                    messages.add(text);
+                }
+            }
+        }
+        if (system.length() > 0) {
+            // The system prompt is resent verbatim every turn, so let the endpoint cache it
+            JsonObject block = textBlock(system.toString());
+            JsonObject cacheControl = new JsonObject();
+            cacheControl.addProperty("type", "ephemeral");
+            block.add("cache_control", cacheControl);
+            JsonArray blocks = new JsonArray();
+            blocks.add(block);
+            body.add("system", blocks);
+        }
+        body.add("messages", messages);
+
+        if (request.getTools() != null && !request.getTools().isEmpty()) {
+            JsonArray tools = new JsonArray();
+            for (ToolDefinition tool : request.getTools()) {
+                JsonObject definition = new JsonObject();
+                definition.addProperty("name", tool.getName());
+                if (tool.getDescription() != null) {
+                    definition.addProperty("description", tool.getDescription());
+                }
+                definition.add("input_schema", parameterSchema(tool));
+                tools.add(definition);
+            }
+            body.add("tools", tools);
+        }
+        return body;
+    }
+
+    private static JsonObject toolUseMessage(ChatMessage message) {
+        JsonArray blocks = new JsonArray();
+        if (message.getContent() != null && !message.getContent().isEmpty()) {
+            blocks.add(textBlock(message.getContent()));
+        }
+        for (ToolCall toolCall : message.getToolCalls()) {
+            JsonObject block = new JsonObject();
+            block.addProperty("type", "tool_use");
+            block.addProperty("id", toolCall.getId());
+            block.addProperty("name", toolCall.getFunctionName());
+            block.add("input", parseArguments(toolCall.getFunctionArguments()));
+            blocks.add(block);
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty("role", ChatMessage.ROLE_ASSISTANT);
+        result.add("content", blocks);
+        return result;
+    }
+
+    private static String stripTrailingWhitespace(String text) {
+        int end = text.length();
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static JsonObject blocksMessage(String role, JsonObject block) {
+        JsonArray blocks = new JsonArray();
+        blocks.add(block);
+        JsonObject message = new JsonObject();
+        message.addProperty("role", role);
+        message.add("content", blocks);
+        return message;
+    }
+
+    private static JsonObject textBlock(String text) {
+        JsonObject block = new JsonObject();
+        block.addProperty("type", "text");
+        block.addProperty("text", text);
+        return block;
+    }
+
+    /**
+     * Map a stop reason to its chat completions name, so consumers see one vocabulary.
+     */
+    static String finishReason(String stopReason) {
+        if (stopReason == null) {
+            return null;
+        }
+        switch (stopReason) {
+            case "end_turn":
+            case "stop_sequence":
+                return "stop";
+            case "tool_use":
+                return "tool_calls";
+            case "max_tokens":
+                return "length";
+            default:
+                return stopReason;
+        }
+    }
+
+    @Override
+    EventDecoder newDecoder(Handler handler) {
+        return new Decoder(handler);
+    }
+
+    /**
+     * Decodes one Messages stream. Only the fields the handler needs are kept; the rest
+     * are skipped token by token.
+     */
+    private static final class Decoder implements EventDecoder {
+        private final Handler handler;
+        private boolean terminated;
+
+        // Fields of the current event
+        private String type;
+        private int index;
+        private String blockType;
+        private String blockId;
+        private String blockName;
+        private String text;
+        private String partialJson;
+        private String stopReason;
+        private int outputTokens;
+        private String errorMessage;
+
+        Decoder(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return terminated;
+        }
+
+        @Override
+        public void decode(JsonReader reader) throws IOException {
+            type = null;
+            index = 0;
+            blockType = null;
+            blockId = null;
+            blockName = null;
+            text = null;
+            partialJson = null;
+            stopReason = null;
+            outputTokens = -1;
+            errorMessage = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        type = reader.nextString();
+                        break;
+                    case "index":
+                        index = reader.nextInt();
+                        break;
+                    case "content_block":
+                        readContentBlock(reader);
+                        break;
+                    case "delta":
+                        readDelta(reader);
+                        break;
+                    case "usage":
+                        outputTokens = readOutputTokens(reader);
+                        break;
+                    case "error":
+                        readError(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            dispatch();
+        }
+
+        private void dispatch() throws IOException {
+            if (type == null) {
+                return;
+            }
+            switch (type) {
+                case "content_block_start":
+                    if ("tool_use".equals(blockType)) {
+                        handler.onToolCallFragments(toolCallFragment(index, blockId, blockName, ""));
+                    } else if (text != null && !text.isEmpty()) {
+                        handler.onText(text);
+                    }
+                    break;
+                case "content_block_delta":
+                    if (text != null && !text.isEmpty()) {
+                        handler.onText(text);
+                    } else if (partialJson != null && !partialJson.isEmpty()) {
+                        handler.onToolCallFragments(toolCallFragment(index, null, null, partialJson));
+                    }
+                    break;
+                case "message_delta":
+                    if (outputTokens >= 0) {
+                        handler.onUsage(outputTokens);
+                    }
+                    if (stopReason != null) {
+                        handler.onFinish(finishReason(stopReason));
+                    }
+                    break;
+                case "message_stop":
+                    terminated = true;
+                    break;
+                case "error":
+                    throw new StreamErrorException(errorMessage);
+                default:
+                    // message_start, content_block_stop, ping
+                    break;
+            }
+        }
+
+        private void readContentBlock(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "type":
+                        blockType = nextStringOrNull(reader);
+                        break;
+                    case "id":
+                        blockId = nextStringOrNull(reader);
+                        break;
+                    case "name":
+                        blockName = nextStringOrNull(reader);
+                        break;
+                    case "text":
+                        text = nextStringOrNull(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+
+        private void readDelta(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "text":
+                        text = nextStringOrNull(reader);
+                        break;
+                    case "partial_json":
+                        partialJson = nextStringOrNull(reader);
+                        break;
+                    case "stop_reason":
+                        stopReason = nextStringOrNull(reader);
+                        break;
+                    default:
+                        // Includes thinking deltas, which are not shown
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+
+        private void readError(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("message".equals(reader.nextName())) {
+                    errorMessage = nextStringOrNull(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+    }
+}
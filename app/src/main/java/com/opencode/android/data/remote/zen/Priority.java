@@ -0,0 +1,20 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.remote.RequestPriority;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Scheduling class of a {@link ZenApiService} method. Unannotated methods are
+ * {@link RequestPriority#INTERACTIVE}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Priority {
+    RequestPriority value();
+}
@@ -0,0 +1,299 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ToolCall;
+import com.opencode.android.data.model.zen.ToolDefinition;
+
+import java.io.IOException;
+
+/**
+ * OpenAI {@code responses}, used for GPT models. System messages become
+ * {@code instructions}, tool calls and results become {@code function_call} and
+ * {@code function_call_output} input items, and the stream of {@code response.*}
+ * events ends with {@code response.completed} or {@code response.incomplete}.
+ */
+public final class ResponsesWireFormat extends EventStreamWireFormat {
+
+    public static final ResponsesWireFormat INSTANCE = new ResponsesWireFormat();
+
+    private ResponsesWireFormat() {
+    }
+
+    @Override
+    public String path() {
+        return "responses";
+    }
+
+    @Override
+    JsonObject encode(ChatRequest request) {
+        JsonObject body = new JsonObject();
+        body.addProperty("model", request.getModel());
+        if (request.getMaxTokens() != null) {
+            body.addProperty("max_output_tokens", request.getMaxTokens());
+        }
+        if (request.getTemperature() != null) {
+            body.addProperty("temperature", request.getTemperature());
+        }
+        if (request.getTopP() != null) {
+            body.addProperty("top_p", request.getTopP());
+        }
+        body.addProperty("stream", true);
+
+        StringBuilder instructions = new StringBuilder();
+        JsonArray input = new JsonArray();
+        if (request.getMessages() != null) {
+            for (ChatMessage message : request.getMessages()) {
+                if (message.isSystem()) {
+                    if (message.getContent() != null && !message.getContent().isEmpty()) {
+                        if (instructions.length() > 0) {
+                            instructions.append("\n\n");
+                        }
+                        instructions.append(message.getContent());
+                    }
+                    continue;
+                }
+                if (message.isTool()) {
+                    JsonObject output = new JsonObject();
+                    output.addProperty("type", "function_call_output");
+                    output.addProperty("call_id", message.getToolCallId());
+                    output.addProperty("output", message.getContent() != null ? message.getContent() : "");
+                    input.add(output);
+                    continue;
+                }
+                if (message.getContent() != null && !message.getContent().isEmpty()) {
+                    JsonObject item = new JsonObject();
+                    item.addProperty("role", message.getRole());
+                    item.addProperty("content", message.getContent());
+                    input.add(item);
+                }
+                if (message.isAssistant() && message.hasToolCalls()) {
+                    for (ToolCall toolCall : message.getToolCalls()) {
+                        JsonObject call = new JsonObject();
+                        call.addProperty("type", "function_call");
+                        call.addProperty("call_id", toolCall.getId());
+                        call.addProperty("name", toolCall.getFunctionName());
+                        call.addProperty("arguments", toolCall.getFunctionArguments() != null
+                                ? toolCall.getFunctionArguments() : "{}");
+                        input.add(call);
+                    }
+                }
+            }
+        }
+        if (instructions.length() > 0) {
+            body.addProperty("instructions", instructions.toString());
+        }
+        body.add("input", input);
+
+        if (request.getTools() != null && !request.getTools().isEmpty()) {
+            JsonArray tools = new JsonArray();
+            for (ToolDefinition tool : request.getTools()) {
+                JsonObject definition = new JsonObject();
+                definition.addProperty("type", ToolDefinition.TYPE_FUNCTION);
+                definition.addProperty("name", tool.getName());
+                if (tool.getDescription() != null) {
+                    definition.addProperty("description", tool.getDescription());
+                }
+                definition.add("parameters", parameterSchema(tool));
+                tools.add(definition);
+            }
+            body.add("tools", tools);
+        }
+        return body;
+    }
+
+    @Override
+    EventDecoder newDecoder(Handler handler) {
+        return new Decoder(handler);
+    }
+
+    /**
+     * Decodes one Responses stream. Only the fields the handler needs are kept; the rest,
+     * including the full output echoed by {@code response.completed}, are skipped token
+     * by token.
+     */
+    private static final class Decoder implements EventDecoder {
+        private final Handler handler;
+        private boolean terminated;
+        private boolean sawFunctionCall;
+
+        // Fields of the current event
+        private String type;
+        private String delta;
+        private int outputIndex;
+        private String itemType;
+        private String callId;
+        private String itemName;
+        private int outputTokens;
+        private String incompleteReason;
+        private String errorMessage;
+
+        Decoder(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return terminated;
+        }
+
+        @Override
+        public void decode(JsonReader reader) throws IOException {
+            type = null;
+            delta = null;
+            outputIndex = 0;
+            itemType = null;
+            callId = null;
+            itemName = null;
+            outputTokens = -1;
+            incompleteReason = null;
+            errorMessage = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        type = reader.nextString();
+                        break;
+                    case "delta":
+                        delta = reader.nextString();
+                        break;
+                    case "output_index":
+                        outputIndex = reader.nextInt();
+                        break;
+                    case "item":
+                        readItem(reader);
+                        break;
+                    case "response":
+                        readResponse(reader);
+                        break;
+                    case "message":
+                        if (reader.peek() == JsonToken.STRING) {
+                            errorMessage = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            dispatch();
+        }
+
+        private void dispatch() throws IOException {
+            if (type == null) {
+                return;
+            }
+            switch (type) {
+                case "response.output_text.delta":
+                    if (delta != null && !delta.isEmpty()) {
+                        handler.onText(delta);
+                    }
+                    break;
+                case "response.output_item.added":
+                    if ("function_call".equals(itemType)) {
+                        sawFunctionCall = true;
+                        handler.onToolCallFragments(toolCallFragment(outputIndex, callId, itemName, ""));
+                    }
+                    break;
+                case "response.function_call_arguments.delta":
+                    if (delta != null && !delta.isEmpty()) {
+                        handler.onToolCallFragments(toolCallFragment(outputIndex, null, null, delta));
+                    }
+                    break;
+                case "response.completed":
+                    finish(sawFunctionCall ? "tool_calls" : "stop");
+                    break;
+                case "response.incomplete":
+                    finish("max_output_tokens".equals(incompleteReason) ? "length" : incompleteReason);
+                    break;
+                case "response.failed":
+                case "error":
+                    throw new StreamErrorException(errorMessage);
+                default:
+                    break;
+            }
+        }
+
+        private void finish(String reason) {
+            if (outputTokens >= 0) {
+                handler.onUsage(outputTokens);
+            }
+            handler.onFinish(reason);
+            terminated = true;
+        }
+
+        private void readItem(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "type":
+                        itemType = nextStringOrNull(reader);
+                        break;
+                    case "call_id":
+                        callId = nextStringOrNull(reader);
+                        break;
+                    case "name":
+                        itemName = nextStringOrNull(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+
+        private void readResponse(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "usage":
+                        outputTokens = readOutputTokens(reader);
+                        break;
+                    case "incomplete_details":
+                        incompleteReason = readStringField(reader, "reason");
+                        break;
+                    case "error":
+                        errorMessage = readStringField(reader, "message");
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+
+        private static String readStringField(JsonReader reader, String field) throws IOException {
+            String value = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (field.equals(reader.nextName())) {
+                    value = nextStringOrNull(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return value;
+        }
+    }
+}
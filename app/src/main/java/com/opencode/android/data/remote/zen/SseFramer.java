@@ -0,0 +1,168 @@
+package com.opencode.android.data.remote.zen;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+
+/**
+ * Character view over the {@code data:} payloads of a Server-Sent Events body.
+ * Event boundaries are found by scanning the Okio buffer for line feeds, and payload
+ * bytes are decoded from UTF-8 straight out of the buffer, so no {@code String} is
+ * created per line. Non-data lines (comments, {@code event:}, {@code id:}, blank
+ * separators) are skipped, and the {@code [DONE]} marker reads as end of input, as does
+ * a final line without its line feed, which was cut off.
+ *
+ * <p>Reads never block once at least one character is available, which lets a
+ * lenient {@link com.google.gson.stream.JsonReader} consume one event at a time.
+ */
+public class SseFramer extends Reader {
+
+    private static final ByteString DATA_PREFIX = ByteString.encodeUtf8("data:");
+    private static final ByteString DONE_MARKER = ByteString.encodeUtf8("[DONE]");
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+    private final BufferedSource source;
+
+    // Payload bytes left in the current data line
+    private long remaining;
+    // Line terminator bytes to skip once the payload is consumed
+    private long pendingSkip;
+    private char pendingLowSurrogate;
+    private boolean done;
+
+    public SseFramer(BufferedSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Whether the stream was terminated by the {@code [DONE]} marker.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        if (pendingLowSurrogate != 0) {
+            cbuf[off + count++] = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+        }
+        Buffer buffer = source.getBuffer();
+        while (count < len) {
+            if (remaining == 0) {
+                // Hand over what we have before blocking for the next event
+                if (count > 0 || !nextDataLine()) {
+                    break;
+                }
+                buffer = source.getBuffer();
+            }
+
+            int b = buffer.readByte() & 0xFF;
+            remaining--;
+            if (b < 0x80) {
+                cbuf[off + count++] = (char) b;
+                continue;
+            }
+
+            int codePoint;
+            int extra;
+            if ((b & 0xE0) == 0xC0) {
+                codePoint = b & 0x1F;
+                extra = 1;
+            } else if ((b & 0xF0) == 0xE0) {
+                codePoint = b & 0x0F;
+                extra = 2;
+            } else if ((b & 0xF8) == 0xF0) {
+                codePoint = b & 0x07;
+                extra = 3;
+            } else {
+                cbuf[off + count++] = REPLACEMENT_CHAR;
+                continue;
+            }
+            if (extra > remaining) {
+                // Truncated sequence at the end of the line
+                buffer.skip(remaining);
+                remaining = 0;
+                cbuf[off + count++] = REPLACEMENT_CHAR;
+                continue;
+            }
+            for (int i = 0; i < extra; i++) {
+                codePoint = (codePoint << 6) | (buffer.readByte() & 0x3F);
+            }
+            remaining -= extra;
+
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                cbuf[off + count++] = (char) codePoint;
+            } else {
+                cbuf[off + count++] = Character.highSurrogate(codePoint);
+                char low = Character.lowSurrogate(codePoint);
+                if (count < len) {
+                    cbuf[off + count++] = low;
+                } else {
+                    pendingLowSurrogate = low;
+                }
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    /**
+     * Advance to the next non-empty data line, blocking until it is fully buffered.
+     *
+     * @return false at the end of the stream or at the {@code [DONE]} marker
+     */
+    private boolean nextDataLine() throws IOException {
+        Buffer buffer = source.getBuffer();
+        buffer.skip(pendingSkip);
+        pendingSkip = 0;
+
+        while (!done) {
+            long newline = source.indexOf((byte) '\n');
+            buffer = source.getBuffer();
+            if (newline == -1) {
+                // Source is exhausted; an unterminated line is an event cut off in transit,
+                // so it must not reach the parser as if it were malformed
+                buffer.clear();
+                return false;
+            }
+            long lineSize = newline + 1;
+            long length = newline;
+            if (length > 0 && buffer.getByte(length - 1) == '\r') {
+                length--;
+            }
+
+            if (length >= DATA_PREFIX.size() && buffer.rangeEquals(0, DATA_PREFIX)) {
+                long prefix = DATA_PREFIX.size();
+                if (length > prefix && buffer.getByte(prefix) == ' ') {
+                    prefix++;
+                }
+                long payload = length - prefix;
+                if (payload == DONE_MARKER.size() && buffer.rangeEquals(prefix, DONE_MARKER)) {
+                    buffer.skip(lineSize);
+                    done = true;
+                    return false;
+                }
+                if (payload > 0) {
+                    buffer.skip(prefix);
+                    remaining = payload;
+                    pendingSkip = lineSize - prefix - payload;
+                    return true;
+                }
+            }
+            buffer.skip(lineSize);
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
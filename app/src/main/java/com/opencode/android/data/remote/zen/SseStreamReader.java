@@ -0,0 +1,56 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencode.android.data.model.zen.StreamingResponse;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+
+/**
+ * Reader for Server-Sent Events returned by the streaming chat completions endpoint.
+ * The {@link SseFramer} feeds {@code data:} payloads straight into a single lenient
+ * {@link JsonReader}, and each event is decoded into a pooled {@link StreamingResponse}
+ * chunk that is handed to the listener as soon as it arrives.
+ */
+public class SseStreamReader {
+
+    /**
+     * Receives parsed chunks on the reading thread. A chunk is recycled once the
+     * callback returns, so it must not be retained.
+     */
+    public interface Listener {
+        void onChunk(StreamingResponse chunk);
+    }
+
+    /**
+     * Read events until the {@code [DONE]} marker or the end of the body.
+     * Blocks the calling thread while waiting for data.
+     *
+     * @return true if the stream was terminated by the {@code [DONE]} marker
+     */
+    public boolean read(BufferedSource source, Listener listener) throws IOException {
+        StreamingResponsePool pool = new StreamingResponsePool();
+        StreamingResponseDecoder decoder = new StreamingResponseDecoder(pool);
+        SseFramer framer = new SseFramer(source);
+        JsonReader reader = new JsonReader(framer);
+        // Lenient mode accepts the sequence of top-level objects the framer produces
+        reader.setLenient(true);
+
+        JsonToken token;
+        while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+            if (token != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            StreamingResponse chunk = decoder.decode(reader);
+            try {
+                listener.onChunk(chunk);
+            } finally {
+                pool.recycle(chunk);
+            }
+        }
+        return framer.isDone();
+    }
+}
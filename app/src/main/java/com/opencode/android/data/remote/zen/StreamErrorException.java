@@ -0,0 +1,15 @@
+package com.opencode.android.data.remote.zen;
+
+import java.io.IOException;
+
+/**
+ * Error event sent by the endpoint in place of the rest of a stream, e.g. for a
+ * request it rejected or could not serve. The request reached the server, so it is
+ * never resumed.
+ */
+public class StreamErrorException extends IOException {
+
+    public StreamErrorException(String message) {
+        super("Stream error: " + message);
+    }
+}
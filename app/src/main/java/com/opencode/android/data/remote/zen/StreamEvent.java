@@ -0,0 +1,95 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ToolCall;
+
+/**
+ * Immutable event published by a streaming completion.
+ * Unlike the pooled {@link com.opencode.android.data.model.zen.StreamingResponse} chunks,
+ * events may be handed to other threads and retained.
+ *
+ * <p>Delta events also expose the text accumulated so far, materialized lazily from a
+ * buffer shared by the stream, so consumers that only need the latest state can drop
+ * intermediate events (e.g. with {@code onBackpressureLatest()}).
+ */
+public final class StreamEvent {
+
+    public enum Type {
+        DELTA,
+        TOOL_CALL,
+        USAGE,
+        FINISH,
+        RESUMED
+    }
+
+    private final Type type;
+    private final String text;
+    private final StringBuffer accumulated;
+    private final int accumulatedLength;
+    private final ToolCall toolCall;
+    private final int completionTokens;
+    private String content;
+
+    private StreamEvent(Type type, String text, StringBuffer accumulated, int accumulatedLength,
+                        ToolCall toolCall, int completionTokens) {
+        this.type = type;
+        this.text = text;
+        this.accumulated = accumulated;
+        this.accumulatedLength = accumulatedLength;
+        this.toolCall = toolCall;
+        this.completionTokens = completionTokens;
+    }
+
+    // Static factory methods
+    public static StreamEvent delta(String text, StringBuffer accumulated) {
+        return new StreamEvent(Type.DELTA, text, accumulated, accumulated.length(), null, 0);
+    }
+
+    public static StreamEvent toolCall(ToolCall toolCall) {
+        return new StreamEvent(Type.TOOL_CALL, null, null, 0, toolCall, 0);
+    }
+
+    public static StreamEvent usage(int completionTokens) {
+        return new StreamEvent(Type.USAGE, null, null, 0, null, completionTokens);
+    }
+
+    public static StreamEvent finish(String finishReason) {
+        return new StreamEvent(Type.FINISH, finishReason, null, 0, null, 0);
+    }
+
+    public static StreamEvent resumed() {
+        return new StreamEvent(Type.RESUMED, null, null, 0, null, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Delta text for {@link Type#DELTA}, finish reason for {@link Type#FINISH}.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Text accumulated up to and including this delta.
+     */
+    public String getContent() {
+        if (content == null && accumulated != null) {
+            content = accumulated.substring(0, accumulatedLength);
+        }
+        return content;
+    }
+
+    public int getContentLength() {
+        return accumulatedLength;
+    }
+
+    public ToolCall getToolCall() {
+        return toolCall;
+    }
+
+    public int getCompletionTokens() {
+        return completionTokens;
+    }
+}
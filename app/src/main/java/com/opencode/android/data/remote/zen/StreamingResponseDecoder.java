@@ -0,0 +1,273 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencode.android.data.model.zen.ChatResponse;
+import com.opencode.android.data.model.zen.StreamingResponse;
+import com.opencode.android.data.model.zen.ToolCall;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming decoder for {@code chat.completion.chunk} objects. Fields are read token by
+ * token from a {@link JsonReader} into pooled {@link StreamingResponse} objects, so no
+ * intermediate JSON tree is built. Unknown fields and logprobs are skipped.
+ * Not thread-safe; each stream owns its own decoder.
+ */
+public class StreamingResponseDecoder {
+
+    private final StreamingResponsePool pool;
+    private StreamingResponse.Choice[] scratch = new StreamingResponse.Choice[4];
+
+    public StreamingResponseDecoder(StreamingResponsePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Decode the next object from the reader into a pooled chunk. The caller returns the
+     * chunk to the pool once it has been handled.
+     */
+    public StreamingResponse decode(JsonReader reader) throws IOException {
+        StreamingResponse response = pool.obtainResponse();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    response.setId(reader.nextString());
+                    break;
+                case "object":
+                    response.setObject(reader.nextString());
+                    break;
+                case "created":
+                    response.setCreated(reader.nextLong());
+                    break;
+                case "model":
+                    response.setModel(reader.nextString());
+                    break;
+                case "system_fingerprint":
+                    response.setSystemFingerprint(reader.nextString());
+                    break;
+                case "choices":
+                    response.setChoices(readChoices(reader));
+                    break;
+                case "usage":
+                    response.setUsage(readUsage(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return response;
+    }
+
+    private StreamingResponse.Choice[] readChoices(JsonReader reader) throws IOException {
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count == scratch.length) {
+                scratch = Arrays.copyOf(scratch, count * 2);
+            }
+            scratch[count++] = readChoice(reader);
+        }
+        reader.endArray();
+
+        StreamingResponse.Choice[] choices = pool.obtainChoiceArray(count);
+        System.arraycopy(scratch, 0, choices, 0, count);
+        Arrays.fill(scratch, 0, count, null);
+        return choices;
+    }
+
+    private StreamingResponse.Choice readChoice(JsonReader reader) throws IOException {
+        StreamingResponse.Choice choice = pool.obtainChoice();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "index":
+                    choice.setIndex(reader.nextInt());
+                    break;
+                case "delta":
+                    choice.setDelta(readDelta(reader));
+                    break;
+                case "finish_reason":
+                    choice.setFinishReason(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return choice;
+    }
+
+    private StreamingResponse.Delta readDelta(JsonReader reader) throws IOException {
+        StreamingResponse.Delta delta = pool.obtainDelta();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "role":
+                    delta.setRole(reader.nextString());
+                    break;
+                case "content":
+                    delta.setContent(reader.nextString());
+                    break;
+                case "tool_calls":
+                    delta.setToolCalls(readToolCalls(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return delta;
+    }
+
+    static ToolCall[] readToolCalls(JsonReader reader) throws IOException {
+        List<ToolCall> toolCalls = new ArrayList<>(1);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            toolCalls.add(readToolCall(reader));
+        }
+        reader.endArray();
+        return toolCalls.toArray(new ToolCall[0]);
+    }
+
+    private static ToolCall readToolCall(JsonReader reader) throws IOException {
+        ToolCall toolCall = new ToolCall();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "index":
+                    toolCall.setIndex(reader.nextInt());
+                    break;
+                case "id":
+                    toolCall.setId(reader.nextString());
+                    break;
+                case "type":
+                    toolCall.setType(reader.nextString());
+                    break;
+                case "function":
+                    toolCall.setFunction(readFunction(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return toolCall;
+    }
+
+    private static ToolCall.FunctionInfo readFunction(JsonReader reader) throws IOException {
+        ToolCall.FunctionInfo function = new ToolCall.FunctionInfo();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "name":
+                    function.setName(reader.nextString());
+                    break;
+                case "arguments":
+                    function.setArguments(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return function;
+    }
+
+    static ChatResponse.Usage readUsage(JsonReader reader) throws IOException {
+        ChatResponse.Usage usage = new ChatResponse.Usage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "prompt_tokens":
+                    usage.setPromptTokens(reader.nextInt());
+                    break;
+                case "completion_tokens":
+                    usage.setCompletionTokens(reader.nextInt());
+                    break;
+                case "total_tokens":
+                    usage.setTotalTokens(reader.nextInt());
+                    break;
+                case "prompt_tokens_details":
+                    usage.setPromptTokensDetails(readTokenDetails(reader));
+                    break;
+                case "completion_tokens_details":
+                    usage.setCompletionTokensDetails(readTokenDetails(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return usage;
+    }
+
+    private static ChatResponse.TokenDetails readTokenDetails(JsonReader reader) throws IOException {
+        ChatResponse.TokenDetails details = new ChatResponse.TokenDetails();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "cached_tokens":
+                    details.setCachedTokens(reader.nextInt());
+                    break;
+                case "audio_tokens":
+                    details.setAudioTokens(reader.nextInt());
+                    break;
+                case "reasoning_tokens":
+                    details.setReasoningTokens(reader.nextInt());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return details;
+    }
+}
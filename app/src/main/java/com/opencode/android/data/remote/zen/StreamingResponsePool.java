@@ -0,0 +1,97 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.StreamingResponse;
+
+import java.util.ArrayDeque;
+
+/**
+ * Free lists of {@link StreamingResponse} chunks, choices and deltas so that decoding a
+ * long generation reuses the same few objects instead of allocating per chunk.
+ * Not thread-safe; each stream owns its own pool.
+ */
+public class StreamingResponsePool {
+
+    private static final int MAX_POOLED = 8;
+
+    private final ArrayDeque<StreamingResponse> responses = new ArrayDeque<>();
+    private final ArrayDeque<StreamingResponse.Choice> choices = new ArrayDeque<>();
+    private final ArrayDeque<StreamingResponse.Delta> deltas = new ArrayDeque<>();
+    private final ArrayDeque<StreamingResponse.Choice[]> singleChoiceArrays = new ArrayDeque<>();
+
+    public StreamingResponse obtainResponse() {
+        StreamingResponse response = responses.poll();
+        return response != null ? response : new StreamingResponse();
+    }
+
+    public StreamingResponse.Choice obtainChoice() {
+        StreamingResponse.Choice choice = choices.poll();
+        return choice != null ? choice : new StreamingResponse.Choice();
+    }
+
+    public StreamingResponse.Delta obtainDelta() {
+        StreamingResponse.Delta delta = deltas.poll();
+        return delta != null ? delta : new StreamingResponse.Delta();
+    }
+
+    /**
+     * Get a choice array of the given length. Single-choice arrays, by far the
+     * common case, are pooled.
+     */
+    public StreamingResponse.Choice[] obtainChoiceArray(int length) {
+        if (length == 1) {
+            StreamingResponse.Choice[] array = singleChoiceArrays.poll();
+            return array != null ? array : new StreamingResponse.Choice[1];
+        }
+        return new StreamingResponse.Choice[length];
+    }
+
+    /**
+     * Clear a chunk and return it, with its choices and deltas, to the pool.
+     * The chunk must not be used afterwards.
+     */
+    public void recycle(StreamingResponse response) {
+        StreamingResponse.Choice[] choiceArray = response.getChoices();
+        if (choiceArray != null) {
+            for (int i = 0; i < choiceArray.length; i++) {
+                StreamingResponse.Choice choice = choiceArray[i];
+                if (choice != null) {
+                    recycleChoice(choice);
+                    choiceArray[i] = null;
+                }
+            }
+            if (choiceArray.length == 1 && singleChoiceArrays.size() < MAX_POOLED) {
+                singleChoiceArrays.push(choiceArray);
+            }
+        }
+
+        response.setId(null);
+        response.setObject(null);
+        response.setCreated(null);
+        response.setModel(null);
+        response.setChoices(null);
+        response.setUsage(null);
+        response.setSystemFingerprint(null);
+        if (responses.size() < MAX_POOLED) {
+            responses.push(response);
+        }
+    }
+
+    private void recycleChoice(StreamingResponse.Choice choice) {
+        StreamingResponse.Delta delta = choice.getDelta();
+        if (delta != null) {
+            delta.setRole(null);
+            delta.setContent(null);
+            delta.setToolCalls(null);
+            if (deltas.size() < MAX_POOLED) {
+                deltas.push(delta);
+            }
+        }
+        choice.setIndex(null);
+        choice.setDelta(null);
+        choice.setFinishReason(null);
+        choice.setLogProbs(null);
+        if (choices.size() < MAX_POOLED) {
+            choices.push(choice);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ToolCall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental assembler for streamed tool calls.
+ * Fragments from {@code Delta.getToolCalls()} are accumulated per {@code index} (or
+ * {@code id} when the provider omits the index) in growable char buffers. The argument
+ * JSON is scanned as it arrives, and a complete {@link ToolCall} is emitted as soon as
+ * its top-level object closes, so a tool can start before the response finishes.
+ * Not thread-safe; each stream owns its own assembler.
+ */
+public class ToolCallAssembler {
+
+    /**
+     * Receives each tool call once its arguments are complete.
+     */
+    public interface Listener {
+        void onToolCall(ToolCall toolCall);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Listener listener;
+    private final List<Slot> slots = new ArrayList<>(2);
+
+    public ToolCallAssembler(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Accumulate the tool call fragments of one delta.
+     */
+    public void accept(ToolCall[] fragments) {
+        if (fragments == null) {
+            return;
+        }
+        for (ToolCall fragment : fragments) {
+            Slot slot = slotFor(fragment);
+            if (slot == null || slot.emitted) {
+                continue;
+            }
+            if (fragment.getId() != null) {
+                slot.id = fragment.getId();
+            }
+            if (fragment.getType() != null) {
+                slot.type = fragment.getType();
+            }
+            ToolCall.FunctionInfo function = fragment.getFunction();
+            if (function != null) {
+                if (function.getName() != null) {
+                    slot.name.append(function.getName());
+                }
+                if (function.getArguments() != null && slot.appendArguments(function.getArguments())) {
+                    emit(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a tool call has received fragments but has not been emitted yet.
+     */
+    public boolean hasPending() {
+        for (Slot slot : slots) {
+            if (!slot.emitted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any tool call has received fragments, emitted or not.
+     */
+    public boolean hasToolCalls() {
+        return !slots.isEmpty();
+    }
+
+    /**
+     * Emit any tool calls whose arguments never closed (e.g. a call without arguments)
+     * and return every assembled call in index order.
+     */
+    public List<ToolCall> finish() {
+        List<ToolCall> toolCalls = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            if (!slot.emitted && slot.name.length() > 0) {
+                emit(slot);
+            }
+            if (slot.toolCall != null) {
+                toolCalls.add(slot.toolCall);
+            }
+        }
+        return toolCalls;
+    }
+
+    private Slot slotFor(ToolCall fragment) {
+        Integer index = fragment.getIndex();
+        if (index != null) {
+            for (Slot slot : slots) {
+                if (slot.index == index) {
+                    return slot;
+                }
+            }
+            return addSlot(index);
+        }
+        if (fragment.getId() != null) {
+            for (Slot slot : slots) {
+                if (fragment.getId().equals(slot.id)) {
+                    return slot;
+                }
+            }
+            return addSlot(slots.size());
+        }
+        // Continuation without index or id belongs to the most recent call
+        return slots.isEmpty() ? null : slots.get(slots.size() - 1);
+    }
+
+    private Slot addSlot(int index) {
+        Slot slot = new Slot(index);
+        slots.add(slot);
+        return slot;
+    }
+
+    private void emit(Slot slot) {
+        String arguments = slot.length > 0 ? new String(slot.arguments, 0, slot.length) : "{}";
+        ToolCall toolCall = new ToolCall(slot.id, slot.name.toString(), arguments);
+        if (slot.type != null) {
+            toolCall.setType(slot.type);
+        }
+        slot.toolCall = toolCall;
+        slot.emitted = true;
+        slot.arguments = null;
+        listener.onToolCall(toolCall);
+    }
+
+    /**
+     * Accumulation state of one tool call.
+     */
+    private static class Slot {
+        final int index;
+        final StringBuilder name = new StringBuilder();
+        String id;
+        String type;
+        char[] arguments = new char[INITIAL_CAPACITY];
+        int length;
+        ToolCall toolCall;
+        boolean emitted;
+
+        // Incremental JSON scan state
+        int depth;
+        boolean started;
+        boolean inString;
+        boolean escaped;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Append an arguments fragment and scan it.
+         *
+         * @return true once the top-level JSON value has closed
+         */
+        boolean appendArguments(String fragment) {
+            int needed = length + fragment.length();
+            if (needed > arguments.length) {
+                arguments = Arrays.copyOf(arguments, Math.max(needed, arguments.length * 2));
+            }
+            fragment.getChars(0, fragment.length(), arguments, length);
+            int start = length;
+            length = needed;
+
+            for (int i = start; i < length; i++) {
+                char c = arguments[i];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                    started = true;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                    if (started && depth == 0) {
+                        // Drop anything after the closing brace
+                        length = i + 1;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
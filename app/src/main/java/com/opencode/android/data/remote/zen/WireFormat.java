@@ -0,0 +1,61 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ToolCall;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+
+/**
+ * Request encoding and streaming protocol of one Zen endpoint.
+ * {@link ChatRequest} is the app's provider-neutral request; each format translates it
+ * into its endpoint's native body and decodes that endpoint's native event stream into
+ * the same {@link Handler} callbacks, so {@link ZenStreamClient} is format-agnostic.
+ */
+public interface WireFormat {
+
+    MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    /**
+     * Endpoint path relative to the Zen base URL, e.g. {@code "messages"}.
+     */
+    String path();
+
+    /**
+     * Create the streaming HTTP call for a request.
+     */
+    Call<ResponseBody> openStream(ZenApiService apiService, String authToken, ChatRequest request);
+
+    /**
+     * Read the event stream of a successful response until it ends.
+     * Blocks the calling thread while waiting for data.
+     *
+     * @return true if the stream reached its terminal event
+     * @throws IOException if the connection fails or the endpoint reports an error event
+     */
+    boolean readStream(BufferedSource source, Handler handler) throws IOException;
+
+    /**
+     * Receives decoded stream events on the reading thread.
+     */
+    interface Handler {
+        /** A fragment of the answer text. */
+        void onText(String delta);
+
+        /**
+         * Fragments of tool calls in chat completions form, keyed by index, for
+         * {@link ToolCallAssembler}.
+         */
+        void onToolCallFragments(ToolCall[] fragments);
+
+        /** Output token count reported by the endpoint. */
+        void onUsage(int completionTokens);
+
+        /** The answer is complete. */
+        void onFinish(String reason);
+    }
+}
@@ -3,23 +3,28 @@ package com.opencode.android.data.remote.zen;
 import com.opencode.android.data.model.zen.ChatRequest;
 import com.opencode.android.data.model.zen.ChatResponse;
 import com.opencode.android.data.model.zen.ModelResponse;
+import com.opencode.android.data.remote.RequestPriority;
 
 import java.util.List;
 
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
 import retrofit2.http.Streaming;
+import retrofit2.http.Tag;
 import retrofit2.http.Url;
 
 /**
  * Retrofit service interface for OpenCode Zen API.
  * API Documentation: https://opencode.ai/docs/zen/
+ * Catalog lookups are {@link Priority background} work; everything else is interactive.
  */
 public interface ZenApiService {
 
@@ -27,13 +32,27 @@ public interface ZenApiService {
      * Get list of available models from OpenCode Zen.
      * Endpoint: GET https://opencode.ai/zen/v1/models
      */
+    @Priority(RequestPriority.BACKGROUND)
     @GET("models")
     Call<ModelResponse> getModels(@Header("Authorization") String authToken);
 
+    /**
+     * Conditional variant of {@link #getModels(String)}.
+     * Pass the validators of the cached catalog, or null to omit them; an unchanged
+     * catalog answers 304 Not Modified with no body to parse.
+     */
+    @Priority(RequestPriority.BACKGROUND)
+    @GET("models")
+    Call<ModelResponse> getModels(
+            @Header("Authorization") String authToken,
+            @Header("If-None-Match") String ifNoneMatch,
+            @Header("If-Modified-Since") String ifModifiedSince);
+
     /**
      * Get a specific model by ID.
      * Endpoint: GET https://opencode.ai/zen/v1/models/{modelId}
      */
+    @Priority(RequestPriority.BACKGROUND)
     @GET("models/{modelId}")
     Call<ModelResponse.ModelInfo> getModel(
             @Header("Authorization") String authToken,
@@ -49,16 +68,43 @@ public interface ZenApiService {
             @Header("Authorization") String authToken,
             @Body ChatRequest request);
 
+    /**
+     * Create a chat completion the server can deduplicate by key, for replaying queued
+     * sends. Background work, so it never delays a live chat.
+     * Endpoint: POST https://opencode.ai/zen/v1/chat/completions
+     */
+    @Priority(RequestPriority.BACKGROUND)
+    @POST("chat/completions")
+    Call<ChatResponse> createCompletion(
+            @Header("Authorization") String authToken,
+            @Header("Idempotency-Key") String idempotencyKey,
+            @Body ChatRequest request);
+
     /**
      * Create a chat completion (streaming).
      * Endpoint: POST https://opencode.ai/zen/v1/chat/completions
      */
     @POST("chat/completions")
     @Streaming
+    @Headers("Accept: text/event-stream")
     Call<ResponseBody> createCompletionStream(
             @Header("Authorization") String authToken,
             @Body ChatRequest request);
 
+    /**
+     * Stream from the endpoint of a {@link WireFormat}, with a body it has encoded.
+     * The source request only tags the call, so metrics can tell which model it is for.
+     * Endpoint: POST https://opencode.ai/zen/v1/{path}
+     */
+    @POST
+    @Streaming
+    @Headers("Accept: text/event-stream")
+    Call<ResponseBody> createStream(
+            @Header("Authorization") String authToken,
+            @Url String path,
+            @Body RequestBody body,
+            @Tag ChatRequest source);
+
     /**
      * Create a response using GPT models.
      * Endpoint: POST https://opencode.ai/zen/v1/responses
@@ -84,6 +130,7 @@ public interface ZenApiService {
      */
     @POST("chat/completions")
     @Streaming
+    @Headers("Accept: text/event-stream")
     retrofit2.Call<okhttp3.ResponseBody> stream(
             @Header("Authorization") String authToken,
             @Body ChatRequest request);
@@ -100,6 +147,7 @@ public interface ZenApiService {
     /**
      * GET request to custom URL.
      */
+    @Priority(RequestPriority.BACKGROUND)
     @GET
     Call<ModelResponse> get(
             @Header("Authorization") String authToken,
@@ -108,6 +156,7 @@ public interface ZenApiService {
     /**
      * Batch get model information.
      */
+    @Priority(RequestPriority.BACKGROUND)
     @GET("models")
     Call<List<ModelResponse.ModelInfo>> getModelsList(
             @Header("Authorization") String authToken,
@@ -0,0 +1,259 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.stream.MalformedJsonException;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ToolCall;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Streams completions from the Zen API as a {@link Flowable} of {@link StreamEvent}s.
+ * The endpoint and its native event protocol are chosen by a {@link WireFormat}.
+ * The HTTP call is executed and its SSE body read on an I/O thread. Events are buffered
+ * rather than blocking that thread, so each subscriber picks its own backpressure
+ * strategy, e.g. {@code onBackpressureLatest()} for UI or the default buffer-all for
+ * persistence. Disposing the subscription cancels the HTTP call.
+ *
+ * <p>If the connection drops or the body ends before the answer is finished, the stream
+ * is resumed with a continuation request that ends with the partial assistant text, and
+ * the new deltas are appended to the same content. A {@link StreamEvent.Type#RESUMED}
+ * event marks each resume so consumers can checkpoint what they have. Only transport
+ * failures are resumed; a body that cannot be parsed or an error event from the endpoint
+ * fails the stream, since asking again would not fix it and could be billed again. A
+ * stream that has received any tool call is not resumed either, since the continuation
+ * carries text only and could lose or repeat the call.
+ */
+public class ZenStreamClient {
+
+    public static final int DEFAULT_MAX_RESUME_ATTEMPTS = 2;
+    public static final long DEFAULT_RESUME_BACKOFF_MS = 500;
+
+    private final ZenApiService apiService;
+    private final int maxResumeAttempts;
+    private final long resumeBackoffMs;
+
+    public ZenStreamClient(ZenApiService apiService) {
+        this(apiService, DEFAULT_MAX_RESUME_ATTEMPTS, DEFAULT_RESUME_BACKOFF_MS);
+    }
+
+    /**
+     * @param maxResumeAttempts continuation requests allowed per stream; 0 disables resuming
+     * @param resumeBackoffMs   delay before the first resume, growing linearly per attempt
+     */
+    public ZenStreamClient(ZenApiService apiService, int maxResumeAttempts, long resumeBackoffMs) {
+        this.apiService = apiService;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.resumeBackoffMs = resumeBackoffMs;
+    }
+
+    /**
+     * Create a cold stream from {@code chat/completions}; each subscription issues its
+     * own request.
+     */
+    public Flowable<StreamEvent> stream(String authToken, ChatRequest request) {
+        return stream(authToken, request, ChatCompletionsWireFormat.INSTANCE);
+    }
+
+    /**
+     * Create a cold stream from the endpoint of {@code format}; each subscription issues
+     * its own request.
+     */
+    public Flowable<StreamEvent> stream(String authToken, ChatRequest request, WireFormat format) {
+        return Flowable.<StreamEvent>create(emitter -> {
+            StringBuffer content = new StringBuffer();
+            boolean[] finished = new boolean[1];
+            RepeatFilter repeatFilter = new RepeatFilter();
+            ToolCallAssembler toolCallAssembler =
+                    new ToolCallAssembler(toolCall -> emitter.onNext(StreamEvent.toolCall(toolCall)));
+            WireFormat.Handler handler = new WireFormat.Handler() {
+                @Override
+                public void onText(String delta) {
+                    emitText(repeatFilter.filter(delta));
+                }
+
+                @Override
+                public void onToolCallFragments(ToolCall[] fragments) {
+                    emitText(repeatFilter.release());
+                    toolCallAssembler.accept(fragments);
+                }
+
+                @Override
+                public void onUsage(int completionTokens) {
+                    emitter.onNext(StreamEvent.usage(completionTokens));
+                }
+
+                @Override
+                public void onFinish(String reason) {
+                    emitText(repeatFilter.release());
+                    finished[0] = true;
+                    emitter.onNext(StreamEvent.finish(reason));
+                }
+
+                private void emitText(String text) {
+                    if (!text.isEmpty()) {
+                        content.append(text);
+                        emitter.onNext(StreamEvent.delta(text, content));
+                    }
+                }
+            };
+
+            ChatRequest current = request;
+            for (int attempt = 0; ; attempt++) {
+                Call<ResponseBody> call = format.openStream(apiService, authToken, current);
+                emitter.setCancellable(call::cancel);
+                try {
+                    Response<ResponseBody> response = call.execute();
+                    if (!response.isSuccessful() || response.body() == null) {
+                        if (response.code() < 500 || attempt >= maxResumeAttempts) {
+                            emitter.tryOnError(new HttpException(response));
+                            return;
+                        }
+                        if (response.body() != null) {
+                            response.body().close();
+                        }
+                    } else {
+                        boolean done;
+                        try (ResponseBody body = response.body()) {
+                            done = format.readStream(body.source(), handler);
+                        }
+                        if (done || finished[0]) {
+                            break;
+                        }
+                        throw new EOFException("Stream ended before the answer finished");
+                    }
+                } catch (IOException e) {
+                    if (finished[0]) {
+                        // Only the trailing usage chunk or [DONE] marker was lost
+                        break;
+                    }
+                    // Cancellation closes the socket; only report failures nobody asked for
+                    if (emitter.isCancelled() || !isTransportFailure(e)
+                            || attempt >= maxResumeAttempts || toolCallAssembler.hasToolCalls()) {
+                        emitter.tryOnError(e);
+                        return;
+                    }
+                }
+
+                emitter.onNext(StreamEvent.resumed());
+                try {
+                    Thread.sleep(resumeBackoffMs * (attempt + 1));
+                } catch (InterruptedException e) {
+                    // Disposed while waiting
+                    return;
+                }
+                current = continuation(request, content.toString());
+                repeatFilter.expect(content.toString());
+            }
+            // Text held back by a resume that ended without finishing or diverging
+            handler.onText(repeatFilter.release());
+            toolCallAssembler.finish();
+            emitter.onComplete();
+        }, BackpressureStrategy.BUFFER).subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * Whether a failed stream may succeed when resumed: the connection broke, rather than
+     * the server sending something that could not be parsed or reporting an error.
+     */
+    static boolean isTransportFailure(IOException e) {
+        return !(e instanceof MalformedJsonException) && !(e instanceof StreamErrorException);
+    }
+
+    /**
+     * Copy of the original request ending with the partial answer, so the model carries on
+     * from where the dropped stream stopped. Backends that support assistant prefill carry
+     * on from it; chat-completions backends may treat it as a finished turn and start the
+     * answer over, which {@link RepeatFilter} strips.
+     */
+    static ChatRequest continuation(ChatRequest request, String partialContent) {
+        if (partialContent.isEmpty()) {
+            return request;
+        }
+        List<ChatMessage> messages = new ArrayList<>(request.getMessages() != null
+                ? request.getMessages() : new ArrayList<>());
+        messages.add(ChatMessage.assistant(partialContent));
+        return new ChatRequest.Builder()
+                .model(request.getModel())
+                .messages(messages)
+                .maxTokens(request.getMaxTokens())
+                .temperature(request.getTemperature())
+                .topP(request.getTopP())
+                .stream(request.getStream())
+                .tools(request.getTools())
+                .build();
+    }
+
+    /**
+     * Drops the start of a resumed answer while it repeats the partial answer sent in the
+     * continuation. Text matching the partial answer is held back until the stream either
+     * repeats all of it, which is dropped, or diverges, which releases it. Not thread-safe;
+     * each stream owns its own filter.
+     */
+    static final class RepeatFilter {
+        // Partial answer a resumed stream may repeat, or null when not resuming
+        private String expected;
+        private int matched;
+
+        /**
+         * Start watching a resumed stream for a repeat of {@code partialContent}.
+         * Text held back from an earlier resume is dropped.
+         */
+        void expect(String partialContent) {
+            expected = partialContent.isEmpty() ? null : partialContent;
+            matched = 0;
+        }
+
+        /**
+         * @return the part of {@code delta} to emit, with any text held back that turned
+         *         out not to be a repeat
+         */
+        String filter(String delta) {
+            if (expected == null) {
+                return delta;
+            }
+            int start = matched;
+            int i = 0;
+            while (i < delta.length() && matched < expected.length()
+                    && delta.charAt(i) == expected.charAt(matched)) {
+                i++;
+                matched++;
+            }
+            if (matched == expected.length()) {
+                // The whole partial answer was repeated
+                expected = null;
+                return delta.substring(i);
+            }
+            if (i == delta.length()) {
+                return "";
+            }
+            // Diverged: the stream carries on rather than repeating
+            String held = expected.substring(0, start);
+            expected = null;
+            return held + delta;
+        }
+
+        /**
+         * Stop watching, e.g. when the text ends, and return any text held back.
+         */
+        String release() {
+            if (expected == null) {
+                return "";
+            }
+            String held = expected.substring(0, matched);
+            expected = null;
+            return held;
+        }
+    }
+}
@@ -4,14 +4,32 @@ import androidx.lifecycle.LiveData;
 
 import com.opencode.android.data.local.entity.SessionEntity;
 import com.opencode.android.data.local.entity.MessageEntity;
+import com.opencode.android.data.model.zen.ToolCall;
+import com.opencode.android.data.remote.zen.StreamEvent;
 
 import java.util.List;
 
+import io.reactivex.rxjava3.core.Flowable;
+
 /**
  * Repository interface for chat operations.
  */
 public interface ChatRepository {
 
+    /**
+     * Receives tool calls from a streaming answer as soon as their arguments are complete.
+     */
+    interface ToolCallListener {
+        void onToolCall(String sessionId, String messageId, ToolCall toolCall);
+
+        /**
+         * Called when the answer that produced tool calls was cancelled; pending tool
+         * work for the message should stop.
+         */
+        default void onCancelled(String sessionId, String messageId) {
+        }
+    }
+
     // Session operations
     LiveData<List<SessionEntity>> getAllSessions();
     LiveData<List<SessionEntity>> getRecentSessions(int limit);
@@ -38,4 +56,23 @@ public interface ChatRepository {
     // Send message
     void sendMessage(String sessionId, String content, boolean streaming);
     void sendMessageWithHistory(String sessionId, List<MessageEntity> history, boolean streaming);
+
+    /**
+     * Stream a completion for the conversation without persisting it. Events are buffered,
+     * so subscribers choose their own backpressure strategy; disposing cancels the request.
+     */
+    Flowable<StreamEvent> streamMessage(String sessionId, List<MessageEntity> history);
+
+    /**
+     * Abort the request in flight for a session. The HTTP call is cancelled, releasing its
+     * connection, and the partial answer is kept and marked complete.
+     *
+     * @return true if a request was in flight
+     */
+    boolean cancelGeneration(String sessionId);
+
+    // In-flight streaming messages
+    LiveData<InFlightMessage> getInFlightMessage(String sessionId);
+    void releaseInFlightMessage(String sessionId, String messageId);
+    void setToolCallListener(ToolCallListener listener);
 }
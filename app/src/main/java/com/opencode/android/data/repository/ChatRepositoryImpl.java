@@ -3,27 +3,42 @@ package com.opencode.android.data.repository;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
+import com.google.gson.Gson;
 import com.opencode.android.data.local.dao.MessageDao;
 import com.opencode.android.data.local.dao.SessionDao;
 import com.opencode.android.data.local.entity.MessageEntity;
+import com.opencode.android.data.local.entity.PendingSendEntity;
 import com.opencode.android.data.local.entity.SessionEntity;
 import com.opencode.android.data.model.zen.ChatMessage;
 import com.opencode.android.data.model.zen.ChatRequest;
 import com.opencode.android.data.model.zen.ChatResponse;
+import com.opencode.android.data.model.zen.ToolCall;
+import com.opencode.android.data.remote.NetworkModule;
+import com.opencode.android.data.remote.zen.EndpointRouter;
+import com.opencode.android.data.remote.zen.StreamEvent;
+import com.opencode.android.data.remote.zen.WireFormat;
 import com.opencode.android.data.remote.zen.ZenApiService;
+import com.opencode.android.data.remote.zen.ZenStreamClient;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.flowables.ConnectableFlowable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import retrofit2.HttpException;
 
 /**
  * Implementation of ChatRepository.
@@ -38,7 +53,18 @@ public class ChatRepositoryImpl implements ChatRepository {
     private final ZenApiService apiService;
     private final ExecutorService executorService;
     private final Supplier<String> authTokenProvider;
-    private final CompositeDisposable disposables = new CompositeDisposable();
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+    private final ZenStreamClient streamClient;
+    private final EndpointRouter endpointRouter;
+    // Wire format of each session's model, resolved when the session is first used
+    private final Map<String, SessionRoute> sessionRoutes = new ConcurrentHashMap<>();
+    private final StreamingMessageWriter messageWriter;
+    private final LiveMessageOverlay liveOverlay = new LiveMessageOverlay();
+    private final Gson gson = NetworkModule.provideGson();
+    private volatile ToolCallListener toolCallListener;
+    private volatile long frameIntervalMs = FrameThrottle.DEFAULT_FRAME_INTERVAL_MS;
+    private volatile StreamHedger streamHedger;
+    private volatile SendQueue sendQueue;
 
     /**
      * Constructor with manual dependency injection.
@@ -55,11 +81,48 @@ public class ChatRepositoryImpl implements ChatRepository {
             ZenApiService apiService,
             ExecutorService executorService,
             Supplier<String> authTokenProvider) {
+        this(sessionDao, messageDao, apiService, new ZenStreamClient(apiService),
+                executorService, authTokenProvider);
+    }
+
+    /**
+     * Constructor with a separate client for streaming completions, e.g. one with a
+     * longer read timeout.
+     *
+     * @param streamClient Client for streaming completions
+     */
+    public ChatRepositoryImpl(
+            SessionDao sessionDao,
+            MessageDao messageDao,
+            ZenApiService apiService,
+            ZenStreamClient streamClient,
+            ExecutorService executorService,
+            Supplier<String> authTokenProvider) {
+        this(sessionDao, messageDao, apiService, streamClient, EndpointRouter.createDefault(),
+                executorService, authTokenProvider);
+    }
+
+    /**
+     * Constructor with a custom routing table from model to endpoint.
+     *
+     * @param endpointRouter Routes each model to its native streaming endpoint
+     */
+    public ChatRepositoryImpl(
+            SessionDao sessionDao,
+            MessageDao messageDao,
+            ZenApiService apiService,
+            ZenStreamClient streamClient,
+            EndpointRouter endpointRouter,
+            ExecutorService executorService,
+            Supplier<String> authTokenProvider) {
         this.sessionDao = sessionDao;
         this.messageDao = messageDao;
         this.apiService = apiService;
         this.executorService = executorService;
         this.authTokenProvider = authTokenProvider;
+        this.streamClient = streamClient;
+        this.endpointRouter = endpointRouter;
+        this.messageWriter = new StreamingMessageWriter(messageDao);
     }
 
     /**
@@ -100,6 +163,7 @@ public class ChatRepositoryImpl implements ChatRepository {
 
     @Override
     public void deleteSession(String sessionId) {
+        sessionRoutes.remove(sessionId);
         executorService.execute(() -> {
             sessionDao.deleteById(sessionId);
             messageDao.deleteBySessionId(sessionId);
@@ -108,6 +172,7 @@ public class ChatRepositoryImpl implements ChatRepository {
 
     @Override
     public void deleteAllSessions() {
+        sessionRoutes.clear();
         executorService.execute(() -> {
             sessionDao.deleteAll();
             messageDao.deleteAll();
@@ -178,6 +243,49 @@ public class ChatRepositoryImpl implements ChatRepository {
         return messageDao.search(query);
     }
 
+    // In-flight streaming messages
+    @Override
+    public LiveData<InFlightMessage> getInFlightMessage(String sessionId) {
+        return liveOverlay.observe(sessionId);
+    }
+
+    @Override
+    public void releaseInFlightMessage(String sessionId, String messageId) {
+        liveOverlay.release(sessionId, messageId);
+    }
+
+    @Override
+    public void setToolCallListener(ToolCallListener listener) {
+        this.toolCallListener = listener;
+    }
+
+    /**
+     * Set the minimum interval between in-flight message updates published to the UI.
+     *
+     * @param frameIntervalMs interval in milliseconds; 0 publishes every delta
+     */
+    public void setFrameInterval(long frameIntervalMs) {
+        this.frameIntervalMs = frameIntervalMs;
+    }
+
+    /**
+     * Hedge streaming requests to free models against slow backends.
+     *
+     * @param streamHedger hedger to route streams through, or null to send them as is
+     */
+    public void setStreamHedger(StreamHedger streamHedger) {
+        this.streamHedger = streamHedger;
+    }
+
+    /**
+     * Queue sends that fail while offline for replay once back online.
+     *
+     * @param sendQueue queue for offline sends, or null to drop them as before
+     */
+    public void setSendQueue(SendQueue sendQueue) {
+        this.sendQueue = sendQueue;
+    }
+
     // Send message
     @Override
     public void sendMessage(String sessionId, String content, boolean streaming) {
@@ -186,42 +294,73 @@ public class ChatRepositoryImpl implements ChatRepository {
             MessageEntity userMessage = MessageEntity.user(sessionId, content);
             messageDao.insert(userMessage);
 
-            // Create assistant message placeholder
-            MessageEntity assistantMessage = new MessageEntity(sessionId, "assistant", "");
-            messageDao.insert(assistantMessage);
-
             // Update session timestamp
             sessionDao.incrementMessageCount(sessionId, new Date());
+
+            // Send the conversation including the new user message
+            dispatchMessage(sessionId, messageDao.getBySessionIdSync(sessionId), streaming);
         });
     }
 
     @Override
     public void sendMessageWithHistory(String sessionId, List<MessageEntity> history, boolean streaming) {
-        // Convert entities to API messages
+        executorService.execute(() -> dispatchMessage(sessionId, history, streaming));
+    }
+
+    /**
+     * Build the API request for a conversation and send it. Must run on a background thread.
+     */
+    private void dispatchMessage(String sessionId, List<MessageEntity> history, boolean streaming) {
+        ChatRequest request = buildRequest(sessionId, history, streaming);
+        if (request == null) {
+            return;
+        }
+
+        if (streaming) {
+            sendStreamingMessage(sessionId, request);
+        } else {
+            sendNonStreamingMessage(sessionId, request);
+        }
+    }
+
+    /**
+     * Build the API request for a conversation, or null if the session does not exist.
+     * Must run on a background thread.
+     */
+    private ChatRequest buildRequest(String sessionId, List<MessageEntity> history, boolean streaming) {
+        // Convert entities to API messages, skipping empty placeholders
         List<ChatMessage> messages = new ArrayList<>();
         for (MessageEntity entity : history) {
-            messages.add(new ChatMessage(entity.getRole(), entity.getContent()));
+            if (!entity.isEmpty()) {
+                messages.add(new ChatMessage(entity.getRole(), entity.getContent()));
+            }
         }
 
         // Get session for model info
         SessionEntity session = sessionDao.getByIdSync(sessionId);
         if (session == null) {
             Log.e(TAG, "Session not found: " + sessionId);
-            return;
+            return null;
         }
 
-        // Create API request
-        ChatRequest request = new ChatRequest.Builder()
+        return new ChatRequest.Builder()
                 .model(session.getModelId())
                 .messages(messages)
                 .stream(streaming)
                 .build();
+    }
 
-        if (streaming) {
-            sendStreamingMessage(sessionId, request);
-        } else {
-            sendNonStreamingMessage(sessionId, request);
+    /**
+     * Get the wire format of a session's model, resolving it again only if the session
+     * switched models.
+     */
+    private WireFormat routeFor(String sessionId, String modelId) {
+        SessionRoute route = sessionRoutes.get(sessionId);
+        if (route == null || !Objects.equals(route.modelId, modelId)) {
+            route = new SessionRoute(modelId, endpointRouter.resolve(modelId));
+            sessionRoutes.put(sessionId, route);
         }
+        return route.format;
     }
 
     private void sendNonStreamingMessage(String sessionId, ChatRequest request) {
@@ -231,18 +370,26 @@ public class ChatRepositoryImpl implements ChatRepository {
             return;
         }
 
-        apiService.createCompletion(authToken, request).enqueue(new retrofit2.Callback<ChatResponse>() {
+        retrofit2.Call<ChatResponse> apiCall = apiService.createCompletion(authToken, request);
+        Generation generation = startGeneration(sessionId, null);
+        generation.disposables.add(Disposable.fromAction(apiCall::cancel));
+
+        apiCall.enqueue(new retrofit2.Callback<ChatResponse>() {
             @Override
             public void onResponse(@androidx.annotation.NonNull retrofit2.Call<ChatResponse> call,
                                    @androidx.annotation.NonNull retrofit2.Response<ChatResponse> response) {
+                endGeneration(sessionId, generation);
                 if (response.isSuccessful() && response.body() != null &&
                     response.body().getFirstMessageContent() != null) {
                     // Save assistant response
                     MessageEntity assistantMessage = new MessageEntity(
                             sessionId, "assistant", response.body().getFirstMessageContent()
                     );
-                    messageDao.insert(assistantMessage);
-                    sessionDao.incrementMessageCount(sessionId, new Date());
+                    assistantMessage.setComplete(true);
+                    executorService.execute(() -> {
+                        messageDao.insert(assistantMessage);
+                        sessionDao.incrementMessageCount(sessionId, new Date());
+                    });
                 } else if (response.code() == 401) {
                     Log.e(TAG, "Authentication failed - invalid API key");
                 }
@@ -251,11 +398,34 @@ public class ChatRepositoryImpl implements ChatRepository {
             @Override
             public void onFailure(@androidx.annotation.NonNull retrofit2.Call<ChatResponse> call,
                                   @androidx.annotation.NonNull Throwable t) {
-                Log.e(TAG, "Error sending message to OpenCode Zen API", t);
+                endGeneration(sessionId, generation);
+                if (!call.isCanceled() && !queueIfOffline(sessionId, null, request, t)) {
+                    Log.e(TAG, "Error sending message to OpenCode Zen API", t);
+                }
             }
         });
     }
 
+    @Override
+    public Flowable<StreamEvent> streamMessage(String sessionId, List<MessageEntity> history) {
+        return Flowable.defer(() -> {
+            String authToken = getAuthToken();
+            if (authToken == null) {
+                return Flowable.<StreamEvent>error(new IllegalStateException("No authentication token available"));
+            }
+            ChatRequest request = buildRequest(sessionId, history, true);
+            if (request == null) {
+                return Flowable.<StreamEvent>error(new IllegalArgumentException("Session not found: " + sessionId));
+            }
+            return openStream(sessionId, authToken, request);
+        }).subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * Stream a completion into a placeholder assistant message. The event stream is shared
+     * by two subscribers: the UI overlay keeps only the latest snapshot, while persistence
+     * buffers every event and writes on the executor, so neither slows the HTTP reader.
+     */
     private void sendStreamingMessage(String sessionId, ChatRequest request) {
         String authToken = getAuthToken();
         if (authToken == null) {
@@ -263,35 +433,278 @@ public class ChatRepositoryImpl implements ChatRepository {
             return;
         }
 
-        MutableLiveData<String> streamedContent = new MutableLiveData<>("");
-        MessageEntity assistantMessage = new MessageEntity(sessionId, "assistant", "");
+        // Placeholder that deltas are appended to as they arrive
+        MessageEntity assistantMessage = MessageEntity.assistant(sessionId, "");
+        assistantMessage.setStreaming(true);
+        messageDao.insert(assistantMessage);
+        sessionDao.incrementMessageCount(sessionId, new Date());
+
+        String messageId = assistantMessage.getId();
+        messageWriter.begin(messageId);
+
+        Generation generation = startGeneration(sessionId, messageId);
+        ConnectableFlowable<StreamEvent> events = openStream(sessionId, authToken, request).publish();
+
+        // UI: only the most recent snapshot per frame matters
+        generation.disposables.add(events
+                .filter(event -> event.getType() == StreamEvent.Type.DELTA)
+                .compose(FrameThrottle.latestPerFrame(frameIntervalMs))
+                .onBackpressureLatest()
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        event -> liveOverlay.update(sessionId, messageId, event),
+                        error -> { /* Reported by the persistence subscriber */ }));
+
+        // Persistence: every event, in order
+        generation.disposables.add(events
+                .onBackpressureBuffer()
+                .observeOn(Schedulers.from(executorService))
+                .subscribe(
+                        event -> persistEvent(sessionId, generation, event),
+                        error -> {
+                            // Queue only if nothing arrived, so the reply cannot be duplicated
+                            String partial = messageWriter.getContent(messageId);
+                            boolean nothingReceived = (partial == null || partial.isEmpty())
+                                    && generation.toolCalls.isEmpty();
+                            if (nothingReceived && queueIfOffline(sessionId, messageId, request, error)) {
+                                // The placeholder stays streaming until the replay fills it
+                                endGeneration(sessionId, generation);
+                                messageWriter.abandon(messageId);
+                                return;
+                            }
+                            logStreamingError(error);
+                            finishStreamingMessage(sessionId, generation);
+                        },
+                        () -> finishStreamingMessage(sessionId, generation)));
+
+        generation.disposables.add(events.connect());
+    }
 
-        // For now, use non-streaming as streaming implementation requires SSE parsing
-        // This can be enhanced later with proper SSE event parsing
-        apiService.createCompletion(authToken, request).enqueue(new retrofit2.Callback<ChatResponse>() {
-            @Override
-            public void onResponse(@androidx.annotation.NonNull retrofit2.Call<ChatResponse> call,
-                                   @androidx.annotation.NonNull retrofit2.Response<ChatResponse> response) {
-                if (response.isSuccessful() && response.body() != null &&
-                    response.body().getFirstMessageContent() != null) {
-                    assistantMessage.setContent(response.body().getFirstMessageContent());
-                    messageDao.insert(assistantMessage);
-                    sessionDao.incrementMessageCount(sessionId, new Date());
+    /**
+     * Create the stream for a request on its model's native endpoint, hedged if a
+     * hedger is set.
+     */
+    private Flowable<StreamEvent> openStream(String sessionId, String authToken, ChatRequest request) {
+        WireFormat format = routeFor(sessionId, request.getModel());
+        StreamHedger hedger = streamHedger;
+        if (hedger == null) {
+            return streamClient.stream(authToken, request, format);
+        }
+        // A hedged copy goes to another model, which may speak another format
+        return hedger.stream(request, hedged -> streamClient.stream(authToken, hedged,
+                hedged == request ? format : endpointRouter.resolve(hedged.getModel())));
+    }
+
+    private void persistEvent(String sessionId, Generation generation, StreamEvent event) {
+        String messageId = generation.messageId;
+        switch (event.getType()) {
+            case DELTA:
+                messageWriter.append(messageId, event.getText());
+                break;
+            case TOOL_CALL:
+                generation.toolCalls.add(event.getToolCall());
+                ToolCallListener listener = toolCallListener;
+                if (listener != null) {
+                    listener.onToolCall(sessionId, messageId, event.getToolCall());
                 }
-            }
+                break;
+            case USAGE:
+                messageWriter.setTokenCount(messageId, event.getCompletionTokens());
+                break;
+            case FINISH:
+                // Persist the full answer now; a usage-only chunk may still follow
+                messageWriter.flush(messageId);
+                break;
+            case RESUMED:
+                // Checkpoint the partial answer before the continuation request
+                messageWriter.flush(messageId);
+                break;
+        }
+    }
 
-            @Override
-            public void onFailure(@androidx.annotation.NonNull retrofit2.Call<ChatResponse> call,
-                                  @androidx.annotation.NonNull Throwable t) {
-                Log.e(TAG, "Error in streaming", t);
+    /**
+     * Write the final content of a streamed message and mark it complete.
+     * Idempotent, so a cancel racing the end of the stream is harmless.
+     */
+    private void finishStreamingMessage(String sessionId, Generation generation) {
+        endGeneration(sessionId, generation);
+        synchronized (generation.toolCalls) {
+            if (!generation.toolCalls.isEmpty()) {
+                messageWriter.setToolCalls(generation.messageId, gson.toJson(generation.toolCalls));
             }
-        });
+        }
+        messageWriter.finish(generation.messageId);
+    }
+
+    // Cancellation
+    @Override
+    public boolean cancelGeneration(String sessionId) {
+        Generation generation = generations.remove(sessionId);
+        if (generation == null) {
+            return false;
+        }
+        cancel(sessionId, generation);
+        return true;
+    }
+
+    /**
+     * Register a new generation for a session, cancelling any previous one.
+     */
+    private Generation startGeneration(String sessionId, String messageId) {
+        Generation generation = new Generation(messageId);
+        Generation previous = generations.put(sessionId, generation);
+        if (previous != null) {
+            cancel(sessionId, previous);
+        }
+        return generation;
+    }
+
+    private void endGeneration(String sessionId, Generation generation) {
+        generations.remove(sessionId, generation);
+    }
+
+    private void cancel(String sessionId, Generation generation) {
+        // Cancels the HTTP call, which closes the body and releases the connection
+        generation.disposables.dispose();
+        if (generation.messageId == null) {
+            return;
+        }
+        // Keep whatever arrived as the final answer
+        executorService.execute(() -> finishStreamingMessage(sessionId, generation));
+        ToolCallListener listener = toolCallListener;
+        if (listener != null) {
+            listener.onCancelled(sessionId, generation.messageId);
+        }
+    }
+
+    /**
+     * Queue a request for replay if it failed because the device is offline.
+     *
+     * @param messageId streaming placeholder for the reply, or null
+     * @return true if the request was queued
+     */
+    private boolean queueIfOffline(String sessionId, String messageId, ChatRequest request, Throwable error) {
+        SendQueue queue = sendQueue;
+        if (queue == null || !SendQueue.isOfflineFailure(error)) {
+            return false;
+        }
+        Log.d(TAG, "Offline, queueing message for session " + sessionId);
+        executorService.execute(() -> queue.enqueue(sessionId, messageId, request));
+        return true;
+    }
+
+    /**
+     * Send a queued request with its idempotency key and save the reply. Blocks until
+     * the outcome is known; called by the {@link SendQueue} on a drain thread.
+     */
+    public SendQueue.Result replayPendingSend(PendingSendEntity pendingSend, ChatRequest request) {
+        String authToken = getAuthToken();
+        if (authToken == null) {
+            Log.e(TAG, "No authentication token available for queued message");
+            return SendQueue.Result.RETRY;
+        }
+        String sessionId = pendingSend.getSessionId();
+        if (sessionDao.getByIdSync(sessionId) == null) {
+            return SendQueue.Result.DROP;
+        }
+
+        retrofit2.Response<ChatResponse> response;
+        try {
+            response = apiService.createCompletion(authToken, pendingSend.getIdempotencyKey(), request).execute();
+        } catch (IOException e) {
+            Log.e(TAG, "Error replaying queued message", e);
+            return SendQueue.Result.RETRY;
+        }
+        ChatResponse body = response.body();
+        if (response.isSuccessful() && body != null && body.getFirstChoice() != null
+                && body.getFirstChoice().getMessage() != null) {
+            saveReplayedReply(sessionId, pendingSend.getMessageId(), body);
+            return SendQueue.Result.SENT;
+        }
+        int code = response.code();
+        if (code == 401) {
+            // The key may be fixed before the next attempt
+            Log.e(TAG, "Authentication failed - invalid API key");
+            return SendQueue.Result.RETRY;
+        }
+        if (code == 408 || code == 429 || code >= 500) {
+            return SendQueue.Result.RETRY;
+        }
+        Log.e(TAG, "Queued message rejected with HTTP " + code);
+        return SendQueue.Result.DROP;
+    }
+
+    /**
+     * Close the placeholder of a queued request that will never be delivered, so it
+     * does not stay streaming. Called by the {@link SendQueue} on a drain thread.
+     */
+    public void dropPendingSend(PendingSendEntity pendingSend) {
+        if (pendingSend.getMessageId() != null) {
+            // Only requests that received nothing are queued
+            messageDao.completeStreamedMessage(pendingSend.getMessageId(), "", null, 0);
+        }
+    }
+
+    private void saveReplayedReply(String sessionId, String messageId, ChatResponse response) {
+        ChatMessage message = response.getFirstChoice().getMessage();
+        String toolCalls = message.getToolCalls() != null ? gson.toJson(message.getToolCalls()) : null;
+        Integer completionTokens = response.getUsage() != null ? response.getUsage().getCompletionTokens() : null;
+        int tokenCount = completionTokens != null ? completionTokens : 0;
+        if (messageId != null) {
+            // Fill the placeholder left by the failed stream
+            messageDao.completeStreamedMessage(messageId,
+                    message.getContent() != null ? message.getContent() : "", toolCalls, tokenCount);
+            return;
+        }
+        MessageEntity assistantMessage = new MessageEntity(sessionId, "assistant", message.getContent());
+        assistantMessage.setToolCalls(toolCalls);
+        assistantMessage.setTokenCount(tokenCount);
+        assistantMessage.setComplete(true);
+        messageDao.insert(assistantMessage);
+        sessionDao.incrementMessageCount(sessionId, new Date());
+    }
+
+    private void logStreamingError(Throwable error) {
+        if (error instanceof HttpException && ((HttpException) error).code() == 401) {
+            Log.e(TAG, "Authentication failed - invalid API key");
+        } else {
+            Log.e(TAG, "Error in streaming", error);
+        }
     }
 
     /**
      * Clean up resources.
      */
     public void cleanup() {
-        disposables.clear();
+        for (String sessionId : generations.keySet()) {
+            cancelGeneration(sessionId);
+        }
+    }
+
+    /**
+     * Request in flight for a session. Streaming generations also own their placeholder
+     * message and the tool calls received so far.
+     */
+    private static final class Generation {
+        final String messageId;
+        final CompositeDisposable disposables = new CompositeDisposable();
+        final List<ToolCall> toolCalls = Collections.synchronizedList(new ArrayList<>());
+
+        Generation(String messageId) {
+            this.messageId = messageId;
+        }
+    }
+
+    /**
+     * Wire format resolved for the model a session was last sent with.
+     */
+    private static final class SessionRoute {
+        final String modelId;
+        final WireFormat format;
+
+        SessionRoute(String modelId, WireFormat format) {
+            this.modelId = modelId;
+            this.format = format;
+        }
     }
 }
@@ -0,0 +1,42 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.remote.zen.StreamEvent;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.FlowableTransformer;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Coalesces streamed deltas to at most one UI emission per frame interval.
+ * Delta events carry the accumulated text, so dropping all but the latest delta of a
+ * frame loses nothing. The first delta is emitted immediately and the last one is
+ * always delivered, so the final text never waits for another frame.
+ */
+public final class FrameThrottle {
+
+    /**
+     * One frame at 60 Hz.
+     */
+    public static final long DEFAULT_FRAME_INTERVAL_MS = 16;
+
+    private FrameThrottle() {
+    }
+
+    public static FlowableTransformer<StreamEvent, StreamEvent> latestPerFrame(long frameIntervalMs) {
+        return latestPerFrame(frameIntervalMs, Schedulers.computation());
+    }
+
+    /**
+     * @param frameIntervalMs minimum interval between emissions; 0 disables throttling
+     * @param scheduler       scheduler driving the frame timer
+     */
+    public static FlowableTransformer<StreamEvent, StreamEvent> latestPerFrame(
+            long frameIntervalMs, Scheduler scheduler) {
+        if (frameIntervalMs <= 0) {
+            return upstream -> upstream;
+        }
+        return upstream -> upstream.throttleLatest(frameIntervalMs, TimeUnit.MILLISECONDS, scheduler, true);
+    }
+}
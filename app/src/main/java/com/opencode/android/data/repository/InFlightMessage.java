@@ -0,0 +1,34 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.remote.zen.StreamEvent;
+
+/**
+ * Snapshot of an assistant message that is still being streamed.
+ * The content is materialized lazily from the latest delta event, so publishing a
+ * snapshot per delta does not copy the whole answer each time.
+ */
+public final class InFlightMessage {
+
+    private final String messageId;
+    private final StreamEvent latestDelta;
+
+    InFlightMessage(String messageId, StreamEvent latestDelta) {
+        this.messageId = messageId;
+        this.latestDelta = latestDelta;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public int getLength() {
+        return latestDelta.getContentLength();
+    }
+
+    /**
+     * Get the content received up to this snapshot.
+     */
+    public String getContent() {
+        return latestDelta.getContent();
+    }
+}
@@ -0,0 +1,52 @@
+package com.opencode.android.data.repository;
+
+import androidx.annotation.MainThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.opencode.android.data.remote.zen.StreamEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory overlay holding the growing text of in-flight assistant messages, keyed by
+ * session. While a message streams, the UI reads its text from here instead of waiting
+ * for Room to re-query the whole conversation after every write. An entry stays until
+ * the UI sees the persisted message reach {@code is_complete} and releases it.
+ */
+public class LiveMessageOverlay {
+
+    private final Map<String, MutableLiveData<InFlightMessage>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Observe the in-flight message of a session; the value is null when nothing streams.
+     */
+    public LiveData<InFlightMessage> observe(String sessionId) {
+        return sessions.computeIfAbsent(sessionId, id -> new MutableLiveData<>());
+    }
+
+    /**
+     * Publish the latest delta of an in-flight message, replacing any previous snapshot
+     * for the session.
+     */
+    @MainThread
+    public void update(String sessionId, String messageId, StreamEvent delta) {
+        sessions.computeIfAbsent(sessionId, id -> new MutableLiveData<>())
+                .setValue(new InFlightMessage(messageId, delta));
+    }
+
+    /**
+     * Drop an in-flight message once its persisted copy is complete.
+     */
+    @MainThread
+    public void release(String sessionId, String messageId) {
+        MutableLiveData<InFlightMessage> liveData = sessions.get(sessionId);
+        if (liveData != null) {
+            InFlightMessage current = liveData.getValue();
+            if (current != null && messageId.equals(current.getMessageId())) {
+                liveData.setValue(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.model.zen.ModelResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, indexed snapshot of the model catalog.
+ * Built once per catalog change, so lookups by id and provider are hash lookups and
+ * search never lowercases or scans model names per keystroke: every lowercase id and
+ * display name is broken into n-grams of up to {@link #GRAM_LENGTH} characters, and a
+ * query is answered by intersecting the sets of models containing each of its n-grams.
+ *
+ * <p>Capabilities and free/paid status are packed into one {@code int} of flags per model
+ * and prices into fixed-point micro-dollars, so filtering such as "free, with tools and
+ * streaming" is a mask test over an array rather than map lookups and string parsing.
+ */
+public final class ModelCatalog {
+
+    public static final int STREAM = 1;
+    public static final int TOOLS = 1 << 1;
+    public static final int VISION = 1 << 2;
+    public static final int PARALLEL_TOOL_CALLS = 1 << 3;
+    public static final int FREE = 1 << 4;
+
+    /** Price of a model whose pricing could not be parsed. */
+    public static final long UNKNOWN_PRICE = -1;
+
+    public static final ModelCatalog EMPTY = new ModelCatalog(new LinkedHashMap<>(), Collections.emptySet());
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final List<ModelResponse.ModelInfo> models;
+    private final Map<String, Integer> positions;
+    private final Map<String, List<ModelResponse.ModelInfo>> byProvider;
+    // Lowercase display name and id of each model, by catalog position
+    private final String[] names;
+    private final String[] ids;
+    // Catalog positions of the models whose name or id contains each n-gram
+    private final Map<String, BitSet> grams;
+    // Capability and FREE flags, and prices in micro-dollars, by catalog position
+    private final int[] flags;
+    private final long[] promptPrices;
+    private final long[] completionPrices;
+
+    private ModelCatalog(LinkedHashMap<String, ModelResponse.ModelInfo> unique, Set<String> freeIds) {
+        int size = unique.size();
+        List<ModelResponse.ModelInfo> list = new ArrayList<>(unique.values());
+        Map<String, List<ModelResponse.ModelInfo>> providers = new HashMap<>();
+        names = new String[size];
+        ids = new String[size];
+        grams = new HashMap<>();
+        positions = new HashMap<>();
+        flags = new int[size];
+        promptPrices = new long[size];
+        completionPrices = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            ModelResponse.ModelInfo model = list.get(i);
+            names[i] = model.getDisplayName().toLowerCase(Locale.ROOT);
+            ids[i] = model.getId().toLowerCase(Locale.ROOT);
+            indexGrams(names[i], i);
+            indexGrams(ids[i], i);
+            providers.computeIfAbsent(model.getProviderName(), key -> new ArrayList<>()).add(model);
+            positions.put(model.getId(), i);
+
+            ModelResponse.ModelInfo.Pricing pricing = model.getPricing();
+            promptPrices[i] = pricing != null ? parsePrice(pricing.getPromptTokens()) : UNKNOWN_PRICE;
+            completionPrices[i] = pricing != null ? parsePrice(pricing.getCompletionTokens()) : UNKNOWN_PRICE;
+            boolean free = freeIds.contains(model.getId())
+                    || (promptPrices[i] == 0 && completionPrices[i] == 0);
+            flags[i] = capabilityFlags(model) | (free ? FREE : 0);
+        }
+        for (Map.Entry<String, List<ModelResponse.ModelInfo>> entry : providers.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        models = Collections.unmodifiableList(list);
+        byProvider = providers;
+    }
+
+    /**
+     * Build a catalog from a model list, keeping the first model for each id.
+     *
+     * @param freeIds Ids of models that are free whatever their pricing says
+     */
+    public static ModelCatalog of(List<ModelResponse.ModelInfo> models, Set<String> freeIds) {
+        return merge(models, Collections.emptyList(), freeIds);
+    }
+
+    /**
+     * Build a catalog from two model lists, keeping the first model for each id.
+     *
+     * @param freeIds Ids of models that are free whatever their pricing says
+     */
+    public static ModelCatalog merge(List<ModelResponse.ModelInfo> first, List<ModelResponse.ModelInfo> second,
+                                     Set<String> freeIds) {
+        LinkedHashMap<String, ModelResponse.ModelInfo> unique = new LinkedHashMap<>();
+        addAll(unique, first);
+        addAll(unique, second);
+        return unique.isEmpty() ? EMPTY : new ModelCatalog(unique, freeIds);
+    }
+
+    private static void addAll(Map<String, ModelResponse.ModelInfo> unique, List<ModelResponse.ModelInfo> models) {
+        if (models == null) {
+            return;
+        }
+        for (ModelResponse.ModelInfo model : models) {
+            if (model != null && model.getId() != null) {
+                unique.putIfAbsent(model.getId(), model);
+            }
+        }
+    }
+
+    /**
+     * Pack the capabilities map of a model into flags.
+     */
+    static int capabilityFlags(ModelResponse.ModelInfo model) {
+        Map<String, Boolean> capabilities = model.getCapabilities();
+        if (capabilities == null) {
+            return 0;
+        }
+        int result = 0;
+        if (Boolean.TRUE.equals(capabilities.get("stream"))) {
+            result |= STREAM;
+        }
+        if (Boolean.TRUE.equals(capabilities.get("tools"))) {
+            result |= TOOLS;
+        }
+        if (Boolean.TRUE.equals(capabilities.get("vision"))) {
+            result |= VISION;
+        }
+        if (Boolean.TRUE.equals(capabilities.get("parallel_tool_calls"))) {
+            result |= PARALLEL_TOOL_CALLS;
+        }
+        return result;
+    }
+
+    /**
+     * Parse a price such as "$0.60" into micro-dollars. Missing prices count as zero,
+     * as the API omits them for free models.
+     */
+    static long parsePrice(String price) {
+        if (price == null || price.isEmpty()) {
+            return 0;
+        }
+        try {
+            return new BigDecimal(price.replace("$", "").trim())
+                    .movePointRight(6)
+                    .setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return UNKNOWN_PRICE;
+        }
+    }
+
+    private void indexGrams(String key, int position) {
+        for (int start = 0; start < key.length(); start++) {
+            int maxEnd = Math.min(key.length(), start + GRAM_LENGTH);
+            for (int end = start + 1; end <= maxEnd; end++) {
+                grams.computeIfAbsent(key.substring(start, end), gram -> new BitSet()).set(position);
+            }
+        }
+    }
+
+    public List<ModelResponse.ModelInfo> getModels() {
+        return models;
+    }
+
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * Get a model by its exact id, or null.
+     */
+    public ModelResponse.ModelInfo getById(String modelId) {
+        Integer position = modelId != null ? positions.get(modelId) : null;
+        return position != null ? models.get(position) : null;
+    }
+
+    /**
+     * Get the flags of a model in the catalog, or 0 if it is not in the catalog.
+     */
+    public int getFlags(String modelId) {
+        Integer position = modelId != null ? positions.get(modelId) : null;
+        return position != null ? flags[position] : 0;
+    }
+
+    /**
+     * Check whether a model in the catalog has all of the given flags.
+     */
+    public boolean hasFlags(String modelId, int required) {
+        return (getFlags(modelId) & required) == required;
+    }
+
+    /**
+     * Get the prompt price per million tokens in micro-dollars, or {@link #UNKNOWN_PRICE}.
+     */
+    public long getPromptPriceMicros(String modelId) {
+        Integer position = modelId != null ? positions.get(modelId) : null;
+        return position != null ? promptPrices[position] : UNKNOWN_PRICE;
+    }
+
+    /**
+     * Get the completion price per million tokens in micro-dollars, or {@link #UNKNOWN_PRICE}.
+     */
+    public long getCompletionPriceMicros(String modelId) {
+        Integer position = modelId != null ? positions.get(modelId) : null;
+        return position != null ? completionPrices[position] : UNKNOWN_PRICE;
+    }
+
+    /**
+     * Get the models that have all of the given flags, e.g. {@code FREE | TOOLS | STREAM},
+     * in catalog order.
+     */
+    public List<ModelResponse.ModelInfo> filter(int required) {
+        List<ModelResponse.ModelInfo> results = new ArrayList<>();
+        for (int i = 0; i < flags.length; i++) {
+            if ((flags[i] & required) == required) {
+                results.add(models.get(i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Get the models of a provider, as named by {@link ModelResponse.ModelInfo#getProviderName()}.
+     */
+    public List<ModelResponse.ModelInfo> getByProvider(String provider) {
+        List<ModelResponse.ModelInfo> bucket = byProvider.get(provider);
+        return bucket != null ? bucket : Collections.emptyList();
+    }
+
+    /**
+     * Get the models whose display name or id contains the query, ignoring case,
+     * in catalog order.
+     */
+    public List<ModelResponse.ModelInfo> search(String query) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        if (lowerQuery.isEmpty()) {
+            return models;
+        }
+
+        BitSet candidates = null;
+        int last = Math.max(0, lowerQuery.length() - GRAM_LENGTH);
+        for (int start = 0; start <= last; start++) {
+            String gram = lowerQuery.substring(start, Math.min(lowerQuery.length(), start + GRAM_LENGTH));
+            BitSet matches = grams.get(gram);
+            if (matches == null) {
+                return Collections.emptyList();
+            }
+            if (candidates == null) {
+                candidates = (BitSet) matches.clone();
+            } else {
+                candidates.and(matches);
+            }
+        }
+
+        boolean exact = lowerQuery.length() <= GRAM_LENGTH;
+        List<ModelResponse.ModelInfo> results = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            // Longer queries can match every n-gram without containing the whole query
+            if (exact || names[i].contains(lowerQuery) || ids[i].contains(lowerQuery)) {
+                results.add(models.get(i));
+            }
+        }
+        return results;
+    }
+}
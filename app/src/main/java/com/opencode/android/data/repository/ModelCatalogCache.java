@@ -0,0 +1,118 @@
+package com.opencode.android.data.repository;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.opencode.android.data.local.dao.SettingsDao;
+import com.opencode.android.data.local.entity.SettingsEntity;
+import com.opencode.android.data.model.zen.ModelResponse;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Persistent copy of the model catalog, stored as JSON in the settings table.
+ * The serialized form doubles as a cheap change check: a fetched catalog that
+ * serializes to the same JSON as the cached one does not need to be published again.
+ * The HTTP validators of the fetched response are stored alongside it so that the
+ * next fetch can be a conditional GET.
+ * All methods hit the database and must run on a background thread.
+ */
+public class ModelCatalogCache {
+
+    private static final String TAG = "ModelCatalogCache";
+    static final String CACHE_KEY = "models_cache";
+    static final String ETAG_KEY = "models_cache_etag";
+    static final String LAST_MODIFIED_KEY = "models_cache_last_modified";
+    private static final Type MODEL_LIST_TYPE = new TypeToken<List<ModelResponse.ModelInfo>>() { }.getType();
+
+    private final SettingsDao settingsDao;
+    private final Gson gson;
+    private final long maxAgeMs;
+
+    public ModelCatalogCache(SettingsDao settingsDao, Gson gson, long maxAgeMs) {
+        this.settingsDao = settingsDao;
+        this.gson = gson;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Read the cached catalog, or null if there is none or it cannot be parsed.
+     */
+    public Entry read() {
+        SettingsEntity setting = settingsDao.getByKeySync(CACHE_KEY);
+        if (setting == null || setting.getValue() == null || setting.getValue().isEmpty()) {
+            return null;
+        }
+        try {
+            List<ModelResponse.ModelInfo> models = gson.fromJson(setting.getValue(), MODEL_LIST_TYPE);
+            if (models == null || models.isEmpty()) {
+                return null;
+            }
+            return new Entry(setting.getValue(), models, setting.getUpdatedAt(),
+                    readValidator(ETAG_KEY), readValidator(LAST_MODIFIED_KEY));
+        } catch (JsonParseException e) {
+            // Written by an older version; the next fetch replaces it
+            Log.e(TAG, "Error parsing cached models", e);
+            return null;
+        }
+    }
+
+    private String readValidator(String key) {
+        String value = settingsDao.getValueByKeySync(key);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Serialize a catalog in the cached form.
+     */
+    public String serialize(List<ModelResponse.ModelInfo> models) {
+        return gson.toJson(models, MODEL_LIST_TYPE);
+    }
+
+    /**
+     * Store a serialized catalog fetched now, with the ETag and Last-Modified of its
+     * response (either may be null).
+     */
+    public void write(String json, String etag, String lastModified) {
+        // One transaction, so the validators always describe the stored catalog
+        settingsDao.insertAll(Arrays.asList(
+                new SettingsEntity(CACHE_KEY, json),
+                new SettingsEntity(ETAG_KEY, etag != null ? etag : ""),
+                new SettingsEntity(LAST_MODIFIED_KEY, lastModified != null ? lastModified : "")));
+    }
+
+    /**
+     * Mark the cached catalog as revalidated now without rewriting it.
+     */
+    public void touch() {
+        settingsDao.updateTimestamp(CACHE_KEY, System.currentTimeMillis());
+    }
+
+    public boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt < maxAgeMs;
+    }
+
+    /**
+     * A cached catalog with its serialized form, fetch time and HTTP validators.
+     */
+    public static final class Entry {
+        public final String json;
+        public final List<ModelResponse.ModelInfo> models;
+        public final long fetchedAt;
+        public final String etag;
+        public final String lastModified;
+
+        Entry(String json, List<ModelResponse.ModelInfo> models, long fetchedAt,
+              String etag, String lastModified) {
+            this.json = json;
+            this.models = models;
+            this.fetchedAt = fetchedAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -8,14 +8,19 @@ import androidx.lifecycle.MutableLiveData;
 import com.opencode.android.data.local.dao.SettingsDao;
 import com.opencode.android.data.local.entity.SettingsEntity;
 import com.opencode.android.data.model.zen.ModelResponse;
+import com.opencode.android.data.remote.NetworkModule;
 import com.opencode.android.data.remote.zen.ZenApiService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -25,8 +30,10 @@ import java.util.function.Supplier;
 public class ModelRepository {
 
     private static final String TAG = "ModelRepository";
-    private static final String CACHE_KEY = "models_cache";
     private static final long CACHE_DURATION_MS = 60 * 60 * 1000; // 1 hour
+    private static final int HTTP_NOT_MODIFIED = 304;
+    // Refreshes within this long of the last fetch reuse its result
+    private static final long REFRESH_DEBOUNCE_MS = 2000;
 
     // Built-in free models that work without API key authentication
     private static final List<FreeModel> BUILTIN_FREE_MODELS = Arrays.asList(
@@ -39,11 +46,28 @@ public class ModelRepository {
             new FreeModel("gpt-5-nano", "GPT-5 Nano", "OpenAI", "Compact GPT-5 variant for efficiency", false, true)
     );
 
+    // Ids of the built-in free models, bare and as served by the API
+    private static final Set<String> BUILTIN_FREE_MODEL_IDS = new HashSet<>();
+
+    static {
+        for (FreeModel freeModel : BUILTIN_FREE_MODELS) {
+            BUILTIN_FREE_MODEL_IDS.add(freeModel.getId());
+            BUILTIN_FREE_MODEL_IDS.add("opencode/" + freeModel.getId());
+        }
+    }
+
     private final ZenApiService apiService;
     private final SettingsDao settingsDao;
     private final ExecutorService executorService;
     private final Supplier<String> authTokenProvider;
+    private final ModelCatalogCache catalogCache;
+    private final SingleFlight<CatalogResult> catalogFlight =
+            new SingleFlight<>(REFRESH_DEBOUNCE_MS, CatalogResult::isSuccessful);
     private boolean isFreeModeEnabled = false;
+    // Serialized form of the API catalog currently published, null for other lists
+    private String publishedCatalogJson;
+    // Index over the published list, rebuilt only when a new list is published
+    private volatile ModelCatalog catalog = ModelCatalog.EMPTY;
 
     private final MutableLiveData<List<ModelResponse.ModelInfo>> modelsLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
@@ -124,6 +148,7 @@ public class ModelRepository {
         this.settingsDao = settingsDao;
         this.executorService = executorService;
         this.authTokenProvider = authTokenProvider;
+        this.catalogCache = new ModelCatalogCache(settingsDao, NetworkModule.provideGson(), CACHE_DURATION_MS);
     }
 
     // Public API methods for ViewModels
@@ -197,6 +222,15 @@ public class ModelRepository {
      * Endpoint: GET https://opencode.ai/zen/v1/models
      */
     public void fetchModels() {
+        loadModels(false);
+    }
+
+    /**
+     * Load models, showing the cached catalog immediately when authenticated.
+     * The API is only asked when the cache is stale or a refresh is forced, and its
+     * answer is published only if the catalog changed.
+     */
+    private void loadModels(boolean forceRefresh) {
         isLoading.setValue(true);
         errorLiveData.setValue(null);
 
@@ -210,7 +244,7 @@ public class ModelRepository {
             if (useFreeModels) {
                 isLoading.postValue(false);
                 List<ModelResponse.ModelInfo> freeModels = getFreeModelsAsModelInfo();
-                modelsLiveData.postValue(freeModels);
+                publishUncached(freeModels);
                 Log.d(TAG, "Using built-in free models: " + freeModels.size() + " models available");
                 return;
             }
@@ -223,41 +257,124 @@ public class ModelRepository {
             }
         }
 
-        // Authenticated - fetch from Zen API
-        apiService.getModels(authToken).enqueue(new retrofit2.Callback<ModelResponse>() {
-            @Override
-            public void onResponse(@androidx.annotation.NonNull retrofit2.Call<ModelResponse> call,
-                                   @androidx.annotation.NonNull retrofit2.Response<ModelResponse> response) {
-                isLoading.postValue(false);
-                if (response.isSuccessful() && response.body() != null && response.body().getModels() != null) {
-                    List<ModelResponse.ModelInfo> models = response.body().getModels();
-                    modelsLiveData.postValue(models);
-                    cacheModels(models);
-                    Log.d(TAG, "Fetched " + models.size() + " models from OpenCode Zen API");
-                } else if (response.code() == 401) {
-                    errorLiveData.postValue("Invalid API key. Please check your OpenCode Zen credentials.");
-                    // Fall back to free models
-                    fallbackToFreeModels();
-                } else {
-                    errorLiveData.postValue("No models available from OpenCode Zen");
-                    // Fall back to free models
-                    fallbackToFreeModels();
+        executorService.execute(() -> {
+            // Stale-while-revalidate: never make a cold start wait on the network
+            ModelCatalogCache.Entry cached = catalogCache.read();
+            if (cached != null) {
+                publishIfChanged(cached.json, cached.models);
+                if (!forceRefresh && catalogCache.isFresh(cached)) {
+                    isLoading.postValue(false);
+                    return;
                 }
             }
+            requestModels(authToken, cached);
+        });
+    }
 
-            @Override
-            public void onFailure(@androidx.annotation.NonNull retrofit2.Call<ModelResponse> call,
-                                  @androidx.annotation.NonNull Throwable t) {
-                isLoading.postValue(false);
-                String errorMsg = t.getMessage() != null ? t.getMessage() : "Failed to fetch models from OpenCode Zen";
+    /**
+     * Fetch the catalog from the Zen API and publish it if it changed.
+     */
+    private void requestModels(String authToken, ModelCatalogCache.Entry cached) {
+        fetchCatalog(authToken, cached, result -> {
+            isLoading.postValue(false);
+            if (result.isSuccessful()) {
+                if (publishIfChanged(result.json, result.models)) {
+                    Log.d(TAG, "Fetched " + result.models.size() + " models from OpenCode Zen API");
+                }
+            } else if (result.code == 401) {
+                errorLiveData.postValue("Invalid API key. Please check your OpenCode Zen credentials.");
+                // Fall back to free models
+                fallbackToFreeModels();
+            } else if (!hasPublishedCatalog()) {
+                // Otherwise keep showing the cached catalog
+                String errorMsg = result.error != null && result.error.getMessage() != null
+                        ? result.error.getMessage() : "No models available from OpenCode Zen";
                 errorLiveData.postValue(errorMsg);
-                Log.e(TAG, "Error fetching models from OpenCode Zen API", t);
-                // Fall back to free models on network error
+                // Fall back to free models
                 fallbackToFreeModels();
             }
         });
     }
 
+    /**
+     * Get the catalog from the Zen API, sharing one request among concurrent callers.
+     * With a cached catalog the request is conditional, so an unchanged catalog costs a
+     * 304 and is never parsed. The cache is updated once per request, before callbacks run.
+     */
+    private void fetchCatalog(String authToken, ModelCatalogCache.Entry cached, Consumer<CatalogResult> callback) {
+        catalogFlight.execute(done -> {
+            String ifNoneMatch = cached != null ? cached.etag : null;
+            String ifModifiedSince = cached != null ? cached.lastModified : null;
+            apiService.getModels(authToken, ifNoneMatch, ifModifiedSince).enqueue(new retrofit2.Callback<ModelResponse>() {
+                @Override
+                public void onResponse(@androidx.annotation.NonNull retrofit2.Call<ModelResponse> call,
+                                       @androidx.annotation.NonNull retrofit2.Response<ModelResponse> response) {
+                    if (response.code() == HTTP_NOT_MODIFIED && cached != null) {
+                        // The cached catalog is still current
+                        executorService.execute(() -> {
+                            catalogCache.touch();
+                            done.accept(CatalogResult.success(cached.json, cached.models));
+                        });
+                    } else if (response.isSuccessful() && response.body() != null && response.body().getModels() != null) {
+                        List<ModelResponse.ModelInfo> models = response.body().getModels();
+                        String etag = response.headers().get("ETag");
+                        String lastModified = response.headers().get("Last-Modified");
+                        executorService.execute(() -> {
+                            String json = catalogCache.serialize(models);
+                            // Rewritten even if unchanged, since the validators may be new
+                            catalogCache.write(json, etag, lastModified);
+                            done.accept(CatalogResult.success(json, models));
+                        });
+                    } else {
+                        done.accept(CatalogResult.failure(response.code(), null));
+                    }
+                }
+
+                @Override
+                public void onFailure(@androidx.annotation.NonNull retrofit2.Call<ModelResponse> call,
+                                      @androidx.annotation.NonNull Throwable t) {
+                    Log.e(TAG, "Error fetching models from OpenCode Zen API", t);
+                    done.accept(CatalogResult.failure(0, t));
+                }
+            });
+        }, callback);
+    }
+
+    /**
+     * Publish a catalog unless it is the one already shown.
+     *
+     * @return true if the catalog was published
+     */
+    private synchronized boolean publishIfChanged(String json, List<ModelResponse.ModelInfo> models) {
+        if (json.equals(publishedCatalogJson)) {
+            return false;
+        }
+        publishedCatalogJson = json;
+        publish(ModelCatalog.of(models, BUILTIN_FREE_MODEL_IDS));
+        return true;
+    }
+
+    /**
+     * Publish a list that is not the API catalog, e.g. the built-in free models.
+     */
+    private void publishUncached(List<ModelResponse.ModelInfo> models) {
+        publishUncached(ModelCatalog.of(models, BUILTIN_FREE_MODEL_IDS));
+    }
+
+    private synchronized void publishUncached(ModelCatalog newCatalog) {
+        publishedCatalogJson = null;
+        publish(newCatalog);
+    }
+
+    private void publish(ModelCatalog newCatalog) {
+        catalog = newCatalog;
+        modelsLiveData.postValue(newCatalog.getModels());
+    }
+
+    private synchronized boolean hasPublishedCatalog() {
+        return publishedCatalogJson != null;
+    }
+
     /**
      * Check if we should use free models by default when not authenticated.
      */
@@ -272,16 +389,24 @@ public class ModelRepository {
     private void fallbackToFreeModels() {
         List<ModelResponse.ModelInfo> freeModels = getFreeModelsAsModelInfo();
         if (!freeModels.isEmpty()) {
-            modelsLiveData.postValue(freeModels);
+            publishUncached(freeModels);
             Log.d(TAG, "Fell back to " + freeModels.size() + " built-in free models");
         }
     }
 
     /**
-     * Refresh models from API.
+     * Refresh models from API, even if the cached catalog is still fresh.
      */
     public void refreshModels() {
-        fetchModels();
+        loadModels(true);
+    }
+
+    /**
+     * Drop the reusable catalog result and detach any fetch in flight, so the next fetch
+     * uses the new credentials.
+     */
+    public void onCredentialsChanged() {
+        catalogFlight.invalidate();
     }
 
     /**
@@ -292,89 +417,33 @@ public class ModelRepository {
         errorLiveData.setValue(null);
 
         String authToken = getAuthToken();
-        List<ModelResponse.ModelInfo> allModels = new ArrayList<>();
 
         // Always include free models
-        allModels.addAll(getFreeModelsAsModelInfo());
+        List<ModelResponse.ModelInfo> freeModels = getFreeModelsAsModelInfo();
 
         // If authenticated, also fetch from API
         if (authToken != null) {
-            apiService.getModels(authToken).enqueue(new retrofit2.Callback<ModelResponse>() {
-                @Override
-                public void onResponse(@androidx.annotation.NonNull retrofit2.Call<ModelResponse> call,
-                                       @androidx.annotation.NonNull retrofit2.Response<ModelResponse> response) {
-                    isLoading.postValue(false);
-                    if (response.isSuccessful() && response.body() != null && response.body().getModels() != null) {
-                        List<ModelResponse.ModelInfo> apiModels = response.body().getModels();
-                        // Merge API models (avoiding duplicates)
-                        for (ModelResponse.ModelInfo apiModel : apiModels) {
-                            boolean exists = false;
-                            for (ModelResponse.ModelInfo freeModel : allModels) {
-                                if (apiModel.getId().equals(freeModel.getId())) {
-                                    exists = true;
-                                    break;
-                                }
-                            }
-                            if (!exists) {
-                                allModels.add(apiModel);
-                            }
-                        }
-                        modelsLiveData.postValue(allModels);
-                        Log.d(TAG, "Combined " + allModels.size() + " models (free + API)");
-                    } else {
-                        // Just use free models
-                        modelsLiveData.postValue(allModels);
-                    }
-                }
-
-                @Override
-                public void onFailure(@androidx.annotation.NonNull retrofit2.Call<ModelResponse> call,
-                                      @androidx.annotation.NonNull Throwable t) {
-                    isLoading.postValue(false);
-                    // Just use free models on failure
-                    modelsLiveData.postValue(allModels);
-                    Log.d(TAG, "API fetch failed, using " + allModels.size() + " free models");
+            executorService.execute(() -> fetchCatalog(authToken, catalogCache.read(), result -> {
+                isLoading.postValue(false);
+                if (result.isSuccessful()) {
+                    // Merge API models (avoiding duplicates)
+                    ModelCatalog merged = ModelCatalog.merge(freeModels, result.models, BUILTIN_FREE_MODEL_IDS);
+                    publishUncached(merged);
+                    Log.d(TAG, "Combined " + merged.size() + " models (free + API)");
+                } else {
+                    // Just use free models
+                    publishUncached(freeModels);
+                    Log.d(TAG, "API fetch failed, using " + freeModels.size() + " free models");
                 }
-            });
+            }));
         } else {
             // Not authenticated, just use free models
             isLoading.postValue(false);
-            modelsLiveData.postValue(allModels);
-            Log.d(TAG, "Not authenticated, using " + allModels.size() + " free models");
+            publishUncached(freeModels);
+            Log.d(TAG, "Not authenticated, using " + freeModels.size() + " free models");
         }
     }
 
-    /**
-     * Get cached models.
-     */
-    private void loadCachedModels() {
-        executorService.execute(() -> {
-            String cached = settingsDao.getValueByKeySync(CACHE_KEY);
-            if (cached != null && !cached.isEmpty()) {
-                try {
-                    // Parse cached JSON (simplified - in production use Gson)
-                    List<ModelResponse.ModelInfo> models = parseCachedModels(cached);
-                    if (models != null && !models.isEmpty()) {
-                        modelsLiveData.postValue(models);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error loading cached models", e);
-                }
-            }
-        });
-    }
-
-    /**
-     * Cache models to local storage.
-     */
-    private void cacheModels(List<ModelResponse.ModelInfo> models) {
-        executorService.execute(() -> {
-            // In production, serialize to JSON
-            SettingsEntity cacheSetting = new SettingsEntity(CACHE_KEY, String.valueOf(System.currentTimeMillis()));
-            settingsDao.insert(cacheSetting);
-        });
-    }
-
     /**
      * Get default model - uses free model if in free mode.
      */
@@ -404,104 +473,82 @@ public class ModelRepository {
      * Get model by ID.
      */
     public ModelResponse.ModelInfo getModelById(String modelId) {
-        List<ModelResponse.ModelInfo> models = modelsLiveData.getValue();
-        if (models != null) {
-            return models.stream()
-                    .filter(m -> modelId.equals(m.getId()))
-                    .findFirst()
-                    .orElse(null);
-        }
-        return null;
+        return catalog.getById(modelId);
     }
 
     /**
      * Get models filtered by provider.
      */
     public List<ModelResponse.ModelInfo> getModelsByProvider(String provider) {
-        List<ModelResponse.ModelInfo> models = modelsLiveData.getValue();
-        if (models != null) {
-            List<ModelResponse.ModelInfo> filtered = new ArrayList<>();
-            for (ModelResponse.ModelInfo model : models) {
-                if (provider.equals(model.getProviderName())) {
-                    filtered.add(model);
-                }
-            }
-            return filtered;
-        }
-        return new ArrayList<>();
+        return catalog.getByProvider(provider);
     }
 
     /**
      * Get only free models from current model list.
      */
     public List<ModelResponse.ModelInfo> getFreeModels() {
-        List<ModelResponse.ModelInfo> models = modelsLiveData.getValue();
-        if (models != null) {
-            List<ModelResponse.ModelInfo> freeModels = new ArrayList<>();
-            for (ModelResponse.ModelInfo model : models) {
-                if (isFreeModel(model)) {
-                    freeModels.add(model);
-                }
-            }
-            return freeModels;
-        }
-        return new ArrayList<>();
+        return catalog.filter(ModelCatalog.FREE);
+    }
+
+    /**
+     * Get the models that have all of the given {@link ModelCatalog} flags,
+     * e.g. {@code ModelCatalog.FREE | ModelCatalog.TOOLS | ModelCatalog.STREAM}.
+     */
+    public List<ModelResponse.ModelInfo> getModelsWith(int requiredFlags) {
+        return catalog.filter(requiredFlags);
     }
 
     /**
      * Check if a model is a free model.
      */
     public boolean isFreeModel(ModelResponse.ModelInfo model) {
-        if (model == null || model.getPricing() == null) {
+        if (model == null) {
             return false;
         }
-        // Check if pricing is $0.00
-        ModelResponse.ModelInfo.Pricing pricing = model.getPricing();
-        String promptPrice = pricing.getPromptTokens();
-        String completionPrice = pricing.getCompletionTokens();
-
-        boolean isFree = ("$0.00".equals(promptPrice) || promptPrice == null || promptPrice.isEmpty())
-                && ("$0.00".equals(completionPrice) || completionPrice == null || completionPrice.isEmpty());
-
-        // Also check if it's a built-in free model
-        if (!isFree) {
-            for (FreeModel freeModel : BUILTIN_FREE_MODELS) {
-                if (freeModel.getId().equals(model.getId()) ||
-                    ("opencode/" + freeModel.getId()).equals(model.getId())) {
-                    return true;
-                }
-            }
+        ModelCatalog current = catalog;
+        if (current.getById(model.getId()) == model) {
+            // Precomputed when the catalog was published
+            return current.hasFlags(model.getId(), ModelCatalog.FREE);
         }
-
-        return isFree;
+        return ModelCatalog.of(Collections.singletonList(model), BUILTIN_FREE_MODEL_IDS)
+                .hasFlags(model.getId(), ModelCatalog.FREE);
     }
 
     /**
      * Search models by name.
      */
     public List<ModelResponse.ModelInfo> searchModels(String query) {
-        List<ModelResponse.ModelInfo> models = modelsLiveData.getValue();
-        if (models != null && query != null) {
-            String lowerQuery = query.toLowerCase();
-            List<ModelResponse.ModelInfo> results = new ArrayList<>();
-            for (ModelResponse.ModelInfo model : models) {
-                String displayName = model.getDisplayName().toLowerCase();
-                String id = model.getId().toLowerCase();
-                if (displayName.contains(lowerQuery) || id.contains(lowerQuery)) {
-                    results.add(model);
-                }
-            }
-            return results;
-        }
-        return new ArrayList<>();
+        return catalog.search(query);
     }
 
     /**
-     * Parse cached model data (simplified).
+     * Outcome of one catalog request, shared by every caller that joined it.
      */
-    private List<ModelResponse.ModelInfo> parseCachedModels(String data) {
-        // In production, use Gson to deserialize from JSON
-        return new ArrayList<>();
+    private static final class CatalogResult {
+        final String json;
+        final List<ModelResponse.ModelInfo> models;
+        // HTTP status of a failed response, 0 for a network error
+        final int code;
+        final Throwable error;
+
+        private CatalogResult(String json, List<ModelResponse.ModelInfo> models, int code, Throwable error) {
+            this.json = json;
+            this.models = models;
+            this.code = code;
+            this.error = error;
+        }
+
+        static CatalogResult success(String json, List<ModelResponse.ModelInfo> models) {
+            return new CatalogResult(json, models, 200, null);
+        }
+
+        static CatalogResult failure(int code, Throwable error) {
+            return new CatalogResult(null, null, code, error);
+        }
+
+        boolean isSuccessful() {
+            return models != null;
+        }
     }
 
     /**
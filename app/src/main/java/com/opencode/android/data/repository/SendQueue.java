@@ -0,0 +1,221 @@
+package com.opencode.android.data.repository;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteConstraintException;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.opencode.android.data.local.dao.PendingSendDao;
+import com.opencode.android.data.local.entity.PendingSendEntity;
+import com.opencode.android.data.model.zen.ChatRequest;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+/**
+ * Durable queue of chat requests that failed because the device was offline.
+ * Requests are kept in Room and replayed by {@link SendQueueWorker} once a network is
+ * available, a bounded number at a time.
+ *
+ * <p>Only failures that prove the request never left the device are queued (see
+ * {@link #isOfflineFailure}), so a request the server may have billed is never sent
+ * twice. A replay first claims its row, so overlapping drains cannot both send it, and
+ * carries the row's idempotency key, so a replay cut off after reaching the server can
+ * be deduplicated there when it is tried again.
+ */
+public class SendQueue {
+
+    private static final String TAG = "SendQueue";
+
+    public static final int DEFAULT_PARALLELISM = 2;
+    static final int MAX_ATTEMPTS = 8;
+    // A claim this old belongs to a replay that died with its process
+    static final long CLAIM_TIMEOUT_MS = 10 * 60 * 1000;
+
+    /**
+     * Outcome of one replay.
+     */
+    public enum Result {
+        /** Delivered; remove it from the queue. */
+        SENT,
+        /** Failed for now; keep it for the next drain. */
+        RETRY,
+        /** Can never succeed, e.g. rejected by the server; remove it. */
+        DROP
+    }
+
+    /**
+     * Sends one queued request. Called on a drain thread; blocks until the outcome is known.
+     */
+    public interface Replayer {
+        Result replay(PendingSendEntity pendingSend, ChatRequest request);
+
+        /**
+         * Called once a request is removed without being delivered.
+         */
+        default void onDropped(PendingSendEntity pendingSend) {
+        }
+    }
+
+    private final PendingSendDao dao;
+    private final Gson gson;
+    private final Runnable drainScheduler;
+    private final int parallelism;
+    private final LongSupplier clock;
+    private volatile Replayer replayer;
+
+    /**
+     * Queue drained by {@link SendQueueWorker} when the device is online.
+     */
+    public SendQueue(PendingSendDao dao, Gson gson, Context context) {
+        this(dao, gson, () -> SendQueueWorker.schedule(context), DEFAULT_PARALLELISM,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param drainScheduler arranges for {@link #drain()} to run once online
+     * @param clock          wall-clock time in ms, since claims outlive the process
+     */
+    SendQueue(PendingSendDao dao, Gson gson, Runnable drainScheduler, int parallelism, LongSupplier clock) {
+        this.dao = dao;
+        this.gson = gson;
+        this.drainScheduler = drainScheduler;
+        this.parallelism = parallelism;
+        this.clock = clock;
+    }
+
+    public void setReplayer(Replayer replayer) {
+        this.replayer = replayer;
+    }
+
+    /**
+     * Whether a send failed before any of the request could reach the server: the host
+     * did not resolve or no connection could be opened. Timeouts and resets are not
+     * offline failures, since the server may already have received the request.
+     */
+    public static boolean isOfflineFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnknownHostException
+                    || cause instanceof ConnectException
+                    || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Persist a request for replay and schedule a drain. Must run on a background thread.
+     *
+     * @param messageId streaming placeholder to fill with the reply, or null
+     * @return the idempotency key of the queued request, or null if its session is gone
+     */
+    public String enqueue(String sessionId, String messageId, ChatRequest request) {
+        PendingSendEntity pendingSend = new PendingSendEntity(sessionId, messageId, gson.toJson(request));
+        try {
+            dao.insert(pendingSend);
+        } catch (SQLiteConstraintException e) {
+            // IGNORE covers key conflicts only; a deleted session fails its foreign key
+            Log.e(TAG, "Session " + sessionId + " no longer exists, dropping send", e);
+            return null;
+        }
+        Log.d(TAG, "Queued send " + pendingSend.getIdempotencyKey() + " for session " + sessionId);
+        drainScheduler.run();
+        return pendingSend.getIdempotencyKey();
+    }
+
+    /**
+     * Schedule a drain if anything is queued, e.g. at startup. Must run on a background thread.
+     */
+    public void scheduleIfPending() {
+        if (dao.getCountSync() > 0) {
+            drainScheduler.run();
+        }
+    }
+
+    /**
+     * Replay the requests that are ready, oldest first and at most {@code parallelism} at
+     * a time. Each request is tried once per drain; requests queued meanwhile are left for
+     * the retry this drain asks for, since a drain that is already scheduled is kept rather
+     * than followed by another. Must run on a background thread.
+     *
+     * @return true if some requests are left for a later drain
+     */
+    public boolean drain() {
+        Replayer current = replayer;
+        if (current == null) {
+            return dao.getCountSync() > 0;
+        }
+        List<PendingSendEntity> ready = dao.getReady(clock.getAsLong() - CLAIM_TIMEOUT_MS);
+        if (ready.isEmpty()) {
+            return false;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ready.size()));
+        boolean pending = false;
+        try {
+            List<Future<Result>> results = new ArrayList<>(ready.size());
+            for (PendingSendEntity pendingSend : ready) {
+                results.add(executor.submit(() -> replayOne(current, pendingSend)));
+            }
+            for (Future<Result> result : results) {
+                if (result.get() == Result.RETRY) {
+                    pending = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending = true;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error replaying queued send", e.getCause());
+            pending = true;
+        } finally {
+            executor.shutdownNow();
+        }
+        return pending || dao.getCountSync() > 0;
+    }
+
+    /**
+     * Claim and replay one request.
+     *
+     * @return the outcome, or null if another drain holds the request
+     */
+    private Result replayOne(Replayer current, PendingSendEntity pendingSend) {
+        String key = pendingSend.getIdempotencyKey();
+        int attempt = pendingSend.getAttempts() + 1;
+        long now = clock.getAsLong();
+        if (dao.claim(key, now, now - CLAIM_TIMEOUT_MS) == 0) {
+            return null;
+        }
+        Result result;
+        try {
+            ChatRequest request = gson.fromJson(pendingSend.getRequestJson(), ChatRequest.class);
+            // Replays run in the background, where there is no one to stream to
+            request.setStream(false);
+            result = current.replay(pendingSend, request);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Queued send " + key + " could not be replayed", e);
+            result = Result.DROP;
+        }
+        if (result == Result.RETRY && attempt >= MAX_ATTEMPTS) {
+            Log.e(TAG, "Giving up on queued send " + key + " after " + MAX_ATTEMPTS + " attempts");
+            result = Result.DROP;
+        }
+        if (result == Result.RETRY) {
+            dao.release(key, "Attempt " + attempt + " failed");
+        } else {
+            dao.deleteByKey(key);
+        }
+        if (result == Result.DROP) {
+            current.onDropped(pendingSend);
+        }
+        return result;
+    }
+}
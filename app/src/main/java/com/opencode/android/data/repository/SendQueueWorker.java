@@ -0,0 +1,58 @@
+package com.opencode.android.data.repository;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.opencode.android.OpenCodeApplication;
+import com.opencode.android.di.AppContainer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the {@link SendQueue} once the device has a network connection, retrying with
+ * exponential backoff while requests are left.
+ */
+public class SendQueueWorker extends Worker {
+
+    static final String UNIQUE_WORK_NAME = "send_queue_drain";
+    private static final long BACKOFF_SECONDS = 30;
+
+    public SendQueueWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule a drain for when the device is online. A drain already scheduled or running
+     * is kept: one drain replays every ready request, and one that finishes with requests
+     * left, including any it did not see, asks to be retried.
+     */
+    public static void schedule(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SendQueueWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        AppContainer container = OpenCodeApplication.getAppContainer();
+        if (container == null) {
+            return Result.retry();
+        }
+        return container.getSendQueue().drain() ? Result.retry() : Result.success();
+    }
+}
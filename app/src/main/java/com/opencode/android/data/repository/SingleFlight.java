@@ -0,0 +1,112 @@
+package com.opencode.android.data.repository;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Coalesces concurrent requests for the same result into one call.
+ * The first caller starts the call; callers arriving while it is in flight are attached
+ * to it and all receive its result. A reusable result that completed less than
+ * {@code debounceMs} ago is handed out again instead of starting another call.
+ * {@link #invalidate} detaches a call in flight: its callers still receive its result,
+ * but later callers start a new call.
+ *
+ * @param <T> The result type
+ */
+class SingleFlight<T> {
+
+    /**
+     * An asynchronous call that reports its result exactly once.
+     */
+    interface Call<T> {
+        void start(Consumer<T> onResult);
+    }
+
+    private final long debounceMs;
+    private final Predicate<T> reusable;
+    private final LongSupplier clock;
+
+    // Non-null while a call is in flight and joinable
+    private Flight<T> flight;
+    private T lastResult;
+    private long lastCompletedAt;
+
+    SingleFlight(long debounceMs, Predicate<T> reusable) {
+        this(debounceMs, reusable, SystemClock::elapsedRealtime);
+    }
+
+    SingleFlight(long debounceMs, Predicate<T> reusable, LongSupplier clock) {
+        this.debounceMs = debounceMs;
+        this.reusable = reusable;
+        this.clock = clock;
+    }
+
+    /**
+     * Deliver the result of {@code call} to {@code callback}, joining a call in flight
+     * or reusing a recent result when possible.
+     */
+    void execute(Call<T> call, Consumer<T> callback) {
+        T recent = null;
+        Flight<T> started = null;
+        synchronized (this) {
+            if (flight != null) {
+                flight.waiters.add(callback);
+                return;
+            }
+            if (lastResult != null && clock.getAsLong() - lastCompletedAt < debounceMs) {
+                recent = lastResult;
+            } else {
+                started = new Flight<>();
+                started.waiters.add(callback);
+                flight = started;
+            }
+        }
+        if (recent != null) {
+            callback.accept(recent);
+            return;
+        }
+        Flight<T> current = started;
+        call.start(result -> complete(current, result));
+    }
+
+    /**
+     * Forget the last result and detach any call in flight, e.g. after the credentials
+     * changed, so the next caller starts a new call.
+     */
+    synchronized void invalidate() {
+        lastResult = null;
+        flight = null;
+    }
+
+    private void complete(Flight<T> completed, T result) {
+        List<Consumer<T>> done;
+        synchronized (this) {
+            if (completed.done) {
+                return;
+            }
+            completed.done = true;
+            done = completed.waiters;
+            if (flight == completed) {
+                flight = null;
+                lastResult = reusable.test(result) ? result : null;
+                lastCompletedAt = clock.getAsLong();
+            }
+        }
+        for (Consumer<T> callback : done) {
+            callback.accept(result);
+        }
+    }
+
+    /**
+     * Callers of one call. Guarded by the SingleFlight's lock.
+     */
+    private static final class Flight<T> {
+        final List<Consumer<T>> waiters = new ArrayList<>();
+        boolean done;
+    }
+}
@@ -0,0 +1,246 @@
+package com.opencode.android.data.repository;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ModelResponse;
+import com.opencode.android.data.remote.zen.StreamEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Hedges streaming requests to free models against slow backends. If the primary model
+ * has not produced its first token by a deadline taken from a percentile of recent
+ * time-to-first-token samples, the same request is sent to a second capable free model.
+ * Whichever stream emits first wins and the other is cancelled, which also cancels its
+ * HTTP call; a primary that answers before the deadline never triggers the backup.
+ *
+ * <p>Only free models are hedged, since a backup request to a paid model would be
+ * billed. Disabled until {@link #setEnabled(boolean)} opts in.
+ */
+public class StreamHedger {
+
+    private static final String TAG = "StreamHedger";
+    private static final String ZEN_PREFIX = "opencode/";
+
+    static final double DEFAULT_PERCENTILE = 0.95;
+    // Used until enough first tokens have been timed
+    static final long DEFAULT_DEADLINE_MS = 4000;
+    static final long MIN_DEADLINE_MS = 500;
+    static final long MAX_DEADLINE_MS = 15_000;
+    static final int WINDOW_SIZE = 64;
+    static final int MIN_SAMPLES = 8;
+
+    private final Supplier<List<ModelResponse.ModelInfo>> candidates;
+    private final double percentile;
+    private final Scheduler scheduler;
+    private final LongSupplier clock;
+    private final LatencyWindow firstTokenLatencies = new LatencyWindow(WINDOW_SIZE);
+    // Smoothed time to first token per model, used to pick the backup
+    private final Map<String, Long> modelLatencies = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    /**
+     * Hedge across the free streaming models of the published catalog.
+     */
+    public StreamHedger(ModelRepository modelRepository) {
+        this(() -> modelRepository.getModelsWith(ModelCatalog.FREE | ModelCatalog.STREAM),
+                DEFAULT_PERCENTILE, Schedulers.computation(), SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * @param candidates free streaming models that may serve as primary or backup
+     * @param percentile quantile of recent first-token latencies used as the deadline
+     */
+    StreamHedger(Supplier<List<ModelResponse.ModelInfo>> candidates, double percentile,
+                 Scheduler scheduler, LongSupplier clock) {
+        this.candidates = candidates;
+        this.percentile = percentile;
+        this.scheduler = scheduler;
+        this.clock = clock;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stream a request, hedging it if enabled and its model is free.
+     *
+     * @param streamFactory creates the cold stream for a request; called for the primary
+     *                      request and, if a backup is possible, for its copy
+     */
+    public Flowable<StreamEvent> stream(ChatRequest request,
+                                        Function<ChatRequest, Flowable<StreamEvent>> streamFactory) {
+        List<ModelResponse.ModelInfo> models = candidates.get();
+        String primaryId = normalize(request.getModel());
+        if (find(models, primaryId) == null) {
+            return streamFactory.apply(request);
+        }
+        Flowable<StreamEvent> primary = timed(streamFactory.apply(request), primaryId);
+        if (!enabled) {
+            // Keep sampling so the deadline is ready when hedging is turned on
+            return primary;
+        }
+        boolean needsTools = request.getTools() != null && !request.getTools().isEmpty();
+        ModelResponse.ModelInfo backup = pickBackup(models, primaryId, needsTools);
+        if (backup == null) {
+            return primary;
+        }
+
+        long deadlineMs = deadlineMs();
+        // Deferred, so no request is built unless the deadline passes
+        Flowable<StreamEvent> hedge = timed(Flowable.defer(() ->
+                        streamFactory.apply(withModel(request, backup.getId()))),
+                normalize(backup.getId()))
+                .doOnSubscribe(subscription -> Log.d(TAG, "No first token from " + primaryId
+                        + " after " + deadlineMs + " ms, hedging to " + backup.getId()))
+                .delaySubscription(deadlineMs, TimeUnit.MILLISECONDS, scheduler);
+        return Flowable.ambArray(primary, hedge);
+    }
+
+    /**
+     * Deadline for the primary's first token: the configured percentile of recent
+     * samples, clamped, or a default until enough samples exist.
+     */
+    long deadlineMs() {
+        long value = firstTokenLatencies.percentile(percentile, MIN_SAMPLES);
+        if (value < 0) {
+            return DEFAULT_DEADLINE_MS;
+        }
+        return Math.max(MIN_DEADLINE_MS, Math.min(MAX_DEADLINE_MS, value));
+    }
+
+    /**
+     * Capable free model other than the primary with the lowest smoothed first-token
+     * latency; untimed models rank as if they met the current deadline.
+     */
+    private ModelResponse.ModelInfo pickBackup(List<ModelResponse.ModelInfo> models, String primaryId,
+                                               boolean needsTools) {
+        long unknown = deadlineMs();
+        ModelResponse.ModelInfo best = null;
+        long bestLatency = Long.MAX_VALUE;
+        for (ModelResponse.ModelInfo model : models) {
+            String id = normalize(model.getId());
+            if (id.equals(primaryId)) {
+                continue;
+            }
+            if (needsTools && (ModelCatalog.capabilityFlags(model) & ModelCatalog.TOOLS) == 0) {
+                continue;
+            }
+            Long latency = modelLatencies.get(id);
+            long value = latency != null ? latency : unknown;
+            if (value < bestLatency) {
+                best = model;
+                bestLatency = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Record the time from subscription to the first text or tool call of a stream.
+     * A stream cancelled before its first token records nothing.
+     */
+    private Flowable<StreamEvent> timed(Flowable<StreamEvent> stream, String modelId) {
+        return Flowable.defer(() -> {
+            long start = clock.getAsLong();
+            boolean[] seen = new boolean[1];
+            return stream.doOnNext(event -> {
+                if (!seen[0] && (event.getType() == StreamEvent.Type.DELTA
+                        || event.getType() == StreamEvent.Type.TOOL_CALL)) {
+                    seen[0] = true;
+                    record(modelId, clock.getAsLong() - start);
+                }
+            });
+        });
+    }
+
+    private void record(String modelId, long latencyMs) {
+        firstTokenLatencies.add(latencyMs);
+        // Exponential moving average with weight 1/4 on the new sample
+        modelLatencies.merge(modelId, latencyMs, (old, sample) -> old + (sample - old) / 4);
+    }
+
+    private static ModelResponse.ModelInfo find(List<ModelResponse.ModelInfo> models, String id) {
+        for (ModelResponse.ModelInfo model : models) {
+            if (normalize(model.getId()).equals(id)) {
+                return model;
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String modelId) {
+        if (modelId == null) {
+            return "";
+        }
+        return modelId.startsWith(ZEN_PREFIX) ? modelId.substring(ZEN_PREFIX.length()) : modelId;
+    }
+
+    /**
+     * Copy of a request addressed to another model.
+     */
+    static ChatRequest withModel(ChatRequest request, String modelId) {
+        return new ChatRequest.Builder()
+                .model(modelId)
+                .messages(request.getMessages())
+                .maxTokens(request.getMaxTokens())
+                .temperature(request.getTemperature())
+                .topP(request.getTopP())
+                .stream(request.getStream())
+                .tools(request.getTools())
+                .build();
+    }
+
+    /**
+     * Fixed-size ring of the most recent latency samples.
+     */
+    static final class LatencyWindow {
+        private final long[] samples;
+        private int count;
+        private int next;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void add(long sample) {
+            samples[next] = sample;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+
+        /**
+         * Nearest-rank percentile of the samples, or -1 if there are fewer than
+         * {@code minSamples}.
+         */
+        synchronized long percentile(double quantile, int minSamples) {
+            if (count < minSamples || count == 0) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(quantile * count);
+            return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+        }
+    }
+}
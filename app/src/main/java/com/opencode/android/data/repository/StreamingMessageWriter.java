@@ -0,0 +1,189 @@
+package com.opencode.android.data.repository;
+
+import android.os.SystemClock;
+
+import com.opencode.android.data.local.dao.MessageDao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Write-coalescing stage between a streamed completion and Room.
+ * Deltas are buffered per message and written with a single {@code updateContent} once
+ * the flush interval or the pending size threshold is reached, instead of one SQLite
+ * write (and one invalidation of every observer of the messages table) per token.
+ * The final content, completion flag and token count are written in one transaction.
+ * Each message is guarded by its own lock, since a cancel finishes it on another thread
+ * while its deltas may still be being written.
+ *
+ * <p>The UI reads in-flight text from {@link LiveMessageOverlay}, so intermediate flushes
+ * only bound how much of an answer is lost if the process dies mid-stream.
+ */
+public class StreamingMessageWriter {
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+    public static final int DEFAULT_FLUSH_THRESHOLD_CHARS = 4096;
+
+    private final MessageDao messageDao;
+    private final long flushIntervalMs;
+    private final int flushThresholdChars;
+    private final LongSupplier clock;
+    private final Map<String, PendingMessage> pending = new ConcurrentHashMap<>();
+
+    public StreamingMessageWriter(MessageDao messageDao) {
+        this(messageDao, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_FLUSH_THRESHOLD_CHARS);
+    }
+
+    public StreamingMessageWriter(MessageDao messageDao, long flushIntervalMs, int flushThresholdChars) {
+        this(messageDao, flushIntervalMs, flushThresholdChars, SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * @param clock monotonic time in milliseconds
+     */
+    StreamingMessageWriter(MessageDao messageDao, long flushIntervalMs, int flushThresholdChars,
+                           LongSupplier clock) {
+        this.messageDao = messageDao;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushThresholdChars = flushThresholdChars;
+        this.clock = clock;
+    }
+
+    /**
+     * Start buffering deltas for a message that already exists in the database.
+     */
+    public void begin(String messageId) {
+        pending.put(messageId, new PendingMessage(clock.getAsLong()));
+    }
+
+    /**
+     * Buffer a delta, flushing to Room if a threshold has been reached.
+     */
+    public void append(String messageId, String delta) {
+        PendingMessage message = pending.get(messageId);
+        if (message == null || delta == null || delta.isEmpty()) {
+            return;
+        }
+        synchronized (message) {
+            if (message.finished) {
+                return;
+            }
+            message.content.append(delta);
+            message.deltaCount++;
+
+            long now = clock.getAsLong();
+            int unflushed = message.content.length() - message.flushedLength;
+            if (unflushed >= flushThresholdChars || now - message.lastFlushAt >= flushIntervalMs) {
+                flush(messageId, message, now);
+            }
+        }
+    }
+
+    /**
+     * Write any buffered content immediately, e.g. when the finish reason arrives.
+     */
+    public void flush(String messageId) {
+        PendingMessage message = pending.get(messageId);
+        if (message == null) {
+            return;
+        }
+        synchronized (message) {
+            if (!message.finished && message.content.length() > message.flushedLength) {
+                flush(messageId, message, clock.getAsLong());
+            }
+        }
+    }
+
+    // Called with the message's lock held
+    private void flush(String messageId, PendingMessage message, long now) {
+        messageDao.updateContent(messageId, message.content.toString());
+        message.flushedLength = message.content.length();
+        message.lastFlushAt = now;
+    }
+
+    /**
+     * Record the token count reported by the API, if any.
+     */
+    public void setTokenCount(String messageId, int tokenCount) {
+        PendingMessage message = pending.get(messageId);
+        if (message != null) {
+            synchronized (message) {
+                message.reportedTokenCount = tokenCount;
+            }
+        }
+    }
+
+    /**
+     * Record the serialized tool calls to store with the final content.
+     */
+    public void setToolCalls(String messageId, String toolCalls) {
+        PendingMessage message = pending.get(messageId);
+        if (message != null) {
+            synchronized (message) {
+                message.toolCalls = toolCalls;
+            }
+        }
+    }
+
+    /**
+     * Get the content buffered so far, or null if the message is not being written.
+     */
+    public String getContent(String messageId) {
+        PendingMessage message = pending.get(messageId);
+        if (message == null) {
+            return null;
+        }
+        synchronized (message) {
+            return message.content.toString();
+        }
+    }
+
+    /**
+     * Write the final content and mark the message complete in a single transaction.
+     * Safe to call more than once; only the first call writes.
+     */
+    public void finish(String messageId) {
+        PendingMessage message = pending.remove(messageId);
+        if (message == null) {
+            return;
+        }
+        synchronized (message) {
+            // Waits for a write in progress; deltas arriving later are dropped
+            message.finished = true;
+            // Fall back to the delta count when the API did not report usage
+            int tokenCount = message.reportedTokenCount >= 0
+                    ? message.reportedTokenCount : message.deltaCount;
+            messageDao.completeStreamedMessage(
+                    messageId, message.content.toString(), message.toolCalls, tokenCount);
+        }
+    }
+
+    /**
+     * Stop writing a message without completing it, leaving its row streaming, e.g. for
+     * a queued replay to fill. Deltas arriving later are dropped.
+     */
+    public void abandon(String messageId) {
+        PendingMessage message = pending.remove(messageId);
+        if (message == null) {
+            return;
+        }
+        synchronized (message) {
+            message.finished = true;
+        }
+    }
+
+    private static class PendingMessage {
+        final StringBuilder content = new StringBuilder();
+        int flushedLength;
+        long lastFlushAt;
+        int deltaCount;
+        int reportedTokenCount = -1;
+        String toolCalls;
+        boolean finished;
+
+        PendingMessage(long startedAt) {
+            this.lastFlushAt = startedAt;
+        }
+    }
+}
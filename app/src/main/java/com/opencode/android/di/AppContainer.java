@@ -1,30 +1,33 @@
 package com.opencode.android.di;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.util.Log;
-
-import androidx.security.crypto.EncryptedSharedPreferences;
-import androidx.security.crypto.MasterKey;
 
 import com.opencode.android.data.local.OpenCodeDatabase;
 import com.opencode.android.data.local.dao.MessageDao;
+import com.opencode.android.data.local.dao.PendingSendDao;
 import com.opencode.android.data.local.dao.SessionDao;
 import com.opencode.android.data.local.dao.SettingsDao;
+import com.opencode.android.data.local.entity.PendingSendEntity;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.remote.ConnectionPrewarmer;
+import com.opencode.android.data.remote.CredentialProvider;
+import com.opencode.android.data.remote.NetworkMetrics;
+import com.opencode.android.data.remote.NetworkModule;
+import com.opencode.android.data.remote.RequestScheduler;
 import com.opencode.android.data.remote.zen.ZenApiService;
+import com.opencode.android.data.remote.zen.ZenStreamClient;
 import com.opencode.android.data.repository.ChatRepository;
 import com.opencode.android.data.repository.ChatRepositoryImpl;
 import com.opencode.android.data.repository.ModelRepository;
+import com.opencode.android.data.repository.SendQueue;
+import com.opencode.android.data.repository.StreamHedger;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
  * Manual Dependency Injection Container for OpenCode Android.
@@ -33,27 +36,26 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class AppContainer {
 
     private static final String TAG = "AppContainer";
-    private static final String PREF_NAME = "secure_prefs";
-    private static final String KEY_API_KEY = "api_key";
-    private static final String KEY_API_BASE_URL = "api_base_url";
-
-    private static final int CONNECT_TIMEOUT = 30;
-    private static final int READ_TIMEOUT = 60;
-    private static final int WRITE_TIMEOUT = 30;
+    private static final String PREFS_NAME = "opencode_prefs";
+    private static final String KEY_HEDGE_FREE_MODELS = "hedge_free_models";
 
     private static volatile AppContainer INSTANCE;
     private final Context applicationContext;
 
     // Network components
+    private CredentialProvider credentialProvider;
     private OkHttpClient okHttpClient;
     private Retrofit retrofit;
     private ZenApiService zenApiService;
+    private ZenApiService streamingApiService;
+    private ConnectionPrewarmer connectionPrewarmer;
 
     // Database components
     private OpenCodeDatabase database;
     private SessionDao sessionDao;
     private MessageDao messageDao;
     private SettingsDao settingsDao;
+    private PendingSendDao pendingSendDao;
 
     // Executors
     private ExecutorService executorService;
@@ -61,6 +63,8 @@ public class AppContainer {
     // Repositories
     private ChatRepository chatRepository;
     private ModelRepository modelRepository;
+    private StreamHedger streamHedger;
+    private SendQueue sendQueue;
 
     private AppContainer(Context context) {
         this.applicationContext = context.getApplicationContext();
@@ -87,6 +91,9 @@ public class AppContainer {
         initDatabase();
         initNetwork();
         initRepositories();
+
+        // Take connection setup out of the first chat's time-to-first-token
+        connectionPrewarmer.prewarm();
     }
 
     private void initDatabase() {
@@ -94,96 +101,71 @@ public class AppContainer {
         sessionDao = database.sessionDao();
         messageDao = database.messageDao();
         settingsDao = database.settingsDao();
+        pendingSendDao = database.pendingSendDao();
         executorService = Executors.newFixedThreadPool(4);
     }
 
     private void initNetwork() {
-        // Logging interceptor for debugging
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-        // Build OkHttpClient (no auth interceptor - we pass token directly in API calls)
-        okHttpClient = new OkHttpClient.Builder()
-                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
-                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
-                .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
-                .addInterceptor(loggingInterceptor)
-                .retryOnConnectionFailure(true)
-                .build();
-
-        // Get base URL from preferences or use default OpenCode Zen endpoint
-        String baseUrl = getBaseUrl();
-
-        retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(okHttpClient)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
+        credentialProvider = NetworkModule.provideCredentialProvider(applicationContext);
 
+        // One shared client; the streaming variant shares its connection pool
+        okHttpClient = NetworkModule.provideOkHttpClient(applicationContext);
+        retrofit = NetworkModule.provideRetrofit(applicationContext, okHttpClient);
         zenApiService = retrofit.create(ZenApiService.class);
+        streamingApiService = NetworkModule.provideStreamingZenApiService(applicationContext);
+        connectionPrewarmer = new ConnectionPrewarmer(
+                okHttpClient,
+                NetworkModule.getBaseUrl(applicationContext),
+                ConnectionPrewarmer.unmeteredNetwork(applicationContext)
+        );
     }
 
     /**
      * Get authentication token for OpenCode Zen API.
-     * Uses encrypted shared preferences for secure storage.
+     * The key is decrypted once and cached by the credential provider.
      */
     public String getAuthToken() {
-        try {
-            SharedPreferences prefs = getSecurePreferences();
-            String apiKey = prefs.getString(KEY_API_KEY, null);
-            if (apiKey != null && !apiKey.isEmpty()) {
-                return "Bearer " + apiKey;
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting auth token", e);
-        }
-        return null;
+        return credentialProvider.getBearerToken();
     }
 
     /**
      * Check if user is authenticated with OpenCode Zen.
      */
     public boolean isAuthenticated() {
-        return getAuthToken() != null;
+        return credentialProvider.hasCredentials();
     }
 
     /**
-     * Save API key securely.
+     * Save API key securely. Must run on a background thread, since the first save
+     * creates the Keystore master key.
      */
     public boolean saveApiKey(String apiKey) {
-        try {
-            SharedPreferences prefs = getSecurePreferences();
-            prefs.edit().putString(KEY_API_KEY, apiKey).apply();
-            return true;
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving API key", e);
-            return false;
-        }
+        boolean saved = credentialProvider.saveApiKey(apiKey);
+        modelRepository.onCredentialsChanged();
+        return saved;
     }
 
     /**
      * Clear API key.
      */
     public void clearApiKey() {
-        try {
-            SharedPreferences prefs = getSecurePreferences();
-            prefs.edit().remove(KEY_API_KEY).apply();
-        } catch (Exception e) {
-            Log.e(TAG, "Error clearing API key", e);
-        }
+        credentialProvider.clearApiKey();
+        modelRepository.onCredentialsChanged();
     }
 
     private void initRepositories() {
         // Create auth token supplier
-        Supplier<String> authTokenSupplier = this::getAuthToken;
+        Supplier<String> authTokenSupplier = credentialProvider::getBearerToken;
 
-        chatRepository = new ChatRepositoryImpl(
+        ChatRepositoryImpl chatRepositoryImpl = new ChatRepositoryImpl(
                 sessionDao,
                 messageDao,
                 zenApiService,
+                new ZenStreamClient(streamingApiService),
                 executorService,
                 authTokenSupplier
         );
+        chatRepository = chatRepositoryImpl;
 
         modelRepository = new ModelRepository(
                 zenApiService,
@@ -191,11 +173,43 @@ public class AppContainer {
                 executorService,
                 authTokenSupplier
         );
+
+        // Hedging free-model streams is opt-in
+        streamHedger = new StreamHedger(modelRepository);
+        streamHedger.setEnabled(applicationContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(KEY_HEDGE_FREE_MODELS, false));
+        chatRepositoryImpl.setStreamHedger(streamHedger);
+
+        // Sends that fail while offline are queued and replayed once back online
+        sendQueue = new SendQueue(pendingSendDao, NetworkModule.provideGson(), applicationContext);
+        sendQueue.setReplayer(new SendQueue.Replayer() {
+            @Override
+            public SendQueue.Result replay(PendingSendEntity pendingSend, ChatRequest request) {
+                return chatRepositoryImpl.replayPendingSend(pendingSend, request);
+            }
+
+            @Override
+            public void onDropped(PendingSendEntity pendingSend) {
+                chatRepositoryImpl.dropPendingSend(pendingSend);
+            }
+        });
+        chatRepositoryImpl.setSendQueue(sendQueue);
+        executorService.execute(sendQueue::scheduleIfPending);
+    }
+
+    /**
+     * Enable or disable hedged requests across free models, persisting the choice.
+     */
+    public void setHedgingEnabled(boolean enabled) {
+        streamHedger.setEnabled(enabled);
+        applicationContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(KEY_HEDGE_FREE_MODELS, enabled)
+                .apply();
     }
 
-    private String getBaseUrl() {
-        SharedPreferences prefs = applicationContext.getSharedPreferences("opencode_prefs", Context.MODE_PRIVATE);
-        return prefs.getString(KEY_API_BASE_URL, "https://opencode.ai/zen/v1/");
+    public boolean isHedgingEnabled() {
+        return streamHedger.isEnabled();
     }
 
     // Getters for all dependencies
@@ -212,6 +226,28 @@ public class AppContainer {
         return modelRepository;
     }
 
+    /**
+     * Scheduler in front of the Zen API, including its queue-wait metrics.
+     */
+    public RequestScheduler getRequestScheduler() {
+        return NetworkModule.provideRequestScheduler();
+    }
+
+    /**
+     * Per-phase timings of Zen API calls by endpoint and model.
+     */
+    public NetworkMetrics getNetworkMetrics() {
+        return NetworkModule.provideNetworkMetrics();
+    }
+
+    public SendQueue getSendQueue() {
+        return sendQueue;
+    }
+
+    public ConnectionPrewarmer getConnectionPrewarmer() {
+        return connectionPrewarmer;
+    }
+
     public ExecutorService getExecutorService() {
         return executorService;
     }
@@ -228,35 +264,19 @@ public class AppContainer {
         return settingsDao;
     }
 
-    /**
-     * Get encrypted shared preferences for secure storage.
-     */
-    private SharedPreferences getSecurePreferences() throws Exception {
-        MasterKey masterKey = new MasterKey.Builder(applicationContext)
-                .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
-                .build();
-
-        return EncryptedSharedPreferences.create(
-                applicationContext,
-                PREF_NAME,
-                masterKey,
-                EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
-                EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
-        );
-    }
-
     /**
      * Clean up resources. Should be called when application is terminated.
      */
     public void cleanup() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
+        // Repositories first: cancelling a generation still posts its final write
         if (chatRepository instanceof ChatRepositoryImpl) {
             ((ChatRepositoryImpl) chatRepository).cleanup();
         }
         if (modelRepository != null) {
             modelRepository.cleanup();
         }
+        if (executorService != null && !executorService.isShutdown()) {
+            executorService.shutdown();
+        }
     }
 }
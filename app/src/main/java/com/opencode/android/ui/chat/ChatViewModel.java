@@ -2,11 +2,14 @@ package com.opencode.android.ui.chat;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
 import com.opencode.android.data.local.entity.MessageEntity;
 import com.opencode.android.data.local.entity.SessionEntity;
+import com.opencode.android.data.remote.ConnectionPrewarmer;
 import com.opencode.android.data.repository.ChatRepository;
+import com.opencode.android.data.repository.InFlightMessage;
 import com.opencode.android.data.repository.ModelRepository;
 
 import java.util.ArrayList;
@@ -19,19 +22,30 @@ public class ChatViewModel extends ViewModel {
 
     private final ChatRepository chatRepository;
     private final ModelRepository modelRepository;
+    private final ConnectionPrewarmer connectionPrewarmer;
 
     private final MutableLiveData<String> currentSessionId = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isStreaming = new MutableLiveData<>(false);
     private final MutableLiveData<Integer> tokenCount = new MutableLiveData<>(0);
+    private final MutableLiveData<InFlightMessage> streamingMessage = new MutableLiveData<>();
+
+    private List<MessageEntity> persistedMessages;
+    private InFlightMessage inFlightMessage;
+    private LiveData<List<MessageEntity>> persistedSource;
+    private Observer<List<MessageEntity>> persistedObserver;
+    private LiveData<InFlightMessage> inFlightSource;
+    private Observer<InFlightMessage> inFlightObserver;
 
     /**
      * Constructor with manual dependency injection.
      */
-    public ChatViewModel(ChatRepository chatRepository, ModelRepository modelRepository) {
+    public ChatViewModel(ChatRepository chatRepository, ModelRepository modelRepository,
+                         ConnectionPrewarmer connectionPrewarmer) {
         this.chatRepository = chatRepository;
         this.modelRepository = modelRepository;
+        this.connectionPrewarmer = connectionPrewarmer;
     }
 
     // Session operations
@@ -78,16 +92,83 @@ public class ChatViewModel extends ViewModel {
         isLoading.setValue(true);
         isStreaming.setValue(true);
 
-        // Save user message
-        MessageEntity userMessage = MessageEntity.user(sessionId, content.trim());
-        chatRepository.saveMessage(userMessage);
+        // Repository saves the user message and sends it with the session history
+        chatRepository.sendMessage(sessionId, content, true);
+    }
 
-        // Get history and send to API
-        List<MessageEntity> history = new ArrayList<>();
-        LiveData<List<MessageEntity>> messagesLiveData = chatRepository.getMessagesBySessionId(sessionId);
+    /**
+     * Call when the message input gains focus, so the connection is warm by the time
+     * the user sends.
+     */
+    public void onComposeFocused() {
+        connectionPrewarmer.prewarm();
+    }
 
-        // Note: In production, properly observe and collect history
-        chatRepository.sendMessage(sessionId, content, true);
+    /**
+     * Stop the answer being generated for a session, keeping what has arrived so far.
+     */
+    public void stopGeneration(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        chatRepository.cancelGeneration(sessionId);
+        setStreaming(false);
+    }
+
+    /**
+     * Observe the answer currently streaming into a session, updated at most once per frame.
+     * Emits null, and releases the overlay, once the persisted copy of the answer is complete.
+     */
+    public LiveData<InFlightMessage> getStreamingMessage(String sessionId) {
+        detachStreamingSources();
+        persistedMessages = null;
+        inFlightMessage = null;
+        streamingMessage.setValue(null);
+
+        persistedSource = chatRepository.getMessagesBySessionId(sessionId);
+        persistedObserver = messageEntities -> {
+            persistedMessages = messageEntities;
+            publishStreamingMessage(sessionId);
+        };
+        persistedSource.observeForever(persistedObserver);
+
+        inFlightSource = chatRepository.getInFlightMessage(sessionId);
+        inFlightObserver = inFlightMessage -> {
+            this.inFlightMessage = inFlightMessage;
+            publishStreamingMessage(sessionId);
+        };
+        inFlightSource.observeForever(inFlightObserver);
+        return streamingMessage;
+    }
+
+    /**
+     * Publish the overlay unless Room already holds the completed answer.
+     */
+    private void publishStreamingMessage(String sessionId) {
+        InFlightMessage live = inFlightMessage;
+        if (live != null && persistedMessages != null) {
+            for (MessageEntity message : persistedMessages) {
+                if (message.getId().equals(live.getMessageId()) && message.isComplete()) {
+                    // Persisted copy has caught up; the overlay is no longer needed
+                    inFlightMessage = null;
+                    live = null;
+                    chatRepository.releaseInFlightMessage(sessionId, message.getId());
+                    break;
+                }
+            }
+        }
+        streamingMessage.setValue(live);
+    }
+
+    private void detachStreamingSources() {
+        if (persistedSource != null) {
+            persistedSource.removeObserver(persistedObserver);
+            persistedSource = null;
+        }
+        if (inFlightSource != null) {
+            inFlightSource.removeObserver(inFlightObserver);
+            inFlightSource = null;
+        }
     }
 
     public void sendMessageWithHistory(String sessionId, List<MessageEntity> history) {
@@ -156,6 +237,10 @@ public class ChatViewModel extends ViewModel {
         modelRepository.fetchModels();
     }
 
+    public void refreshModels() {
+        modelRepository.refreshModels();
+    }
+
     public LiveData<Boolean> modelsLoading() {
         return modelRepository.isLoading();
     }
@@ -175,6 +260,7 @@ public class ChatViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        detachStreamingSources();
         modelRepository.cleanup();
     }
 
@@ -184,16 +270,19 @@ public class ChatViewModel extends ViewModel {
     public static class Factory implements androidx.lifecycle.ViewModelProvider.Factory {
         private final ChatRepository chatRepository;
         private final ModelRepository modelRepository;
+        private final ConnectionPrewarmer connectionPrewarmer;
 
-        public Factory(ChatRepository chatRepository, ModelRepository modelRepository) {
+        public Factory(ChatRepository chatRepository, ModelRepository modelRepository,
+                       ConnectionPrewarmer connectionPrewarmer) {
             this.chatRepository = chatRepository;
             this.modelRepository = modelRepository;
+            this.connectionPrewarmer = connectionPrewarmer;
         }
 
         @Override
         public <T extends ViewModel> T create(Class<T> modelClass) {
             if (modelClass.isAssignableFrom(ChatViewModel.class)) {
-                return (T) new ChatViewModel(chatRepository, modelRepository);
+                return (T) new ChatViewModel(chatRepository, modelRepository, connectionPrewarmer);
             }
             throw new IllegalArgumentException("Unknown ViewModel class");
         }
@@ -54,7 +54,8 @@ public class MainActivity extends AppCompatActivity implements
             if (appContainer != null && appContainer.getChatRepository() != null && appContainer.getModelRepository() != null) {
                 viewModel = new ViewModelProvider(this, new ChatViewModel.Factory(
                         appContainer.getChatRepository(),
-                        appContainer.getModelRepository()
+                        appContainer.getModelRepository(),
+                        appContainer.getConnectionPrewarmer()
                 )).get(ChatViewModel.class);
             } else {
                 showError("Failed to initialize app. Please restart.");
@@ -112,7 +113,7 @@ public class MainActivity extends AppCompatActivity implements
 
         // Setup swipe to refresh
         binding.swipeRefresh.setOnRefreshListener(() -> {
-            viewModel.fetchModels();
+            viewModel.refreshModels();
             binding.swipeRefresh.setRefreshing(false);
         });
     }
@@ -2,11 +2,13 @@ package com.opencode.android.ui.session;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
 import com.opencode.android.data.local.entity.MessageEntity;
 import com.opencode.android.data.local.entity.SessionEntity;
 import com.opencode.android.data.repository.ChatRepository;
+import com.opencode.android.data.repository.InFlightMessage;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +24,15 @@ public class SessionDetailViewModel extends ViewModel {
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
 
+    private List<MessageEntity> persistedMessages;
+    private InFlightMessage inFlightMessage;
+    private LiveData<SessionEntity> sessionSource;
+    private Observer<SessionEntity> sessionObserver;
+    private LiveData<List<MessageEntity>> messagesSource;
+    private Observer<List<MessageEntity>> messagesObserver;
+    private LiveData<InFlightMessage> inFlightSource;
+    private Observer<InFlightMessage> inFlightObserver;
+
     public SessionDetailViewModel(ChatRepository chatRepository) {
         this.chatRepository = chatRepository;
     }
@@ -51,20 +62,67 @@ public class SessionDetailViewModel extends ViewModel {
 
         isLoading.setValue(true);
 
+        // Stop observing the previous load, so its overlay is not merged into this one
+        detachSources();
+        persistedMessages = null;
+        inFlightMessage = null;
+
         // Observe session from repository
-        chatRepository.getSessionById(sessionId).observeForever(sessionEntity -> {
+        sessionSource = chatRepository.getSessionById(sessionId);
+        sessionObserver = sessionEntity -> {
             if (sessionEntity != null) {
                 session.setValue(sessionEntity);
             }
             isLoading.setValue(false);
-        });
+        };
+        sessionSource.observeForever(sessionObserver);
 
         // Observe messages from repository
-        chatRepository.getMessagesBySessionId(sessionId).observeForever(messageEntities -> {
+        messagesSource = chatRepository.getMessagesBySessionId(sessionId);
+        messagesObserver = messageEntities -> {
             if (messageEntities != null) {
-                messages.setValue(messageEntities);
+                persistedMessages = messageEntities;
+                publishMessages(sessionId);
+            }
+        };
+        messagesSource.observeForever(messagesObserver);
+
+        // Overlay the text of a streaming answer without waiting for Room
+        inFlightSource = chatRepository.getInFlightMessage(sessionId);
+        inFlightObserver = inFlightMessage -> {
+            this.inFlightMessage = inFlightMessage;
+            publishMessages(sessionId);
+        };
+        inFlightSource.observeForever(inFlightObserver);
+    }
+
+    /**
+     * Merge the persisted messages with the in-flight overlay, if any.
+     */
+    private void publishMessages(String sessionId) {
+        if (persistedMessages == null) {
+            return;
+        }
+        InFlightMessage live = inFlightMessage;
+        if (live == null) {
+            messages.setValue(persistedMessages);
+            return;
+        }
+
+        List<MessageEntity> merged = new ArrayList<>(persistedMessages.size());
+        for (MessageEntity message : persistedMessages) {
+            if (!message.getId().equals(live.getMessageId())) {
+                merged.add(message);
+            } else if (message.isComplete()) {
+                // Persisted copy has caught up; the overlay is no longer needed
+                merged.add(message);
+                inFlightMessage = null;
+                chatRepository.releaseInFlightMessage(sessionId, live.getMessageId());
+            } else {
+                merged.add(message.copyWithContent(live.getContent()));
             }
-        });
+        }
+        messages.setValue(merged);
     }
 
     public void sendMessage(String content) {
@@ -85,6 +143,22 @@ public class SessionDetailViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        detachSources();
+    }
+
+    private void detachSources() {
+        if (sessionSource != null) {
+            sessionSource.removeObserver(sessionObserver);
+            sessionSource = null;
+        }
+        if (messagesSource != null) {
+            messagesSource.removeObserver(messagesObserver);
+            messagesSource = null;
+        }
+        if (inFlightSource != null) {
+            inFlightSource.removeObserver(inFlightObserver);
+            inFlightSource = null;
+        }
     }
 
     /**
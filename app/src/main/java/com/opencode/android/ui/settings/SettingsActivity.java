@@ -15,6 +15,7 @@ import com.google.android.material.snackbar.Snackbar;
 import com.opencode.android.OpenCodeApplication;
 import com.opencode.android.R;
 import com.opencode.android.databinding.ActivitySettingsBinding;
+import com.opencode.android.di.AppContainer;
 import com.opencode.android.ui.chat.ChatViewModel;
 
 /**
@@ -38,7 +39,8 @@ public class SettingsActivity extends AppCompatActivity {
         // Initialize ViewModel with manual dependency injection
         viewModel = new ViewModelProvider(this, new ChatViewModel.Factory(
                 OpenCodeApplication.getAppContainer().getChatRepository(),
-                OpenCodeApplication.getAppContainer().getModelRepository()
+                OpenCodeApplication.getAppContainer().getModelRepository(),
+                OpenCodeApplication.getAppContainer().getConnectionPrewarmer()
         )).get(ChatViewModel.class);
 
         setupToolbar();
@@ -115,18 +117,35 @@ public class SettingsActivity extends AppCompatActivity {
             return;
         }
 
-        // Save API key (in production, use encrypted storage)
         getSharedPreferences("opencode_prefs", MODE_PRIVATE)
                 .edit()
-                .putString("api_key", apiKey)
                 .putString("api_base_url", baseUrl.isEmpty() ?
                         "https://opencode.ai/zen/v1/" : baseUrl)
                 .apply();
 
+        // API key goes to encrypted storage and refreshes the cached credential. The first
+        // save creates the Keystore master key, which is too slow for the main thread.
+        binding.buttonSaveApiKey.setEnabled(false);
+        AppContainer container = OpenCodeApplication.getAppContainer();
+        container.getExecutorService().execute(() -> {
+            boolean saved = container.saveApiKey(apiKey);
+            runOnUiThread(() -> onApiKeySaved(saved));
+        });
+    }
+
+    private void onApiKeySaved(boolean saved) {
+        if (isDestroyed()) {
+            return;
+        }
+        binding.buttonSaveApiKey.setEnabled(true);
+        if (!saved) {
+            showError(getString(R.string.error_unknown));
+            return;
+        }
         showSuccess(getString(R.string.action_save));
 
         // Test API connection
-        viewModel.fetchModels();
+        viewModel.refreshModels();
     }
 
     private void applyTheme(String theme) {
@@ -0,0 +1,107 @@
+package com.opencode.android.data.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests for ConnectionPrewarmer.
+ */
+public class ConnectionPrewarmerTest {
+
+    private MockWebServer server;
+    private ExecutorService executor;
+    private OkHttpClient client;
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Before
+    public void setup() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        // One dispatcher thread, so a queued no-op runs after the warm-up callback
+        executor = Executors.newSingleThreadExecutor();
+        client = new OkHttpClient.Builder()
+                .dispatcher(new Dispatcher(executor))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void prewarm_shouldSendHeadToBaseUrl() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setResponseCode(404));
+        ConnectionPrewarmer prewarmer = prewarmer(true);
+
+        // Act
+        prewarmer.prewarm();
+
+        // Assert
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("HEAD", request.getMethod());
+        assertEquals("/zen/v1/", request.getPath());
+    }
+
+    @Test
+    public void prewarm_shouldSkipWhileRecentWarmUpIsAlive() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse());
+        ConnectionPrewarmer prewarmer = prewarmer(true);
+        prewarmer.prewarm();
+        server.takeRequest(5, TimeUnit.SECONDS);
+        awaitCallbacks();
+
+        // Act
+        now.addAndGet(ConnectionPrewarmer.MIN_INTERVAL_MS - 1);
+        prewarmer.prewarm();
+        awaitCallbacks();
+        now.addAndGet(1);
+        prewarmer.prewarm();
+        awaitCallbacks();
+
+        // Assert
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void prewarm_onDisallowedNetwork_shouldNotConnect() throws Exception {
+        // Arrange
+        ConnectionPrewarmer prewarmer = prewarmer(false);
+
+        // Act
+        prewarmer.prewarm();
+        awaitCallbacks();
+
+        // Assert
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private ConnectionPrewarmer prewarmer(boolean networkAllowed) {
+        return new ConnectionPrewarmer(client, server.url("/zen/v1/").toString(),
+                () -> networkAllowed, now::get);
+    }
+
+    private void awaitCallbacks() throws Exception {
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,184 @@
+package com.opencode.android.data.remote;
+
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CredentialProvider.
+ */
+public class CredentialProviderTest {
+
+    private static final int LOOKUPS = 1_000_000;
+
+    private CountingStore store;
+    private CredentialProvider credentialProvider;
+
+    @Before
+    public void setUp() {
+        store = new CountingStore("sk-test");
+        credentialProvider = new CredentialProvider(store);
+    }
+
+    @Test
+    public void getBearerToken_shouldLoadStorageOnce() {
+        // Act
+        for (int i = 0; i < 100; i++) {
+            credentialProvider.getBearerToken();
+        }
+
+        // Assert
+        assertEquals("Bearer sk-test", credentialProvider.getBearerToken());
+        assertEquals(1, store.loads);
+    }
+
+    @Test
+    public void getBearerToken_shouldCostNanosecondsOnceCached() {
+        // Arrange
+        credentialProvider.getBearerToken();
+        int sink = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sink += credentialProvider.getBearerToken().length();
+        }
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sink += credentialProvider.getBearerToken().length();
+        }
+        long perLookupNs = (System.nanoTime() - start) / LOOKUPS;
+
+        // Assert: a Keystore-backed decrypt takes milliseconds
+        assertTrue("Lookup took " + perLookupNs + " ns", perLookupNs < 1_000);
+        assertTrue(sink > 0);
+        assertEquals(1, store.loads);
+    }
+
+    @Test
+    public void saveApiKey_shouldReplaceCachedToken() {
+        // Arrange
+        credentialProvider.getBearerToken();
+
+        // Act
+        boolean saved = credentialProvider.saveApiKey("sk-new");
+
+        // Assert
+        assertTrue(saved);
+        assertEquals("Bearer sk-new", credentialProvider.getBearerToken());
+        assertEquals("sk-new", store.value);
+        assertEquals(1, store.loads);
+    }
+
+    @Test
+    public void clearApiKey_shouldDropCachedToken() {
+        // Arrange
+        credentialProvider.getBearerToken();
+
+        // Act
+        credentialProvider.clearApiKey();
+
+        // Assert
+        assertNull(credentialProvider.getBearerToken());
+        assertFalse(credentialProvider.hasCredentials());
+        assertEquals(1, store.loads);
+    }
+
+    @Test
+    public void getBearerToken_shouldRetryAfterLoadFailure() {
+        // Arrange
+        store.failNextLoad = true;
+
+        // Act
+        String first = credentialProvider.getBearerToken();
+        String second = credentialProvider.getBearerToken();
+
+        // Assert
+        assertNull(first);
+        assertEquals("Bearer sk-test", second);
+        assertEquals(2, store.loads);
+    }
+
+    @Test
+    public void saveApiKey_shouldRemovePlaintextCopy() {
+        // Arrange: an install upgraded from a version that kept the key in plaintext
+        SharedPreferences legacyPreferences = mock(SharedPreferences.class);
+        SharedPreferences.Editor editor = mock(SharedPreferences.Editor.class);
+        when(legacyPreferences.edit()).thenReturn(editor);
+        when(editor.remove("api_key")).thenReturn(editor);
+        credentialProvider = new CredentialProvider(store, legacyPreferences);
+
+        // Act
+        boolean saved = credentialProvider.saveApiKey("sk-new");
+        credentialProvider.saveApiKey("sk-newer");
+
+        // Assert: removed once, and only after the encrypted save
+        assertTrue(saved);
+        assertEquals("sk-newer", store.value);
+        verify(editor, times(1)).remove("api_key");
+        verify(editor, times(1)).apply();
+    }
+
+    @Test
+    public void saveApiKey_whenStoreFails_shouldKeepPlaintextCopy() {
+        // Arrange
+        SharedPreferences legacyPreferences = mock(SharedPreferences.class);
+        store.failNextSave = true;
+        credentialProvider = new CredentialProvider(store, legacyPreferences);
+
+        // Act
+        boolean saved = credentialProvider.saveApiKey("sk-new");
+
+        // Assert
+        assertFalse(saved);
+        verifyNoInteractions(legacyPreferences);
+    }
+
+    /**
+     * In-memory store counting how often the key is decrypted.
+     */
+    private static class CountingStore implements CredentialProvider.SecretStore {
+        String value;
+        int loads;
+        boolean failNextLoad;
+        boolean failNextSave;
+
+        CountingStore(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String load() throws Exception {
+            loads++;
+            if (failNextLoad) {
+                failNextLoad = false;
+                throw new Exception("Keystore unavailable");
+            }
+            return value;
+        }
+
+        @Override
+        public void save(String apiKey) throws Exception {
+            if (failNextSave) {
+                failNextSave = false;
+                throw new Exception("Keystore unavailable");
+            }
+            value = apiKey;
+        }
+
+        @Override
+        public void clear() {
+            value = null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.opencode.android.data.remote;
+
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.remote.zen.ZenApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for NetworkMetrics against a local server.
+ */
+public class NetworkMetricsTest {
+
+    private MockWebServer server;
+    // Each reading of the clock is one millisecond after the previous one
+    private final AtomicLong now = new AtomicLong();
+    private NetworkMetrics metrics;
+    private ZenApiService apiService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        metrics = new NetworkMetrics(() -> now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1)));
+        OkHttpClient client = new OkHttpClient.Builder()
+                .eventListenerFactory(metrics.eventListenerFactory())
+                .build();
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/zen/v1/"))
+                .client(client)
+                .addConverterFactory(retrofit2.converter.gson.GsonConverterFactory.create())
+                .build()
+                .create(ZenApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void stream_shouldRecordPhasesByEndpointAndModel() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("data: [DONE]\n\n"));
+        RequestBody body = RequestBody.create("{}", MediaType.get("application/json"));
+
+        // Act
+        Response<ResponseBody> response = apiService.createStream("Bearer key", "messages", body,
+                request("claude-sonnet-4-5")).execute();
+        response.body().string();
+
+        // Assert
+        for (NetworkMetrics.Phase phase : new NetworkMetrics.Phase[]{NetworkMetrics.Phase.CONNECT,
+                NetworkMetrics.Phase.REQUEST, NetworkMetrics.Phase.SERVER, NetworkMetrics.Phase.BODY,
+                NetworkMetrics.Phase.TOTAL}) {
+            NetworkMetrics.Histogram.Snapshot snapshot = metrics.getHistogram(
+                    NetworkMetrics.ENDPOINT_MESSAGES, "claude-sonnet-4-5", phase);
+            assertNotNull(phase.name(), snapshot);
+            assertEquals(phase.name(), 1, snapshot.count);
+        }
+        // Plain HTTP to a local address
+        assertEquals(0, metrics.getHistogram(NetworkMetrics.ENDPOINT_MESSAGES, "claude-sonnet-4-5",
+                NetworkMetrics.Phase.TLS).count);
+    }
+
+    @Test
+    public void reusedConnection_shouldSkipConnectPhase() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("{\"object\":\"list\",\"data\":[]}"));
+        server.enqueue(new MockResponse().setBody("{\"object\":\"list\",\"data\":[]}"));
+
+        // Act
+        apiService.getModels("Bearer key").execute();
+        apiService.getModels("Bearer key").execute();
+
+        // Assert
+        assertEquals(2, metrics.getHistogram(NetworkMetrics.ENDPOINT_MODELS, NetworkMetrics.NO_MODEL,
+                NetworkMetrics.Phase.TOTAL).count);
+        assertEquals(1, metrics.getHistogram(NetworkMetrics.ENDPOINT_MODELS, NetworkMetrics.NO_MODEL,
+                NetworkMetrics.Phase.CONNECT).count);
+        assertTrue(metrics.dump().startsWith("models - failures=0\n"));
+    }
+
+    @Test
+    public void failedCall_shouldCountFailure() throws Exception {
+        // Arrange
+        server.shutdown();
+
+        // Act
+        try {
+            apiService.createCompletion("Bearer key", request("glm-4.7")).execute();
+        } catch (IOException expected) {
+            // Connection refused
+        }
+
+        // Assert
+        assertEquals(1, metrics.getFailureCount(NetworkMetrics.ENDPOINT_CHAT_COMPLETIONS, "glm-4.7"));
+        NetworkMetrics.Histogram.Snapshot total = metrics.getHistogram(
+                NetworkMetrics.ENDPOINT_CHAT_COMPLETIONS, "glm-4.7", NetworkMetrics.Phase.TOTAL);
+        assertTrue(total == null || total.count == 0);
+    }
+
+    @Test
+    public void endpointOf_shouldClassifyZenPaths() {
+        assertEquals(NetworkMetrics.ENDPOINT_CHAT_COMPLETIONS,
+                NetworkMetrics.endpointOf(HttpUrl.get("https://opencode.ai/zen/v1/chat/completions")));
+        assertEquals(NetworkMetrics.ENDPOINT_MODELS,
+                NetworkMetrics.endpointOf(HttpUrl.get("https://opencode.ai/zen/v1/models/glm-4.7")));
+        assertEquals(NetworkMetrics.ENDPOINT_RESPONSES,
+                NetworkMetrics.endpointOf(HttpUrl.get("https://opencode.ai/zen/v1/responses")));
+        assertEquals(NetworkMetrics.ENDPOINT_OTHER,
+                NetworkMetrics.endpointOf(HttpUrl.get("https://opencode.ai/zen/v1/")));
+    }
+
+    @Test
+    public void histogram_shouldReportBucketPercentiles() {
+        // Arrange
+        NetworkMetrics.Histogram histogram = new NetworkMetrics.Histogram();
+
+        // Act
+        for (long ms : new long[]{3, 40, 40, 40, 700}) {
+            histogram.add(ms);
+        }
+
+        // Assert
+        NetworkMetrics.Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(5, snapshot.count);
+        assertEquals(50, snapshot.getPercentileMs(0.5));
+        assertEquals(700, snapshot.getPercentileMs(0.99));
+        assertEquals(164, snapshot.getMeanMs());
+    }
+
+    private static ChatRequest request(String model) {
+        return new ChatRequest(model, Collections.singletonList(ChatMessage.user("Hi")));
+    }
+}
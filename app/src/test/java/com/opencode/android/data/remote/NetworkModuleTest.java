@@ -0,0 +1,104 @@
+package com.opencode.android.data.remote;
+
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.remote.zen.ZenApiService;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for NetworkModule client configuration.
+ */
+public class NetworkModuleTest {
+
+    private final CredentialProvider credentialProvider = new CredentialProvider(
+            new CredentialProvider.SecretStore() {
+                @Override
+                public String load() {
+                    return "sk-test";
+                }
+
+                @Override
+                public void save(String apiKey) {
+                }
+
+                @Override
+                public void clear() {
+                }
+            });
+
+    @Test
+    public void createOkHttpClient_shouldApplyDispatcherLimitsAndHttp2() {
+        // Act
+        OkHttpClient client = NetworkModule.createOkHttpClient(credentialProvider,
+                new NetworkModule.ClientConfig().maxRequests(32).maxRequestsPerHost(10));
+
+        // Assert
+        assertEquals(32, client.dispatcher().getMaxRequests());
+        assertEquals(10, client.dispatcher().getMaxRequestsPerHost());
+        assertTrue(client.protocols().contains(Protocol.HTTP_2));
+    }
+
+    @Test
+    public void derivedClient_shouldSharePoolAndDispatcher() {
+        // Arrange
+        OkHttpClient client = NetworkModule.createOkHttpClient(credentialProvider, new NetworkModule.ClientConfig());
+
+        // Act
+        OkHttpClient streaming = client.newBuilder().readTimeout(300, TimeUnit.SECONDS).build();
+
+        // Assert
+        assertSame(client.connectionPool(), streaming.connectionPool());
+        assertSame(client.dispatcher(), streaming.dispatcher());
+        assertEquals(300_000, streaming.readTimeoutMillis());
+    }
+
+    @Test
+    public void authInterceptor_shouldOnlyDefaultAcceptToJson() throws IOException, InterruptedException {
+        // Arrange
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.enqueue(new MockResponse().setBody("data: [DONE]\n\n"));
+        server.start();
+        try {
+            OkHttpClient client = NetworkModule.createOkHttpClient(credentialProvider,
+                    new NetworkModule.ClientConfig());
+            ZenApiService apiService = new Retrofit.Builder()
+                    .baseUrl(server.url("/zen/v1/"))
+                    .client(client)
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build()
+                    .create(ZenApiService.class);
+
+            // Act
+            client.newCall(new Request.Builder().url(server.url("/zen/v1/models")).build()).execute().close();
+            apiService.stream(null, new ChatRequest.Builder().model("glm-4.7").stream(true).build())
+                    .execute().body().close();
+
+            // Assert
+            RecordedRequest plain = server.takeRequest();
+            assertEquals("Bearer sk-test", plain.getHeader("Authorization"));
+            assertEquals("application/json", plain.getHeader("Accept"));
+            RecordedRequest stream = server.takeRequest();
+            assertEquals("Bearer sk-test", stream.getHeader("Authorization"));
+            assertEquals("text/event-stream", stream.getHeader("Accept"));
+        } finally {
+            server.shutdown();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.opencode.android.data.remote;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for RequestScheduler.
+ */
+public class RequestSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    public void enqueue_shouldRespectClassAndTotalLimits() {
+        // Arrange
+        RequestScheduler scheduler = new RequestScheduler(2, 1, 2, now::get);
+
+        // Act
+        scheduler.enqueue(RequestPriority.BACKGROUND, () -> started.add("b1"));
+        scheduler.enqueue(RequestPriority.BACKGROUND, () -> started.add("b2"));
+        scheduler.enqueue(RequestPriority.INTERACTIVE, () -> started.add("i1"));
+        scheduler.enqueue(RequestPriority.INTERACTIVE, () -> started.add("i2"));
+
+        // Assert
+        assertEquals(Arrays.asList("b1", "i1"), started);
+        assertEquals(1, scheduler.getStats(RequestPriority.BACKGROUND).queued);
+        assertEquals(1, scheduler.getStats(RequestPriority.INTERACTIVE).queued);
+    }
+
+    @Test
+    public void release_shouldAdmitQueuedInteractiveBeforeBackground() {
+        // Arrange
+        RequestScheduler scheduler = new RequestScheduler(1, 1, 1, now::get);
+        scheduler.enqueue(RequestPriority.BACKGROUND, () -> started.add("b1"));
+        scheduler.enqueue(RequestPriority.BACKGROUND, () -> started.add("b2"));
+        scheduler.enqueue(RequestPriority.INTERACTIVE, () -> started.add("i1"));
+
+        // Act
+        now.set(250);
+        scheduler.release(RequestPriority.BACKGROUND);
+
+        // Assert
+        assertEquals(Arrays.asList("b1", "i1"), started);
+        RequestScheduler.Stats interactive = scheduler.getStats(RequestPriority.INTERACTIVE);
+        assertEquals(1, interactive.admitted);
+        assertEquals(250, interactive.maxWaitMs);
+
+        // Act
+        scheduler.release(RequestPriority.INTERACTIVE);
+
+        // Assert
+        assertEquals(Arrays.asList("b1", "i1", "b2"), started);
+    }
+
+    @Test
+    public void cancel_shouldRemoveOnlyQueuedTickets() {
+        // Arrange
+        RequestScheduler scheduler = new RequestScheduler(1, 1, 1, now::get);
+        RequestScheduler.Ticket running = scheduler.enqueue(RequestPriority.INTERACTIVE, () -> started.add("i1"));
+        RequestScheduler.Ticket queued = scheduler.enqueue(RequestPriority.INTERACTIVE, () -> started.add("i2"));
+
+        // Act & Assert
+        assertFalse(scheduler.cancel(running));
+        assertTrue(scheduler.cancel(queued));
+        scheduler.release(RequestPriority.INTERACTIVE);
+        assertEquals(Arrays.asList("i1"), started);
+        assertEquals(0, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+    }
+}
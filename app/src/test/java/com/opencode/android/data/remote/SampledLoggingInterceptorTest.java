@@ -0,0 +1,143 @@
+package com.opencode.android.data.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for SampledLoggingInterceptor.
+ */
+public class SampledLoggingInterceptorTest {
+
+    private final List<String> logs = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    private final SampledLoggingInterceptor.Logger logger = new SampledLoggingInterceptor.Logger() {
+        @Override
+        public void log(String message) {
+            logs.add(message);
+        }
+
+        @Override
+        public void logFailure(String message) {
+            failures.add(message);
+        }
+    };
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void intercept_shouldLogAfterBodyIsClosedWithRedactedHeaders() throws IOException {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("0123456789abcdef"));
+        OkHttpClient client = client(SampledLoggingInterceptor.Level.BODY, 1.0, 8);
+
+        // Act
+        try (Response response = client.newCall(post("{\"messages\":[]}")).execute()) {
+            assertTrue(logs.isEmpty());
+            assertEquals("0123456789abcdef", response.body().string());
+        }
+
+        // Assert
+        assertEquals(1, logs.size());
+        String log = logs.get(0);
+        assertTrue(log, log.contains("Authorization: \u2588\u2588"));
+        assertFalse(log, log.contains("sk-secret"));
+        assertTrue(log, log.contains("[last 8 of 15 bytes] ges\":[]}"));
+        assertTrue(log, log.contains("16 bytes read"));
+        assertTrue(log, log.contains("[last 8 of 16 bytes] 89abcdef"));
+    }
+
+    @Test
+    public void intercept_shouldSkipUnsampledRequests() throws IOException {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("ok"));
+        OkHttpClient client = client(SampledLoggingInterceptor.Level.BODY, 0.0, 8);
+
+        // Act
+        try (Response response = client.newCall(post("{}")).execute()) {
+            response.body().string();
+        }
+
+        // Assert
+        assertTrue(logs.isEmpty());
+    }
+
+    @Test
+    public void intercept_whenCallFails_shouldLogFailureEvenIfUnsampled() {
+        // Arrange
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        OkHttpClient client = client(SampledLoggingInterceptor.Level.BASIC, 0.0, 0).newBuilder()
+                .retryOnConnectionFailure(false)
+                .build();
+
+        // Act
+        try {
+            client.newCall(post("{}")).execute().close();
+            fail("Expected the call to fail");
+        } catch (IOException expected) {
+            // Reported through logFailure below
+        }
+
+        // Assert
+        assertTrue(logs.isEmpty());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0), failures.get(0).startsWith("<-- HTTP FAILED POST /zen/v1/chat/completions"));
+    }
+
+    @Test
+    public void ringBuffer_shouldKeepLastBytesAcrossWrites() {
+        // Arrange
+        SampledLoggingInterceptor.RingBuffer ring = new SampledLoggingInterceptor.RingBuffer(4);
+
+        // Act
+        ring.write(new Buffer().writeUtf8("abc"), 0, 3);
+        ring.write(new Buffer().writeUtf8("xxdefg"), 2, 4);
+
+        // Assert
+        assertEquals(7, ring.total());
+        assertEquals("[last 4 of 7 bytes] defg", ring.describe());
+    }
+
+    private OkHttpClient client(SampledLoggingInterceptor.Level level, double sampleRate, int maxBodyBytes) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new SampledLoggingInterceptor(level, sampleRate, maxBodyBytes, logger))
+                .build();
+    }
+
+    private Request post(String json) {
+        return new Request.Builder()
+                .url(server.url("/zen/v1/chat/completions"))
+                .header("Authorization", "Bearer sk-secret")
+                .post(RequestBody.create(json, MediaType.get("application/json")))
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.opencode.android.data.remote;
+
+import com.opencode.android.data.remote.zen.ZenApiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for ScheduledCallFactory against a local server.
+ */
+public class ScheduledCallFactoryTest {
+
+    private MockWebServer server;
+    private RequestScheduler scheduler;
+    private ScheduledCallFactory callFactory;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        scheduler = new RequestScheduler(1, 1, 1);
+        callFactory = new ScheduledCallFactory(new OkHttpClient(), scheduler);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void retrofitCall_shouldUseMethodPriorityAndReleaseSlot() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("{\"object\":\"list\",\"data\":[]}"));
+        ZenApiService apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/zen/v1/"))
+                .callFactory(callFactory)
+                .addConverterFactory(retrofit2.converter.gson.GsonConverterFactory.create())
+                .build()
+                .create(ZenApiService.class);
+
+        // Act
+        apiService.getModels("Bearer key").execute();
+
+        // Assert
+        RequestScheduler.Stats background = scheduler.getStats(RequestPriority.BACKGROUND);
+        assertEquals(1, background.admitted);
+        assertEquals(0, background.running);
+        assertEquals(0, scheduler.getStats(RequestPriority.INTERACTIVE).admitted);
+    }
+
+    @Test
+    public void execute_shouldHoldSlotUntilBodyClosed() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("data"));
+
+        // Act
+        okhttp3.Response response = callFactory.newCall(request()).execute();
+
+        // Assert
+        assertEquals(1, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+        response.close();
+        assertEquals(0, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+    }
+
+    @Test
+    public void execute_eventStream_shouldReleaseSlotOnceHeadersArrive() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream; charset=utf-8")
+                .setBody("data: {}\n\n"));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        // Act
+        okhttp3.Response stream = callFactory.newCall(request()).execute();
+        okhttp3.Response other = callFactory.newCall(request()).execute();
+
+        // Assert: the open stream does not block the next call from its only slot
+        assertEquals(1, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+        other.close();
+        assertEquals(0, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+        assertEquals("data: {}", stream.body().source().readUtf8LineStrict());
+        stream.close();
+        assertEquals(0, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+        assertEquals(2, scheduler.getStats(RequestPriority.INTERACTIVE).admitted);
+    }
+
+    @Test
+    public void cancel_whileQueued_shouldFailWithoutTakingSlot() throws Exception {
+        // Arrange: occupy the only slot
+        server.enqueue(new MockResponse().setBody("data"));
+        okhttp3.Response holder = callFactory.newCall(request()).execute();
+        okhttp3.Call queued = callFactory.newCall(request());
+        Thread canceller = new Thread(() -> {
+            while (scheduler.getStats(RequestPriority.INTERACTIVE).queued == 0) {
+                Thread.yield();
+            }
+            queued.cancel();
+        });
+        canceller.start();
+
+        // Act
+        try {
+            queued.execute();
+            fail("Expected the queued call to be canceled");
+        } catch (IOException expected) {
+            // Canceled
+        }
+        canceller.join();
+
+        // Assert
+        assertTrue(queued.isCanceled());
+        holder.close();
+        assertEquals(0, scheduler.getStats(RequestPriority.INTERACTIVE).running);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private Request request() {
+        return new Request.Builder().url(server.url("/")).build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.opencode.android.data.model.zen.ChatResponse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for ChatResponseDecoder.
+ */
+public class ChatResponseDecoderTest {
+
+    private static final String RESPONSE = "{\"id\":\"chatcmpl-8f2a\",\"object\":\"chat.completion\","
+            + "\"created\":1718000000,\"model\":\"glm-4.7\",\"system_fingerprint\":null,"
+            + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+            + "\"content\":\"Hello \\\"w\\u00f6rld\\\"\\n\",\"tool_calls\":[{\"id\":\"call_1\",\"type\":\"function\","
+            + "\"function\":{\"name\":\"read\",\"arguments\":\"{\\\"path\\\":\\\"a\\\"}\"}}]},"
+            + "\"logprobs\":{\"content\":[{\"token\":\"Hello\",\"logprob\":-0.01,\"bytes\":[72,101,108,108,111],"
+            + "\"top_logprobs\":[]}]},\"finish_reason\":\"stop\"}],"
+            + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":5,\"total_tokens\":17,"
+            + "\"completion_tokens_details\":{\"reasoning_tokens\":2}},\"extra\":{\"nested\":[1,2]}}";
+
+    @Test
+    public void decode_shouldMatchGsonForMessageAndUsage() throws IOException {
+        // Arrange
+        ChatResponse expected = new Gson().fromJson(RESPONSE, ChatResponse.class);
+
+        // Act
+        ChatResponse actual = decode(false);
+
+        // Assert
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getModel(), actual.getModel());
+        assertEquals(expected.getCreated(), actual.getCreated());
+        assertEquals(expected.getFirstMessageContent(), actual.getFirstMessageContent());
+        assertEquals("stop", actual.getFirstChoice().getFinishReason());
+        assertEquals("read", actual.getFirstChoice().getMessage().getToolCalls()[0].getFunctionName());
+        assertEquals(expected.getUsage().getTotalTokens(), actual.getUsage().getTotalTokens());
+        assertEquals(Integer.valueOf(2), actual.getUsage().getCompletionTokensDetails().getReasoningTokens());
+    }
+
+    @Test
+    public void decode_shouldSkipLogProbsByDefault() throws IOException {
+        // Act
+        ChatResponse response = decode(false);
+
+        // Assert
+        assertNull(response.getFirstChoice().getLogProbs());
+    }
+
+    @Test
+    public void decode_shouldKeepLogProbsWhenRequested() throws IOException {
+        // Act
+        ChatResponse response = decode(true);
+
+        // Assert
+        ChatResponse.LogProbs logProbs = response.getFirstChoice().getLogProbs();
+        assertNotNull(logProbs);
+        assertEquals("Hello", logProbs.getContent().get(0).getToken());
+        assertEquals(5, logProbs.getContent().get(0).getBytes().size());
+    }
+
+    private static ChatResponse decode(boolean includeLogProbs) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(RESPONSE))) {
+            return new ChatResponseDecoder(includeLogProbs).decode(reader);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.opencode.android.data.remote.zen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for EndpointRouter.
+ */
+public class EndpointRouterTest {
+
+    private final EndpointRouter router = EndpointRouter.createDefault();
+
+    @Test
+    public void resolve_shouldRouteFamiliesToNativeEndpoints() {
+        // Act & Assert
+        assertSame(ResponsesWireFormat.INSTANCE, router.resolve("gpt-5"));
+        assertSame(ResponsesWireFormat.INSTANCE, router.resolve("opencode/gpt-5-nano"));
+        assertSame(MessagesWireFormat.INSTANCE, router.resolve("claude-sonnet-4-5"));
+        assertSame(ChatCompletionsWireFormat.INSTANCE, router.resolve("glm-4.7"));
+        assertSame(ChatCompletionsWireFormat.INSTANCE, router.resolve("opencode/big-pickle"));
+        assertSame(ChatCompletionsWireFormat.INSTANCE, router.resolve(null));
+    }
+
+    @Test
+    public void resolve_shouldPreferExactIdThenLongestPrefix() {
+        // Arrange
+        EndpointRouter custom = new EndpointRouter.Builder()
+                .family("gpt-", ResponsesWireFormat.INSTANCE)
+                .family("gpt-oss-", ChatCompletionsWireFormat.INSTANCE)
+                .model("gpt-5-codex", MessagesWireFormat.INSTANCE)
+                .build();
+
+        // Act & Assert
+        assertSame(ChatCompletionsWireFormat.INSTANCE, custom.resolve("gpt-oss-120b"));
+        assertSame(ResponsesWireFormat.INSTANCE, custom.resolve("gpt-5"));
+        assertSame(MessagesWireFormat.INSTANCE, custom.resolve("opencode/gpt-5-codex"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for MessagesWireFormat.
+ */
+public class MessagesWireFormatTest {
+
+    private final MessagesWireFormat format = MessagesWireFormat.INSTANCE;
+
+    @Test
+    public void encode_shouldMoveSystemPromptToCachedTopLevelBlock() {
+        // Arrange
+        ChatRequest request = new ChatRequest.Builder()
+                .model("claude-sonnet-4-5")
+                .messages(Arrays.asList(
+                        ChatMessage.system("You are a coding assistant."),
+                        ChatMessage.user("Hi"),
+                        ChatMessage.assistant("Hello ")))
+                .stream(true)
+                .build();
+
+        // Act
+        JsonObject body = format.encode(request);
+
+        // Assert
+        assertEquals(MessagesWireFormat.DEFAULT_MAX_TOKENS, body.get("max_tokens").getAsInt());
+        JsonObject system = body.getAsJsonArray("system").get(0).getAsJsonObject();
+        assertEquals("You are a coding assistant.", system.get("text").getAsString());
+        assertEquals("ephemeral", system.getAsJsonObject("cache_control").get("type").getAsString());
+        JsonArray messages = body.getAsJsonArray("messages");
+        assertEquals(2, messages.size());
+        // Trailing assistant prefill loses its trailing whitespace
+        assertEquals("Hello", messages.get(1).getAsJsonObject().get("content").getAsString());
+    }
+
+    @Test
+    public void readStream_shouldDecodeTextToolUseUsageAndStop() throws IOException {
+        // Arrange
+        Buffer body = new Buffer().writeUtf8(
+                "event: message_start\n"
+                + "data: {\"type\":\"message_start\",\"message\":{\"id\":\"msg_1\",\"usage\":{\"input_tokens\":12,\"output_tokens\":1}}}\n\n"
+                + "event: content_block_start\n"
+                + "data: {\"type\":\"content_block_start\",\"index\":0,\"content_block\":{\"type\":\"text\",\"text\":\"\"}}\n\n"
+                + "event: ping\n"
+                + "data: {\"type\":\"ping\"}\n\n"
+                + "data: {\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"Let me \"}}\n\n"
+                + "data: {\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"check.\"}}\n\n"
+                + "data: {\"type\":\"content_block_stop\",\"index\":0}\n\n"
+                + "data: {\"type\":\"content_block_start\",\"index\":1,\"content_block\":{\"type\":\"tool_use\",\"id\":\"toolu_1\",\"name\":\"read_file\",\"input\":{}}}\n\n"
+                + "data: {\"type\":\"content_block_delta\",\"index\":1,\"delta\":{\"type\":\"input_json_delta\",\"partial_json\":\"{\\\"path\\\": \"}}\n\n"
+                + "data: {\"type\":\"content_block_delta\",\"index\":1,\"delta\":{\"type\":\"input_json_delta\",\"partial_json\":\"\\\"a.txt\\\"}\"}}\n\n"
+                + "data: {\"type\":\"content_block_stop\",\"index\":1}\n\n"
+                + "data: {\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"tool_use\",\"stop_sequence\":null},\"usage\":{\"output_tokens\":42}}\n\n"
+                + "data: {\"type\":\"message_stop\"}\n\n");
+        RecordingHandler handler = new RecordingHandler();
+
+        // Act
+        boolean terminated = format.readStream(body, handler);
+
+        // Assert
+        assertTrue(terminated);
+        assertEquals("Let me check.", handler.text.toString());
+        assertEquals(1, handler.toolCalls.size());
+        assertEquals("toolu_1", handler.toolCalls.get(0).getId());
+        assertEquals("read_file", handler.toolCalls.get(0).getFunctionName());
+        assertEquals("{\"path\": \"a.txt\"}", handler.toolCalls.get(0).getFunctionArguments());
+        assertEquals(42, handler.usage);
+        assertEquals("tool_calls", handler.finishReason);
+    }
+
+    @Test
+    public void readStream_withoutMessageStop_shouldNotBeTerminated() throws IOException {
+        // Arrange
+        Buffer body = new Buffer().writeUtf8(
+                "data: {\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"Hal\"}}\n\n");
+        RecordingHandler handler = new RecordingHandler();
+
+        // Act
+        boolean terminated = format.readStream(body, handler);
+
+        // Assert
+        assertFalse(terminated);
+        assertEquals("Hal", handler.text.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void readStream_withErrorEvent_shouldThrow() throws IOException {
+        // Arrange
+        Buffer body = new Buffer().writeUtf8(
+                "event: error\n"
+                + "data: {\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\",\"message\":\"Overloaded\"}}\n\n");
+
+        // Act
+        format.readStream(body, new RecordingHandler());
+    }
+}
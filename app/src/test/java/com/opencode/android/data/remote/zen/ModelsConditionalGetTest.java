@@ -0,0 +1,178 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ModelResponse;
+import com.opencode.android.data.remote.CredentialProvider;
+import com.opencode.android.data.remote.NetworkModule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Converter;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for conditional GETs of the model catalog against a local server.
+ */
+public class ModelsConditionalGetTest {
+
+    private static final String ETAG = "\"catalog-v1\"";
+    private static final String LAST_MODIFIED = "Mon, 12 Oct 2026 08:00:00 GMT";
+    private static final String CATALOG = "{\"object\":\"list\",\"data\":["
+            + "{\"id\":\"opencode/sonic\",\"object\":\"model\",\"owned_by\":\"opencode\"}]}";
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private final AtomicInteger conversions = new AtomicInteger();
+    private MockWebServer server;
+    private Cache cache;
+    private ZenApiService apiService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new CatalogDispatcher());
+        server.start();
+
+        cache = new Cache(cacheDir.getRoot(), 1024 * 1024);
+        OkHttpClient client = NetworkModule.createOkHttpClient(
+                new CredentialProvider(new EmptyStore()),
+                new NetworkModule.ClientConfig().cache(cache));
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/zen/v1/"))
+                .client(client)
+                .addConverterFactory(new CountingConverterFactory(GsonConverterFactory.create()))
+                .build()
+                .create(ZenApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        cache.close();
+    }
+
+    @Test
+    public void getModels_withMatchingETag_shouldReturn304WithoutParsing() throws Exception {
+        // Arrange
+        Response<ModelResponse> first = apiService.getModels("Bearer key", null, null).execute();
+        String etag = first.headers().get("ETag");
+
+        // Act
+        Response<ModelResponse> second = apiService.getModels("Bearer key", etag, null).execute();
+
+        // Assert
+        assertEquals(200, first.code());
+        assertEquals(1, first.body().getModels().size());
+        assertEquals(304, second.code());
+        assertNull(second.body());
+        assertEquals(1, conversions.get());
+        server.takeRequest();
+        assertEquals(ETAG, server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void getModels_withLastModified_shouldReturn304() throws Exception {
+        // Act
+        Response<ModelResponse> response = apiService.getModels("Bearer key", null, LAST_MODIFIED).execute();
+
+        // Assert
+        assertEquals(304, response.code());
+        assertEquals(0, conversions.get());
+    }
+
+    @Test
+    public void getModels_withStaleETag_shouldReturnCatalog() throws Exception {
+        // Act
+        Response<ModelResponse> response = apiService.getModels("Bearer key", "\"catalog-v0\"", null).execute();
+
+        // Assert
+        assertEquals(200, response.code());
+        assertEquals(ETAG, response.headers().get("ETag"));
+        assertEquals(1, conversions.get());
+    }
+
+    @Test
+    public void getModels_withoutValidators_shouldBeStoredInDiskCache() throws Exception {
+        // Act
+        apiService.getModels("Bearer key").execute().body();
+
+        // Assert
+        assertEquals(1, cache.writeSuccessCount());
+    }
+
+    /**
+     * Serves the catalog with validators and honors conditional requests.
+     */
+    private static class CatalogDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (ETAG.equals(request.getHeader("If-None-Match"))
+                    || LAST_MODIFIED.equals(request.getHeader("If-Modified-Since"))) {
+                return new MockResponse().setResponseCode(304).setHeader("ETag", ETAG);
+            }
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setHeader("ETag", ETAG)
+                    .setHeader("Last-Modified", LAST_MODIFIED)
+                    .setHeader("Cache-Control", "private, no-cache")
+                    .setBody(CATALOG);
+        }
+    }
+
+    /**
+     * Counts response bodies handed to the delegate converter.
+     */
+    private class CountingConverterFactory extends Converter.Factory {
+        private final Converter.Factory delegate;
+
+        CountingConverterFactory(Converter.Factory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                                Retrofit retrofit) {
+            Converter<ResponseBody, ?> converter = delegate.responseBodyConverter(type, annotations, retrofit);
+            return body -> {
+                conversions.incrementAndGet();
+                return converter.convert(body);
+            };
+        }
+    }
+
+    private static class EmptyStore implements CredentialProvider.SecretStore {
+        @Override
+        public String load() {
+            return null;
+        }
+
+        @Override
+        public void save(String apiKey) {
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ToolCall;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format handler that records what it receives, assembling tool calls as
+ * {@link ZenStreamClient} does.
+ */
+class RecordingHandler implements WireFormat.Handler {
+
+    final StringBuilder text = new StringBuilder();
+    final List<ToolCall> toolCalls = new ArrayList<>();
+    final ToolCallAssembler assembler = new ToolCallAssembler(toolCalls::add);
+    int usage = -1;
+    String finishReason;
+
+    @Override
+    public void onText(String delta) {
+        text.append(delta);
+    }
+
+    @Override
+    public void onToolCallFragments(ToolCall[] fragments) {
+        assembler.accept(fragments);
+    }
+
+    @Override
+    public void onUsage(int completionTokens) {
+        usage = completionTokens;
+    }
+
+    @Override
+    public void onFinish(String reason) {
+        finishReason = reason;
+    }
+}
@@ -0,0 +1,114 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ToolCall;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ResponsesWireFormat.
+ */
+public class ResponsesWireFormatTest {
+
+    private final ResponsesWireFormat format = ResponsesWireFormat.INSTANCE;
+
+    @Test
+    public void encode_shouldUseInstructionsAndInputItems() {
+        // Arrange
+        ChatMessage toolUse = ChatMessage.assistant(null);
+        toolUse.setToolCalls(new ToolCall[]{new ToolCall("call_1", "read_file", "{\"path\":\"a.txt\"}")});
+        ChatRequest request = new ChatRequest.Builder()
+                .model("gpt-5")
+                .messages(Arrays.asList(
+                        ChatMessage.system("Be brief."),
+                        ChatMessage.user("Read a.txt"),
+                        toolUse,
+                        ChatMessage.tool("hello", "call_1")))
+                .maxTokens(256)
+                .stream(true)
+                .build();
+
+        // Act
+        JsonObject body = format.encode(request);
+
+        // Assert
+        assertEquals("Be brief.", body.get("instructions").getAsString());
+        assertEquals(256, body.get("max_output_tokens").getAsInt());
+        JsonArray input = body.getAsJsonArray("input");
+        assertEquals(3, input.size());
+        assertEquals("function_call", input.get(1).getAsJsonObject().get("type").getAsString());
+        assertEquals("call_1", input.get(1).getAsJsonObject().get("call_id").getAsString());
+        assertEquals("function_call_output", input.get(2).getAsJsonObject().get("type").getAsString());
+        assertFalse(body.has("messages"));
+    }
+
+    @Test
+    public void readStream_shouldDecodeTextFunctionCallAndCompletion() throws IOException {
+        // Arrange
+        Buffer body = new Buffer().writeUtf8(
+                "event: response.created\n"
+                + "data: {\"type\":\"response.created\",\"response\":{\"id\":\"resp_1\",\"status\":\"in_progress\"}}\n\n"
+                + "data: {\"type\":\"response.output_text.delta\",\"item_id\":\"msg_1\",\"output_index\":0,\"content_index\":0,\"delta\":\"On \"}\n\n"
+                + "data: {\"type\":\"response.output_text.delta\",\"item_id\":\"msg_1\",\"output_index\":0,\"content_index\":0,\"delta\":\"it.\"}\n\n"
+                + "data: {\"type\":\"response.output_item.added\",\"output_index\":1,\"item\":{\"type\":\"function_call\",\"id\":\"fc_1\",\"call_id\":\"call_1\",\"name\":\"read_file\",\"arguments\":\"\"}}\n\n"
+                + "data: {\"type\":\"response.function_call_arguments.delta\",\"item_id\":\"fc_1\",\"output_index\":1,\"delta\":\"{\\\"path\\\":\"}\n\n"
+                + "data: {\"type\":\"response.function_call_arguments.delta\",\"item_id\":\"fc_1\",\"output_index\":1,\"delta\":\"\\\"a.txt\\\"}\"}\n\n"
+                + "data: {\"type\":\"response.completed\",\"response\":{\"id\":\"resp_1\",\"status\":\"completed\","
+                + "\"output\":[{\"type\":\"message\",\"content\":[{\"type\":\"output_text\",\"text\":\"On it.\"}]}],"
+                + "\"usage\":{\"input_tokens\":30,\"output_tokens\":17,\"output_tokens_details\":{\"reasoning_tokens\":0}}}}\n\n");
+        RecordingHandler handler = new RecordingHandler();
+
+        // Act
+        boolean terminated = format.readStream(body, handler);
+
+        // Assert
+        assertTrue(terminated);
+        assertEquals("On it.", handler.text.toString());
+        assertEquals(1, handler.toolCalls.size());
+        assertEquals("call_1", handler.toolCalls.get(0).getId());
+        assertEquals("{\"path\":\"a.txt\"}", handler.toolCalls.get(0).getFunctionArguments());
+        assertEquals(17, handler.usage);
+        assertEquals("tool_calls", handler.finishReason);
+    }
+
+    @Test
+    public void readStream_withIncompleteResponse_shouldFinishWithLength() throws IOException {
+        // Arrange
+        Buffer body = new Buffer().writeUtf8(
+                "data: {\"type\":\"response.output_text.delta\",\"output_index\":0,\"delta\":\"Long\"}\n\n"
+                + "data: {\"type\":\"response.incomplete\",\"response\":{\"status\":\"incomplete\","
+                + "\"incomplete_details\":{\"reason\":\"max_output_tokens\"},\"usage\":{\"output_tokens\":256}}}\n\n");
+        RecordingHandler handler = new RecordingHandler();
+
+        // Act
+        boolean terminated = format.readStream(body, handler);
+
+        // Assert
+        assertTrue(terminated);
+        assertEquals("length", handler.finishReason);
+        assertEquals(256, handler.usage);
+    }
+
+    @Test(expected = IOException.class)
+    public void readStream_withFailedResponse_shouldThrow() throws IOException {
+        // Arrange
+        Buffer body = new Buffer().writeUtf8(
+                "data: {\"type\":\"response.failed\",\"response\":{\"status\":\"failed\","
+                + "\"error\":{\"code\":\"server_error\",\"message\":\"Upstream failed\"}}}\n\n");
+
+        // Act
+        format.readStream(body, new RecordingHandler());
+    }
+}
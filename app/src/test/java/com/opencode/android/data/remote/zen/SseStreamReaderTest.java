@@ -0,0 +1,177 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.Gson;
+import com.opencode.android.data.model.zen.StreamingResponse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for SseStreamReader and the SSE framer.
+ */
+public class SseStreamReaderTest {
+
+    private static final int COMMENT_COUNT = 200;
+    private static final int COMMENT_BYTES = 8 * 1024;
+
+    private final SseStreamReader streamReader = new SseStreamReader();
+
+    @Test
+    public void read_shouldDeliverDeltasInOrder() throws IOException {
+        // Arrange
+        Buffer source = new Buffer().writeUtf8(
+                ": keep-alive comment\n"
+                + "data: " + chunk("Hel") + "\n\n"
+                + "event: message\r\n"
+                + "data:" + chunk("lo ") + "\r\n\r\n"
+                + "data: " + chunk("w\u00f6rld \uD83D\uDE80") + "\n\n"
+                + "data: " + finalChunk() + "\n\n"
+                + "data: [DONE]\n\n");
+        StringBuilder content = new StringBuilder();
+        List<String> finishReasons = new ArrayList<>();
+
+        // Act
+        boolean done = streamReader.read(source, chunk -> {
+            if (chunk.getDeltaContent() != null) {
+                content.append(chunk.getDeltaContent());
+            }
+            if (chunk.isDone()) {
+                finishReasons.add(chunk.getFirstChoice().getFinishReason());
+            }
+        });
+
+        // Assert
+        assertTrue(done);
+        assertEquals("Hello w\u00f6rld \uD83D\uDE80", content.toString());
+        assertEquals(1, finishReasons.size());
+        assertEquals("stop", finishReasons.get(0));
+    }
+
+    @Test
+    public void read_shouldReportTruncatedStream() throws IOException {
+        // Arrange
+        Buffer source = new Buffer().writeUtf8("data: " + chunk("partial") + "\n\n");
+        StringBuilder content = new StringBuilder();
+
+        // Act
+        boolean done = streamReader.read(source, chunk -> content.append(chunk.getDeltaContent()));
+
+        // Assert
+        assertFalse(done);
+        assertEquals("partial", content.toString());
+    }
+
+    @Test
+    public void read_shouldNotAllocatePerLine() throws IOException {
+        ThreadAllocations allocations = ThreadAllocations.create();
+        assumeTrue("Per-thread allocation counting is not available", allocations != null);
+        // Arrange: large keep-alive comments, which carry no payload, between the chunks
+        String stream = commentedStream();
+        long commentBytes = (long) COMMENT_COUNT * COMMENT_BYTES;
+
+        // Act: the first reads pay for class loading and adapter setup, so keep the
+        // cheapest of several
+        long framedBytes = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            Buffer framed = new Buffer().writeUtf8(stream);
+            long before = allocations.current();
+            assertTrue(streamReader.read(framed, chunk -> { }));
+            framedBytes = Math.min(framedBytes, allocations.current() - before);
+        }
+        Buffer perLine = new Buffer().writeUtf8(stream);
+        long before = allocations.current();
+        readPerLine(perLine, new Gson(), chunk -> { });
+        long perLineBytes = allocations.current() - before;
+
+        // Assert: copying lines allocates at least the comments once; framing skips them
+        // in the buffer, so what it allocates does not grow with them. Instrumenting
+        // okio.Buffer, e.g. with a Mockito spy, would add allocations to every call.
+        assertTrue("Per-line baseline allocated " + perLineBytes + " B", perLineBytes >= commentBytes);
+        assertTrue("Framer allocated " + framedBytes + " B", framedBytes < commentBytes / 16);
+    }
+
+    /**
+     * Baseline: one String per line and a reflective Gson parse per chunk.
+     */
+    private static void readPerLine(Buffer source, Gson gson, SseStreamReader.Listener listener)
+            throws IOException {
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String payload = line.substring(5).trim();
+            if ("[DONE]".equals(payload)) {
+                return;
+            }
+            listener.onChunk(gson.fromJson(payload, StreamingResponse.class));
+        }
+    }
+
+    private static String commentedStream() {
+        char[] padding = new char[COMMENT_BYTES - 3];
+        Arrays.fill(padding, 'x');
+        String comment = ": " + new String(padding) + "\n";
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < COMMENT_COUNT; i++) {
+            builder.append(comment);
+            if (i % 20 == 0) {
+                builder.append("data: ").append(chunk("token" + (i % 10) + " ")).append("\n\n");
+            }
+        }
+        builder.append("data: ").append(finalChunk()).append("\n\n");
+        builder.append("data: [DONE]\n\n");
+        return builder.toString();
+    }
+
+    private static String chunk(String content) {
+        return "{\"id\":\"chatcmpl-8f2a\",\"object\":\"chat.completion.chunk\",\"created\":1718000000,"
+                + "\"model\":\"glm-4.7\",\"system_fingerprint\":null,\"choices\":[{\"index\":0,"
+                + "\"delta\":{\"content\":\"" + content + "\"},\"logprobs\":null,\"finish_reason\":null}]}";
+    }
+
+    private static String finalChunk() {
+        return "{\"id\":\"chatcmpl-8f2a\",\"object\":\"chat.completion.chunk\",\"created\":1718000000,"
+                + "\"model\":\"glm-4.7\",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":2000,\"total_tokens\":2012}}";
+    }
+
+    /**
+     * Per-thread allocation counter, available on HotSpot JVMs.
+     */
+    private static final class ThreadAllocations {
+        private final com.sun.management.ThreadMXBean bean;
+
+        private ThreadAllocations(com.sun.management.ThreadMXBean bean) {
+            this.bean = bean;
+        }
+
+        static ThreadAllocations create() {
+            if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            com.sun.management.ThreadMXBean bean =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+                return null;
+            }
+            return new ThreadAllocations(bean);
+        }
+
+        long current() {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ToolCall;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ToolCallAssembler.
+ */
+public class ToolCallAssemblerTest {
+
+    private final List<ToolCall> emitted = new ArrayList<>();
+    private final ToolCallAssembler assembler = new ToolCallAssembler(emitted::add);
+
+    @Test
+    public void accept_shouldAssembleFragmentsByIndex() {
+        // Act: two calls streamed interleaved
+        assembler.accept(new ToolCall[]{
+                fragment(0, "call_a", "read_file", "{\"pa"),
+                fragment(1, "call_b", "list_", "")});
+        assembler.accept(new ToolCall[]{fragment(1, null, "files", "{\"dir\":")});
+        assembler.accept(new ToolCall[]{fragment(0, null, null, "th\":\"a.txt\"}")});
+        assembler.accept(new ToolCall[]{fragment(1, null, null, "\"src\"}")});
+
+        // Assert: each call is emitted in the order its arguments closed
+        assertEquals(2, emitted.size());
+        assertEquals("call_a", emitted.get(0).getId());
+        assertEquals("read_file", emitted.get(0).getFunctionName());
+        assertEquals("{\"path\":\"a.txt\"}", emitted.get(0).getFunctionArguments());
+        assertEquals("call_b", emitted.get(1).getId());
+        assertEquals("list_files", emitted.get(1).getFunctionName());
+        assertEquals("{\"dir\":\"src\"}", emitted.get(1).getFunctionArguments());
+    }
+
+    @Test
+    public void accept_shouldEmitAsSoonAsArgumentsClose() {
+        // Act
+        assembler.accept(new ToolCall[]{fragment(0, "call_a", "write_file", "{\"text\":\"}\\\"{\"")});
+        int emittedInsideString = emitted.size();
+        assembler.accept(new ToolCall[]{fragment(0, null, null, ",\"opts\":{\"append\":true}")});
+        int emittedInsideNestedObject = emitted.size();
+        assembler.accept(new ToolCall[]{fragment(0, null, null, "}")});
+
+        // Assert: braces inside strings and nested objects do not close the call
+        assertEquals(0, emittedInsideString);
+        assertEquals(0, emittedInsideNestedObject);
+        assertEquals(1, emitted.size());
+        assertEquals("{\"text\":\"}\\\"{\",\"opts\":{\"append\":true}}",
+                emitted.get(0).getFunctionArguments());
+    }
+
+    @Test
+    public void accept_afterEmit_shouldIgnoreFurtherFragments() {
+        // Act
+        assembler.accept(new ToolCall[]{fragment(0, "call_a", "read_file", "{}")});
+        assembler.accept(new ToolCall[]{fragment(0, null, null, "{\"late\":1}")});
+
+        // Assert
+        assertEquals(1, emitted.size());
+        assertEquals("{}", emitted.get(0).getFunctionArguments());
+    }
+
+    @Test
+    public void accept_withoutIndex_shouldMatchById() {
+        // Act
+        assembler.accept(new ToolCall[]{fragment(null, "call_a", "read_file", "{\"path\":")});
+        assembler.accept(new ToolCall[]{fragment(null, "call_a", null, "\"a.txt\"}")});
+
+        // Assert
+        assertEquals(1, emitted.size());
+        assertEquals("{\"path\":\"a.txt\"}", emitted.get(0).getFunctionArguments());
+    }
+
+    @Test
+    public void hasPending_shouldTrackUnemittedCalls() {
+        // Assert: nothing received yet
+        assertFalse(assembler.hasPending());
+
+        // Act / Assert
+        assembler.accept(new ToolCall[]{fragment(0, "call_a", "read_file", "{\"path\":")});
+        assertTrue(assembler.hasPending());
+
+        assembler.accept(new ToolCall[]{fragment(0, null, null, "\"a.txt\"}")});
+        assertFalse(assembler.hasPending());
+
+        assembler.accept(new ToolCall[]{fragment(1, "call_b", "now", null)});
+        assertTrue(assembler.hasPending());
+    }
+
+    @Test
+    public void hasToolCalls_shouldStayTrueOnceEmitted() {
+        // Assert: nothing received yet
+        assertFalse(assembler.hasToolCalls());
+
+        // Act
+        assembler.accept(new ToolCall[]{fragment(0, "call_a", "read_file", "{\"path\":\"a.txt\"}")});
+
+        // Assert
+        assertFalse(assembler.hasPending());
+        assertTrue(assembler.hasToolCalls());
+    }
+
+    @Test
+    public void finish_shouldEmitCallsWithoutArguments() {
+        // Arrange
+        assembler.accept(new ToolCall[]{fragment(0, "call_a", "read_file", "{\"path\":\"a.txt\"}")});
+        assembler.accept(new ToolCall[]{fragment(1, "call_b", "now", null)});
+
+        // Act
+        List<ToolCall> toolCalls = assembler.finish();
+
+        // Assert
+        assertEquals(2, emitted.size());
+        assertEquals("{}", emitted.get(1).getFunctionArguments());
+        assertFalse(assembler.hasPending());
+        assertEquals(2, toolCalls.size());
+        assertSame(emitted.get(0), toolCalls.get(0));
+        assertSame(emitted.get(1), toolCalls.get(1));
+    }
+
+    private static ToolCall fragment(Integer index, String id, String name, String arguments) {
+        ToolCall fragment = new ToolCall(id, name, arguments);
+        fragment.setIndex(index);
+        return fragment;
+    }
+}
@@ -0,0 +1,421 @@
+package com.opencode.android.data.remote.zen;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.MalformedJsonException;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for resuming dropped streams against a local server that cuts connections
+ * at random offsets.
+ */
+public class ZenStreamClientResumeTest {
+
+    private static final int DELTA_COUNT = 40;
+    private static final int MAX_RESUME_ATTEMPTS = 2;
+
+    private final Gson gson = new Gson();
+    private MockWebServer server;
+    private ZenApiService apiService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/zen/v1/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ZenApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void stream_shouldResumeAfterConnectionCutAtRandomOffsets() throws InterruptedException {
+        String answer = buildAnswer();
+        Random random = new Random(42);
+
+        for (int run = 0; run < 25; run++) {
+            // Arrange
+            int cuts = 1 + random.nextInt(MAX_RESUME_ATTEMPTS);
+            CuttingDispatcher dispatcher = new CuttingDispatcher(answer, cuts, random);
+            server.setDispatcher(dispatcher);
+            ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+            // Act
+            TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request()).test();
+            assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+            // Assert
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+            assertEquals("Run " + run + " with " + cuts + " cuts", answer, lastContent(subscriber.values()));
+            assertEquals(0, dispatcher.mismatches.get());
+        }
+    }
+
+    @Test
+    public void stream_shouldFailAfterMaxResumeAttempts() throws InterruptedException {
+        // Arrange
+        Random halfway = new Random() {
+            @Override
+            public int nextInt(int bound) {
+                return bound / 2;
+            }
+        };
+        server.setDispatcher(new CuttingDispatcher(buildAnswer(), Integer.MAX_VALUE, halfway));
+        ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request()).test();
+        assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+        // Assert
+        subscriber.assertError(IOException.class);
+        assertEquals(MAX_RESUME_ATTEMPTS + 1, server.getRequestCount());
+    }
+
+    @Test
+    public void stream_whenBackendRestartsAnswer_shouldDropRepeatedPrefix() throws InterruptedException {
+        String answer = buildAnswer();
+        Random random = new Random(7);
+
+        for (int run = 0; run < 25; run++) {
+            // Arrange: the continuation is answered from the start, like chat completions do
+            RestartingDispatcher dispatcher = new RestartingDispatcher(answer, random);
+            server.setDispatcher(dispatcher);
+            ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+            // Act
+            TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request()).test();
+            assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+            // Assert
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+            assertEquals("Run " + run, answer, lastContent(subscriber.values()));
+        }
+    }
+
+    @Test
+    public void stream_withMalformedBody_shouldFailWithoutResuming() throws InterruptedException {
+        // Arrange
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest) {
+                return new MockResponse().setBody(
+                        "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"tok0 \"}}]}\n\n"
+                        + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"tok1 \"}}]]}\n\n"
+                        + "data: [DONE]\n\n");
+            }
+        });
+        ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request()).test();
+        assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+        // Assert
+        subscriber.assertError(MalformedJsonException.class);
+        assertEquals(1, server.getRequestCount());
+        assertEquals("tok0 ", lastContent(subscriber.values()));
+    }
+
+    @Test
+    public void stream_withResponsesFailedEvent_shouldFailWithoutResuming() throws InterruptedException {
+        assertFailsOnce(ResponsesWireFormat.INSTANCE,
+                "event: response.output_text.delta\n"
+                + "data: {\"type\":\"response.output_text.delta\",\"output_index\":0,\"delta\":\"tok0 \"}\n\n"
+                + "event: response.failed\n"
+                + "data: {\"type\":\"response.failed\",\"response\":{\"error\":{\"message\":\"Invalid request\"}}}\n\n",
+                StreamErrorException.class);
+    }
+
+    @Test
+    public void stream_withMessagesErrorEvent_shouldFailWithoutResuming() throws InterruptedException {
+        assertFailsOnce(MessagesWireFormat.INSTANCE,
+                "event: content_block_delta\n"
+                + "data: {\"type\":\"content_block_delta\",\"index\":0,"
+                + "\"delta\":{\"type\":\"text_delta\",\"text\":\"tok0 \"}}\n\n"
+                + "event: error\n"
+                + "data: {\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\",\"message\":\"Overloaded\"}}\n\n",
+                StreamErrorException.class);
+    }
+
+    @Test
+    public void stream_afterToolCallEmitted_shouldFailWithoutResuming() throws InterruptedException {
+        // Arrange: the call completes, then the body ends before the finish reason
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest) {
+                return new MockResponse().setBody(toolCallChunk("{\\\"path\\\":\\\"a\\\"}"));
+            }
+        });
+        ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request()).test();
+        assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+        // Assert: a continuation could neither carry the call nor avoid repeating it
+        subscriber.assertError(IOException.class);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, toolCallCount(subscriber.values()));
+    }
+
+    @Test
+    public void stream_withToolCallInProgress_shouldFailWithoutResuming() throws InterruptedException {
+        // Arrange: the connection drops halfway through the arguments
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest) {
+                return new MockResponse().setBody(toolCallChunk("{\\\"pa"));
+            }
+        });
+        ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request()).test();
+        assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+        // Assert
+        subscriber.assertError(IOException.class);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, toolCallCount(subscriber.values()));
+    }
+
+    @Test
+    public void repeatFilter_shouldDropRepeatSplitAcrossDeltas() {
+        // Arrange
+        ZenStreamClient.RepeatFilter filter = new ZenStreamClient.RepeatFilter();
+        filter.expect("Hello wor");
+
+        // Act / Assert
+        assertEquals("", filter.filter("Hel"));
+        assertEquals("", filter.filter("lo w"));
+        assertEquals("ld", filter.filter("orld"));
+        assertEquals("!", filter.filter("!"));
+        assertEquals("", filter.release());
+    }
+
+    @Test
+    public void repeatFilter_shouldReleaseHeldTextWhenStreamCarriesOn() {
+        // Arrange
+        ZenStreamClient.RepeatFilter filter = new ZenStreamClient.RepeatFilter();
+        filter.expect("Hello wor");
+
+        // Act / Assert: a continuation that only starts like the partial answer
+        assertEquals("", filter.filter("He"));
+        assertEquals("Help", filter.filter("lp"));
+        assertEquals(" me", filter.filter(" me"));
+    }
+
+    @Test
+    public void repeatFilter_shouldReleaseHeldTextAtEnd() {
+        // Arrange
+        ZenStreamClient.RepeatFilter filter = new ZenStreamClient.RepeatFilter();
+        filter.expect("Hello wor");
+
+        // Act
+        String emitted = filter.filter("Hell");
+
+        // Assert
+        assertEquals("", emitted);
+        assertEquals("Hell", filter.release());
+        assertEquals("x", filter.filter("x"));
+    }
+
+    @Test
+    public void continuation_shouldEndWithPartialAnswer() {
+        // Act
+        ChatRequest continuation = ZenStreamClient.continuation(request(), "Partial ans");
+
+        // Assert
+        List<ChatMessage> messages = continuation.getMessages();
+        assertEquals(2, messages.size());
+        assertEquals(ChatMessage.ROLE_ASSISTANT, messages.get(1).getRole());
+        assertEquals("Partial ans", messages.get(1).getContent());
+        assertEquals("glm-4.7", continuation.getModel());
+    }
+
+    /**
+     * Serve {@code body} to every request and check the stream fails with {@code error}
+     * after a single request.
+     */
+    private void assertFailsOnce(WireFormat format, String body, Class<? extends Throwable> error)
+            throws InterruptedException {
+        // Arrange
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest) {
+                return new MockResponse().setBody(body);
+            }
+        });
+        ZenStreamClient client = new ZenStreamClient(apiService, MAX_RESUME_ATTEMPTS, 0);
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = client.stream("Bearer key", request(), format).test();
+        assertTrue(subscriber.await(10, TimeUnit.SECONDS));
+
+        // Assert: assertError also fails if more than one error was reported
+        subscriber.assertError(error);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private static ChatRequest request() {
+        return new ChatRequest.Builder()
+                .model("glm-4.7")
+                .messages(Collections.singletonList(ChatMessage.user("Count for me")))
+                .stream(true)
+                .build();
+    }
+
+    private static String buildAnswer() {
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < DELTA_COUNT; i++) {
+            answer.append("tok").append(i).append(' ');
+        }
+        return answer.toString();
+    }
+
+    private static String lastContent(List<StreamEvent> events) {
+        String content = "";
+        for (StreamEvent event : events) {
+            if (event.getType() == StreamEvent.Type.DELTA) {
+                content = event.getContent();
+            }
+        }
+        return content;
+    }
+
+    private static int toolCallCount(List<StreamEvent> events) {
+        int count = 0;
+        for (StreamEvent event : events) {
+            if (event.getType() == StreamEvent.Type.TOOL_CALL) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A chunk starting tool call 0 with {@code arguments}, already escaped for JSON.
+     */
+    private static String toolCallChunk(String arguments) {
+        return "data: {\"choices\":[{\"index\":0,\"delta\":{\"tool_calls\":[{\"index\":0,"
+                + "\"id\":\"call_1\",\"type\":\"function\",\"function\":{\"name\":\"read\","
+                + "\"arguments\":\"" + arguments + "\"}}]},\"finish_reason\":null}]}\n\n";
+    }
+
+    private static String sse(String remaining) {
+        StringBuilder body = new StringBuilder();
+        // Split into word-sized deltas like a model would
+        int start = 0;
+        while (start < remaining.length()) {
+            int end = remaining.indexOf(' ', start);
+            end = end == -1 ? remaining.length() : end + 1;
+            body.append("data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"")
+                    .append(remaining, start, end)
+                    .append("\"},\"finish_reason\":null}]}\n\n");
+            start = end;
+        }
+        body.append("data: {\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n");
+        body.append("data: [DONE]\n\n");
+        return body.toString();
+    }
+
+    /**
+     * Streams whatever the client is still missing, cutting the first responses short.
+     */
+    private final class CuttingDispatcher extends Dispatcher {
+        private final String answer;
+        private final int cuts;
+        private final Random random;
+        private final AtomicInteger served = new AtomicInteger();
+        final AtomicInteger mismatches = new AtomicInteger();
+
+        CuttingDispatcher(String answer, int cuts, Random random) {
+            this.answer = answer;
+            this.cuts = cuts;
+            this.random = random;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest recordedRequest) {
+            ChatRequest request = gson.fromJson(recordedRequest.getBody().readUtf8(), ChatRequest.class);
+            List<ChatMessage> messages = request.getMessages();
+            ChatMessage last = messages.get(messages.size() - 1);
+            String partial = ChatMessage.ROLE_ASSISTANT.equals(last.getRole()) ? last.getContent() : "";
+            if (!answer.startsWith(partial)) {
+                mismatches.incrementAndGet();
+                return new MockResponse().setResponseCode(400);
+            }
+
+            String body = sse(answer.substring(partial.length()));
+            if (served.getAndIncrement() >= cuts) {
+                return new MockResponse().setBody(body);
+            }
+            // Send a random prefix but promise the full length, then hang up
+            int offset = random.nextInt(body.length());
+            return new MockResponse()
+                    .setBody(body.substring(0, offset))
+                    .setHeader("Content-Length", body.length())
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_AT_END);
+        }
+    }
+
+    /**
+     * Cuts the first response at a random offset, then answers the continuation from the
+     * start of the answer, ignoring the partial answer it ends with.
+     */
+    private final class RestartingDispatcher extends Dispatcher {
+        private final String answer;
+        private final Random random;
+        private final AtomicInteger served = new AtomicInteger();
+
+        RestartingDispatcher(String answer, Random random) {
+            this.answer = answer;
+            this.random = random;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest recordedRequest) {
+            String body = sse(answer);
+            if (served.getAndIncrement() > 0) {
+                return new MockResponse().setBody(body);
+            }
+            int offset = random.nextInt(body.length());
+            return new MockResponse()
+                    .setBody(body.substring(0, offset))
+                    .setHeader("Content-Length", body.length())
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_AT_END);
+        }
+    }
+}
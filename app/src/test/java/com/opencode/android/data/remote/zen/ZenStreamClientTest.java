@@ -0,0 +1,155 @@
+package com.opencode.android.data.remote.zen;
+
+import com.opencode.android.data.model.zen.ChatRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ZenStreamClient.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ZenStreamClientTest {
+
+    @Mock
+    private ZenApiService apiService;
+
+    @Mock
+    private Call<ResponseBody> call;
+
+    private ZenStreamClient streamClient;
+
+    @After
+    public void tearDown() {
+        RxJavaPlugins.reset();
+    }
+
+    @Before
+    public void setUp() {
+        when(apiService.createCompletionStream(anyString(), any(ChatRequest.class))).thenReturn(call);
+        streamClient = new ZenStreamClient(apiService);
+    }
+
+    @Test
+    public void stream_shouldEmitTypedEventsInOrder() throws Exception {
+        // Arrange
+        when(call.execute()).thenReturn(Response.success(body(
+                "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"Hel\"}}]}\n\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"lo\"}}]}\n\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"tool_calls\":[{\"index\":0,\"id\":\"call_1\","
+                + "\"function\":{\"name\":\"read\",\"arguments\":\"{\\\"path\\\":\\\"a\\\"}\"}}]}}]}\n\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"completion_tokens\":3}}\n\n"
+                + "data: [DONE]\n\n")));
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = streamClient.stream("Bearer key", request()).test();
+        subscriber.await();
+
+        // Assert
+        subscriber.assertComplete();
+        List<StreamEvent> events = subscriber.values();
+        assertEquals(5, events.size());
+        assertEquals(StreamEvent.Type.DELTA, events.get(0).getType());
+        assertEquals("Hel", events.get(0).getContent());
+        assertEquals("lo", events.get(1).getText());
+        assertEquals("Hello", events.get(1).getContent());
+        assertEquals(StreamEvent.Type.TOOL_CALL, events.get(2).getType());
+        assertEquals("{\"path\":\"a\"}", events.get(2).getToolCall().getFunction().getArguments());
+        assertEquals(StreamEvent.Type.USAGE, events.get(3).getType());
+        assertEquals(3, events.get(3).getCompletionTokens());
+        assertEquals(StreamEvent.Type.FINISH, events.get(4).getType());
+        assertEquals("stop", events.get(4).getText());
+    }
+
+    @Test
+    public void stream_shouldKeepEarlierSnapshotsWhenBufferGrows() throws Exception {
+        // Arrange
+        when(call.execute()).thenReturn(Response.success(body(
+                "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"a\"}}]}\n\n"
+                + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"b\"}}]}\n\n"
+                + "data: [DONE]\n\n")));
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = streamClient.stream("Bearer key", request()).test();
+        subscriber.await();
+
+        // Assert
+        assertEquals("a", subscriber.values().get(0).getContent());
+        assertEquals("ab", subscriber.values().get(1).getContent());
+    }
+
+    @Test
+    public void stream_shouldCancelCallWhenDisposed() throws Exception {
+        // Arrange: like OkHttp, execute() ignores interrupts and fails once cancelled
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).when(call).cancel();
+        when(call.execute()).thenAnswer(invocation -> {
+            executing.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    cancelled.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Canceled");
+        });
+        List<Throwable> undeliverable = new CopyOnWriteArrayList<>();
+        RxJavaPlugins.setErrorHandler(undeliverable::add);
+
+        // Act
+        TestSubscriber<StreamEvent> subscriber = streamClient.stream("Bearer key", request()).test();
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        subscriber.cancel();
+
+        // Assert
+        verify(call, timeout(5000)).cancel();
+        subscriber.assertNoErrors();
+        subscriber.assertNotComplete();
+        assertTrue(undeliverable.toString(), undeliverable.isEmpty());
+    }
+
+    private static ChatRequest request() {
+        return new ChatRequest.Builder().model("glm-4.7").stream(true).build();
+    }
+
+    private static ResponseBody body(String content) {
+        return ResponseBody.create(content, MediaType.get("text/event-stream"));
+    }
+}
@@ -1,28 +1,63 @@
 package com.opencode.android.data.repository;
 
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.opencode.android.data.local.dao.MessageDao;
 import com.opencode.android.data.local.dao.SessionDao;
 import com.opencode.android.data.local.entity.MessageEntity;
+import com.opencode.android.data.local.entity.PendingSendEntity;
 import com.opencode.android.data.local.entity.SessionEntity;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ChatResponse;
+import com.opencode.android.data.remote.NetworkModule;
+import com.opencode.android.data.remote.zen.StreamEvent;
+import com.opencode.android.data.remote.zen.WireFormat;
 import com.opencode.android.data.remote.zen.ZenApiService;
+import com.opencode.android.data.remote.zen.ZenStreamClient;
 
+import io.reactivex.rxjava3.android.plugins.RxAndroidPlugins;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.net.UnknownHostException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,14 +79,32 @@ public class ChatRepositoryTest {
     @Mock
     private ZenApiService apiService;
 
+    @Mock
+    private ZenStreamClient streamClient;
+
     @Mock
     private ExecutorService executorService;
 
     private ChatRepositoryImpl chatRepository;
+    private SendQueue sendQueue;
 
     @Before
     public void setup() {
-        chatRepository = new ChatRepositoryImpl(sessionDao, messageDao, apiService, executorService);
+        // Run background work inline, and deliver to the UI on the test thread
+        lenient().doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+        RxAndroidPlugins.setInitMainThreadSchedulerHandler(scheduler -> Schedulers.trampoline());
+
+        chatRepository = new ChatRepositoryImpl(sessionDao, messageDao, apiService, streamClient,
+                executorService, () -> "test-token");
+        chatRepository.setFrameInterval(0);
+    }
+
+    @After
+    public void tearDown() {
+        RxAndroidPlugins.reset();
     }
 
     @Test
@@ -145,4 +198,236 @@ public class ChatRepositoryTest {
         // Assert
         verify(sessionDao).updateArchived(sessionId, archived);
     }
+
+    @Test
+    public void sendMessage_streaming_shouldPersistDeltasIntoPlaceholder() {
+        // Arrange
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        String sessionId = session.getId();
+        when(sessionDao.getByIdSync(sessionId)).thenReturn(session);
+        when(messageDao.getBySessionIdSync(sessionId))
+                .thenReturn(Collections.singletonList(MessageEntity.user(sessionId, "Hi")));
+        StringBuffer accumulated = new StringBuffer();
+        when(streamClient.stream(eq("test-token"), any(ChatRequest.class), any(WireFormat.class)))
+                .thenReturn(Flowable.just(
+                        StreamEvent.delta("Hel", accumulated.append("Hel")),
+                        StreamEvent.delta("lo", accumulated.append("lo")),
+                        StreamEvent.finish("stop"),
+                        StreamEvent.usage(7)));
+
+        // Act
+        chatRepository.sendMessage(sessionId, "Hi", true);
+
+        // Assert: the user message, then an empty streaming placeholder
+        ArgumentCaptor<MessageEntity> inserted = ArgumentCaptor.forClass(MessageEntity.class);
+        verify(messageDao, times(2)).insert(inserted.capture());
+        MessageEntity placeholder = inserted.getAllValues().get(1);
+        assertEquals("assistant", placeholder.getRole());
+        assertTrue(placeholder.isStreaming());
+
+        ArgumentCaptor<ChatRequest> request = ArgumentCaptor.forClass(ChatRequest.class);
+        verify(streamClient).stream(eq("test-token"), request.capture(), any(WireFormat.class));
+        assertEquals("glm-4.7", request.getValue().getModel());
+        assertEquals(Boolean.TRUE, request.getValue().getStream());
+        assertEquals("Hi", request.getValue().getMessages().get(0).getContent());
+
+        // The answer is written once on finish and completed with the reported usage
+        verify(messageDao).updateContent(placeholder.getId(), "Hello");
+        verify(messageDao).completeStreamedMessage(placeholder.getId(), "Hello", null, 7);
+        assertEquals(placeholder.getId(), chatRepository.getInFlightMessage(sessionId).getValue().getMessageId());
+        assertEquals("Hello", chatRepository.getInFlightMessage(sessionId).getValue().getContent());
+    }
+
+    @Test
+    public void sendMessage_streamingError_shouldKeepPartialAnswer() {
+        // Arrange
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        String sessionId = session.getId();
+        when(sessionDao.getByIdSync(sessionId)).thenReturn(session);
+        when(messageDao.getBySessionIdSync(sessionId))
+                .thenReturn(Collections.singletonList(MessageEntity.user(sessionId, "Hi")));
+        when(streamClient.stream(eq("test-token"), any(ChatRequest.class), any(WireFormat.class)))
+                .thenReturn(Flowable.concat(
+                        Flowable.just(StreamEvent.delta("Par", new StringBuffer("Par"))),
+                        Flowable.error(new java.io.IOException("stream reset"))));
+
+        // Act
+        chatRepository.sendMessage(sessionId, "Hi", true);
+
+        // Assert
+        ArgumentCaptor<MessageEntity> inserted = ArgumentCaptor.forClass(MessageEntity.class);
+        verify(messageDao, times(2)).insert(inserted.capture());
+        String placeholderId = inserted.getAllValues().get(1).getId();
+        verify(messageDao).completeStreamedMessage(eq(placeholderId), eq("Par"), isNull(), anyInt());
+    }
+
+    @Test
+    public void sendMessage_streamingWithoutToken_shouldNotCreatePlaceholder() {
+        // Arrange
+        chatRepository = new ChatRepositoryImpl(sessionDao, messageDao, apiService, streamClient,
+                executorService, () -> null);
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        String sessionId = session.getId();
+        when(sessionDao.getByIdSync(sessionId)).thenReturn(session);
+
+        // Act
+        chatRepository.sendMessage(sessionId, "Hi", true);
+
+        // Assert: only the user message is saved
+        verify(messageDao, times(1)).insert(any(MessageEntity.class));
+        verify(streamClient, never()).stream(anyString(), any(ChatRequest.class), any(WireFormat.class));
+    }
+
+    @Test
+    public void cancelGeneration_whilePersisting_shouldFinishOnceWithConsistentContent() throws Exception {
+        // Arrange: a real pool, so persistence and the cancel can run concurrently
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        FakeMessageDao fakeMessageDao = new FakeMessageDao();
+        ChatRepositoryImpl repository = new ChatRepositoryImpl(sessionDao, fakeMessageDao, apiService,
+                streamClient, pool, () -> "test-token");
+        repository.setFrameInterval(0);
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        String sessionId = session.getId();
+        when(sessionDao.getByIdSync(sessionId)).thenReturn(session);
+        PublishProcessor<StreamEvent> stream = PublishProcessor.create();
+        when(streamClient.stream(eq("test-token"), any(ChatRequest.class), any(WireFormat.class)))
+                .thenReturn(stream.onBackpressureBuffer());
+
+        repository.sendMessageWithHistory(sessionId,
+                Collections.singletonList(MessageEntity.user(sessionId, "Hi")), true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!stream.hasSubscribers() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(stream.hasSubscribers());
+
+        // Act: every delta reaches the flush threshold, and the cancel lands mid-stream
+        StringBuffer accumulated = new StringBuffer();
+        for (int i = 0; i < 200; i++) {
+            String delta = block(i);
+            stream.onNext(StreamEvent.delta(delta, accumulated.append(delta)));
+            if (i == 100) {
+                assertTrue(repository.cancelGeneration(sessionId));
+            }
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert: the answer was completed once, and is a prefix of what was sent
+        MessageEntity placeholder = fakeMessageDao.getLastAssistantMessageSync(sessionId);
+        assertTrue(placeholder.isComplete());
+        assertEquals(0, fakeMessageDao.lateContentWrites);
+        String content = placeholder.getContent();
+        assertEquals(0, content.length() % StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS);
+        for (int i = 0; i * StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS < content.length(); i++) {
+            int start = i * StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS;
+            assertEquals(block(i), content.substring(start, start + StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS));
+        }
+    }
+
+    @Test
+    public void sendMessage_streamingOffline_shouldReplayIntoSamePlaceholder() throws Exception {
+        // Arrange
+        FakeMessageDao fakeMessageDao = new FakeMessageDao();
+        FakePendingSendDao pendingSendDao = new FakePendingSendDao();
+        ChatRepositoryImpl repository = offlineRepository(fakeMessageDao, pendingSendDao);
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        String sessionId = session.getId();
+        when(sessionDao.getByIdSync(sessionId)).thenReturn(session);
+
+        // Act: the stream cannot connect, so the send is queued
+        repository.sendMessageWithHistory(sessionId,
+                Collections.singletonList(MessageEntity.user(sessionId, "Hi")), true);
+
+        // Assert: the placeholder waits for the replay instead of completing empty
+        MessageEntity placeholder = fakeMessageDao.getLastAssistantMessageSync(sessionId);
+        assertTrue(placeholder.isStreaming());
+        assertFalse(placeholder.isComplete());
+        assertEquals(1, pendingSendDao.rows.size());
+        PendingSendEntity pendingSend = pendingSendDao.rows.values().iterator().next();
+        assertEquals(placeholder.getId(), pendingSend.getMessageId());
+
+        // Act: back online
+        Call<ChatResponse> call = mockCall();
+        when(call.execute()).thenReturn(Response.success(NetworkModule.provideGson().fromJson(
+                "{\"id\":\"chatcmpl-1\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+                        + "\"content\":\"Hello\"},\"finish_reason\":\"stop\"}],"
+                        + "\"usage\":{\"completion_tokens\":3}}", ChatResponse.class)));
+        when(apiService.createCompletion(eq("test-token"), eq(pendingSend.getIdempotencyKey()),
+                any(ChatRequest.class))).thenReturn(call);
+        boolean pending = sendQueue.drain();
+
+        // Assert: the reply fills the same placeholder
+        assertFalse(pending);
+        assertTrue(pendingSendDao.rows.isEmpty());
+        assertSame(placeholder, fakeMessageDao.getLastAssistantMessageSync(sessionId));
+        assertEquals("Hello", placeholder.getContent());
+        assertEquals(3, placeholder.getTokenCount());
+        assertFalse(placeholder.isStreaming());
+        assertTrue(placeholder.isComplete());
+    }
+
+    @Test
+    public void sendMessage_streamingOfflineRejectedOnReplay_shouldCloseThePlaceholder() throws Exception {
+        // Arrange
+        FakeMessageDao fakeMessageDao = new FakeMessageDao();
+        FakePendingSendDao pendingSendDao = new FakePendingSendDao();
+        ChatRepositoryImpl repository = offlineRepository(fakeMessageDao, pendingSendDao);
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        String sessionId = session.getId();
+        when(sessionDao.getByIdSync(sessionId)).thenReturn(session);
+        repository.sendMessageWithHistory(sessionId,
+                Collections.singletonList(MessageEntity.user(sessionId, "Hi")), true);
+        Call<ChatResponse> call = mockCall();
+        when(call.execute()).thenReturn(Response.error(400,
+                ResponseBody.create("{}", MediaType.get("application/json"))));
+        when(apiService.createCompletion(eq("test-token"), anyString(), any(ChatRequest.class)))
+                .thenReturn(call);
+
+        // Act
+        sendQueue.drain();
+
+        // Assert: the request is gone, so the placeholder must not stay streaming
+        MessageEntity placeholder = fakeMessageDao.getLastAssistantMessageSync(sessionId);
+        assertTrue(pendingSendDao.rows.isEmpty());
+        assertFalse(placeholder.isStreaming());
+        assertTrue(placeholder.isComplete());
+    }
+
+    /**
+     * Repository whose streams fail as if offline, with a queue that replays through it.
+     */
+    private ChatRepositoryImpl offlineRepository(FakeMessageDao fakeMessageDao, FakePendingSendDao pendingSendDao) {
+        ChatRepositoryImpl repository = new ChatRepositoryImpl(sessionDao, fakeMessageDao, apiService,
+                streamClient, executorService, () -> "test-token");
+        repository.setFrameInterval(0);
+        sendQueue = new SendQueue(pendingSendDao, NetworkModule.provideGson(), () -> { }, 1,
+                System::currentTimeMillis);
+        sendQueue.setReplayer(new SendQueue.Replayer() {
+            @Override
+            public SendQueue.Result replay(PendingSendEntity pendingSend, ChatRequest request) {
+                return repository.replayPendingSend(pendingSend, request);
+            }
+
+            @Override
+            public void onDropped(PendingSendEntity pendingSend) {
+                repository.dropPendingSend(pendingSend);
+            }
+        });
+        repository.setSendQueue(sendQueue);
+        when(streamClient.stream(eq("test-token"), any(ChatRequest.class), any(WireFormat.class)))
+                .thenReturn(Flowable.error(new UnknownHostException("opencode.ai")));
+        return repository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Call<ChatResponse> mockCall() {
+        return mock(Call.class);
+    }
+
+    private static String block(int index) {
+        char[] chars = new char[StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS];
+        Arrays.fill(chars, (char) ('a' + index % 26));
+        return new String(chars);
+    }
 }
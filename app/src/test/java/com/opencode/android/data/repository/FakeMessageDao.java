@@ -0,0 +1,188 @@
+package com.opencode.android.data.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.opencode.android.data.local.dao.MessageDao;
+import com.opencode.android.data.local.entity.MessageEntity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for the Room DAO that keeps rows by id and records every content
+ * write. Queries returning LiveData are not supported.
+ */
+class FakeMessageDao implements MessageDao {
+    final Map<String, MessageEntity> rows = new LinkedHashMap<>();
+    final List<String> contentWrites = new ArrayList<>();
+    // Content writes to rows that were already complete
+    int lateContentWrites;
+
+    @Override
+    public synchronized void insert(MessageEntity message) {
+        rows.put(message.getId(), message);
+    }
+
+    @Override
+    public synchronized void insertAll(List<MessageEntity> messages) {
+        for (MessageEntity message : messages) {
+            insert(message);
+        }
+    }
+
+    @Override
+    public synchronized void update(MessageEntity message) {
+        rows.put(message.getId(), message);
+    }
+
+    @Override
+    public synchronized void delete(MessageEntity message) {
+        rows.remove(message.getId());
+    }
+
+    @Override
+    public synchronized void deleteById(String messageId) {
+        rows.remove(messageId);
+    }
+
+    @Override
+    public synchronized void deleteBySessionId(String sessionId) {
+        rows.values().removeIf(message -> sessionId.equals(message.getSessionId()));
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        rows.clear();
+    }
+
+    @Override
+    public LiveData<MessageEntity> getById(String messageId) {
+        return null;
+    }
+
+    @Override
+    public synchronized MessageEntity getByIdSync(String messageId) {
+        return rows.get(messageId);
+    }
+
+    @Override
+    public LiveData<List<MessageEntity>> getBySessionId(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public synchronized List<MessageEntity> getBySessionIdSync(String sessionId) {
+        List<MessageEntity> messages = new ArrayList<>();
+        for (MessageEntity message : rows.values()) {
+            if (sessionId.equals(message.getSessionId())) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public LiveData<List<MessageEntity>> getRecentBySessionId(String sessionId, int limit) {
+        return null;
+    }
+
+    @Override
+    public LiveData<MessageEntity> getLastBySessionId(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public synchronized MessageEntity getLastBySessionIdSync(String sessionId) {
+        List<MessageEntity> messages = getBySessionIdSync(sessionId);
+        return messages.isEmpty() ? null : messages.get(messages.size() - 1);
+    }
+
+    @Override
+    public LiveData<Integer> getCountBySessionId(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public synchronized int getCountBySessionIdSync(String sessionId) {
+        return getBySessionIdSync(sessionId).size();
+    }
+
+    @Override
+    public LiveData<Integer> getTotalTokensBySessionId(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public LiveData<List<MessageEntity>> getByRole(String role) {
+        return null;
+    }
+
+    @Override
+    public LiveData<List<MessageEntity>> search(String query) {
+        return null;
+    }
+
+    @Override
+    public synchronized void updateContent(String messageId, String content) {
+        contentWrites.add(content);
+        MessageEntity message = rows.get(messageId);
+        if (message != null) {
+            if (message.isComplete()) {
+                lateContentWrites++;
+            }
+            message.setContent(content);
+        }
+    }
+
+    @Override
+    public synchronized void updateComplete(String messageId, boolean isComplete) {
+        MessageEntity message = rows.get(messageId);
+        if (message != null) {
+            message.setComplete(isComplete);
+        }
+    }
+
+    @Override
+    public synchronized void updateStreaming(String messageId, boolean isStreaming) {
+        MessageEntity message = rows.get(messageId);
+        if (message != null) {
+            message.setStreaming(isStreaming);
+        }
+    }
+
+    @Override
+    public synchronized void updateTokenCount(String messageId, int tokenCount) {
+        MessageEntity message = rows.get(messageId);
+        if (message != null) {
+            message.setTokenCount(tokenCount);
+        }
+    }
+
+    @Override
+    public synchronized void updateToolCalls(String messageId, String toolCalls) {
+        MessageEntity message = rows.get(messageId);
+        if (message != null) {
+            message.setToolCalls(toolCalls);
+        }
+    }
+
+    @Override
+    public synchronized void completeStreamedMessage(String messageId, String content, String toolCalls,
+                                                     int tokenCount) {
+        // Runs the real transaction body under this fake's lock
+        MessageDao.super.completeStreamedMessage(messageId, content, toolCalls, tokenCount);
+    }
+
+    @Override
+    public synchronized MessageEntity getLastAssistantMessageSync(String sessionId) {
+        MessageEntity last = null;
+        for (MessageEntity message : getBySessionIdSync(sessionId)) {
+            if (message.isAssistant()) {
+                last = message;
+            }
+        }
+        return last;
+    }
+}
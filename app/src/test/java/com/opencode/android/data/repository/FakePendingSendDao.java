@@ -0,0 +1,83 @@
+package com.opencode.android.data.repository;
+
+import android.database.sqlite.SQLiteConstraintException;
+
+import androidx.lifecycle.LiveData;
+
+import com.opencode.android.data.local.dao.PendingSendDao;
+import com.opencode.android.data.local.entity.PendingSendEntity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory stand-in for the Room DAO with the same claim semantics.
+ */
+class FakePendingSendDao implements PendingSendDao {
+    final Map<String, PendingSendEntity> rows = new LinkedHashMap<>();
+    // Sessions whose rows fail the foreign key on insert
+    final Set<String> deletedSessions = new HashSet<>();
+
+    @Override
+    public synchronized void insert(PendingSendEntity pendingSend) {
+        if (deletedSessions.contains(pendingSend.getSessionId())) {
+            throw new SQLiteConstraintException("FOREIGN KEY constraint failed");
+        }
+        rows.putIfAbsent(pendingSend.getIdempotencyKey(), pendingSend);
+    }
+
+    @Override
+    public synchronized List<PendingSendEntity> getReady(long staleBefore) {
+        List<PendingSendEntity> ready = new ArrayList<>();
+        for (PendingSendEntity row : rows.values()) {
+            if (row.getClaimedAt() < staleBefore) {
+                ready.add(row);
+            }
+        }
+        return ready;
+    }
+
+    @Override
+    public synchronized int claim(String idempotencyKey, long now, long staleBefore) {
+        PendingSendEntity row = rows.get(idempotencyKey);
+        if (row == null || row.getClaimedAt() >= staleBefore) {
+            return 0;
+        }
+        row.setClaimedAt(now);
+        row.setAttempts(row.getAttempts() + 1);
+        return 1;
+    }
+
+    @Override
+    public synchronized void release(String idempotencyKey, String error) {
+        PendingSendEntity row = rows.get(idempotencyKey);
+        if (row != null) {
+            row.setClaimedAt(0);
+            row.setLastError(error);
+        }
+    }
+
+    @Override
+    public synchronized void deleteByKey(String idempotencyKey) {
+        rows.remove(idempotencyKey);
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        rows.clear();
+    }
+
+    @Override
+    public LiveData<Integer> getCount() {
+        return null;
+    }
+
+    @Override
+    public synchronized int getCountSync() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,81 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.remote.zen.StreamEvent;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for FrameThrottle.
+ */
+public class FrameThrottleTest {
+
+    @Test
+    public void latestPerFrame_shouldEmitAtMostOncePerFrame() {
+        // Arrange
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<StreamEvent> source = PublishProcessor.create();
+        TestSubscriber<StreamEvent> subscriber = source
+                .compose(FrameThrottle.latestPerFrame(16, scheduler))
+                .test();
+        StringBuffer content = new StringBuffer();
+
+        // Act: 200 deltas, one per millisecond
+        for (int i = 0; i < 200; i++) {
+            content.append(i % 10);
+            source.onNext(StreamEvent.delta(String.valueOf(i % 10), content));
+            scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        }
+        source.onComplete();
+        scheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+
+        // Assert
+        subscriber.assertComplete();
+        int emissions = subscriber.values().size();
+        assertTrue("Expected at most 14 emissions but got " + emissions, emissions <= 14);
+        assertEquals(200, subscriber.values().get(emissions - 1).getContentLength());
+    }
+
+    @Test
+    public void latestPerFrame_shouldEmitFirstDeltaImmediately() {
+        // Arrange
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<StreamEvent> source = PublishProcessor.create();
+        TestSubscriber<StreamEvent> subscriber = source
+                .compose(FrameThrottle.latestPerFrame(16, scheduler))
+                .test();
+
+        // Act
+        source.onNext(StreamEvent.delta("Hi", new StringBuffer("Hi")));
+
+        // Assert
+        subscriber.assertValueCount(1);
+    }
+
+    @Test
+    public void latestPerFrame_shouldPassThroughWhenDisabled() {
+        // Arrange
+        PublishProcessor<StreamEvent> source = PublishProcessor.create();
+        TestSubscriber<StreamEvent> subscriber = source
+                .compose(FrameThrottle.latestPerFrame(0))
+                .test();
+        StringBuffer content = new StringBuffer();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            content.append('x');
+            source.onNext(StreamEvent.delta("x", content));
+        }
+
+        // Assert
+        subscriber.assertValueCount(5);
+    }
+}
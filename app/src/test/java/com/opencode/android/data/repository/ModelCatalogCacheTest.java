@@ -0,0 +1,121 @@
+package com.opencode.android.data.repository;
+
+import com.google.gson.Gson;
+import com.opencode.android.data.local.dao.SettingsDao;
+import com.opencode.android.data.local.entity.SettingsEntity;
+import com.opencode.android.data.model.zen.ModelResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ModelCatalogCache.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ModelCatalogCacheTest {
+
+    private static final long MAX_AGE_MS = 60_000;
+
+    @Mock
+    private SettingsDao settingsDao;
+
+    private ModelCatalogCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ModelCatalogCache(settingsDao, new Gson(), MAX_AGE_MS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void read_shouldRoundTripWrittenCatalog() {
+        // Arrange
+        String json = cache.serialize(Arrays.asList(model("opencode/sonic"), model("openai/gpt-5")));
+        cache.write(json, "\"v1\"", null);
+        ArgumentCaptor<List<SettingsEntity>> written = ArgumentCaptor.forClass(List.class);
+        verify(settingsDao).insertAll(written.capture());
+        for (SettingsEntity setting : written.getValue()) {
+            lenient().when(settingsDao.getByKeySync(setting.getKey())).thenReturn(setting);
+            lenient().when(settingsDao.getValueByKeySync(setting.getKey())).thenReturn(setting.getValue());
+        }
+
+        // Act
+        ModelCatalogCache.Entry entry = cache.read();
+
+        // Assert
+        assertEquals(json, entry.json);
+        assertEquals(2, entry.models.size());
+        assertEquals("openai/gpt-5", entry.models.get(1).getId());
+        assertEquals("\"v1\"", entry.etag);
+        assertNull(entry.lastModified);
+        assertTrue(cache.isFresh(entry));
+    }
+
+    @Test
+    public void read_shouldReportStaleEntry() {
+        // Arrange
+        SettingsEntity setting = new SettingsEntity(ModelCatalogCache.CACHE_KEY,
+                cache.serialize(Arrays.asList(model("opencode/sonic"))));
+        setting.setUpdatedAt(System.currentTimeMillis() - MAX_AGE_MS - 1);
+        when(settingsDao.getByKeySync(ModelCatalogCache.CACHE_KEY)).thenReturn(setting);
+
+        // Act
+        ModelCatalogCache.Entry entry = cache.read();
+
+        // Assert
+        assertFalse(cache.isFresh(entry));
+    }
+
+    @Test
+    public void read_shouldIgnoreUnparseableValue() {
+        // Arrange
+        when(settingsDao.getByKeySync(ModelCatalogCache.CACHE_KEY))
+                .thenReturn(new SettingsEntity(ModelCatalogCache.CACHE_KEY, "1712345678"));
+
+        // Act & Assert
+        assertNull(cache.read());
+    }
+
+    @Test
+    public void serialize_shouldBeStableForEqualCatalogs() {
+        // Arrange
+        List<ModelResponse.ModelInfo> first = Arrays.asList(model("opencode/sonic"));
+        List<ModelResponse.ModelInfo> second = Arrays.asList(model("opencode/sonic"));
+
+        // Act & Assert
+        assertEquals(cache.serialize(first), cache.serialize(second));
+    }
+
+    @Test
+    public void touch_shouldOnlyUpdateTimestamp() {
+        // Act
+        cache.touch();
+
+        // Assert
+        verify(settingsDao).updateTimestamp(eq(ModelCatalogCache.CACHE_KEY), anyLong());
+    }
+
+    private static ModelResponse.ModelInfo model(String id) {
+        ModelResponse.ModelInfo info = new ModelResponse.ModelInfo();
+        info.setId(id);
+        info.setOwnedBy("test");
+        return info;
+    }
+}
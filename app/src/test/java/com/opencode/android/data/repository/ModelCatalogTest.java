@@ -0,0 +1,172 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.model.zen.ModelResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ModelCatalog.
+ */
+public class ModelCatalogTest {
+
+    private ModelCatalog catalog;
+
+    @Before
+    public void setUp() {
+        catalog = ModelCatalog.of(Arrays.asList(
+                model("gpt-5"),
+                model("gpt-5-nano"),
+                model("claude-sonnet-4-5"),
+                model("opencode/big-pickle"),
+                model("grok-code-fast")), Collections.emptySet());
+    }
+
+    @Test
+    public void getById_shouldFindExactId() {
+        // Act & Assert
+        assertEquals("claude-sonnet-4-5", catalog.getById("claude-sonnet-4-5").getId());
+        assertNull(catalog.getById("claude"));
+        assertNull(catalog.getById(null));
+    }
+
+    @Test
+    public void getByProvider_shouldReturnBucket() {
+        // Act
+        List<ModelResponse.ModelInfo> openAi = catalog.getByProvider("OpenAI");
+
+        // Assert
+        assertEquals(2, openAi.size());
+        assertTrue(catalog.getByProvider("Google").isEmpty());
+    }
+
+    @Test
+    public void search_shouldMatchNameOrIdIgnoringCase() {
+        // Act & Assert
+        assertEquals(2, catalog.search("GPT").size());
+        assertEquals(1, catalog.search("big pickle").size());
+        assertEquals(1, catalog.search("opencode/").size());
+        assertEquals(4, catalog.search("o").size());
+        assertTrue(catalog.search("sonnet-5").isEmpty());
+        assertTrue(catalog.search(null).isEmpty());
+        assertEquals(5, catalog.search("").size());
+    }
+
+    @Test
+    public void search_shouldAgreeWithLinearScan() {
+        // Arrange
+        List<ModelResponse.ModelInfo> models = new ArrayList<>();
+        String[] words = {"gpt", "claude", "sonnet", "opus", "mini", "nano", "code", "fast", "4", "5"};
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            models.add(model(words[random.nextInt(words.length)] + "-" + words[random.nextInt(words.length)]
+                    + "-" + i));
+        }
+        ModelCatalog large = ModelCatalog.of(models, Collections.emptySet());
+
+        for (String query : new String[]{"c", "co", "cod", "code", "e-f", "nano-1", "-4-", "sonnet opus", "zzz"}) {
+            // Act
+            List<ModelResponse.ModelInfo> results = large.search(query);
+
+            // Assert
+            List<ModelResponse.ModelInfo> expected = new ArrayList<>();
+            for (ModelResponse.ModelInfo model : models) {
+                if (model.getDisplayName().toLowerCase(Locale.ROOT).contains(query)
+                        || model.getId().toLowerCase(Locale.ROOT).contains(query)) {
+                    expected.add(model);
+                }
+            }
+            assertEquals(query, expected, results);
+        }
+    }
+
+    @Test
+    public void merge_shouldKeepFirstModelPerIdInOrder() {
+        // Arrange
+        ModelResponse.ModelInfo free = model("opencode/sonic");
+        ModelResponse.ModelInfo apiCopy = model("opencode/sonic");
+
+        // Act
+        ModelCatalog merged = ModelCatalog.merge(Arrays.asList(free), Arrays.asList(model("gpt-5"), apiCopy),
+                Collections.emptySet());
+
+        // Assert
+        assertEquals(2, merged.size());
+        assertSame(free, merged.getModels().get(0));
+        assertSame(free, merged.getById("opencode/sonic"));
+    }
+
+    @Test
+    public void filter_shouldMatchAllRequiredFlags() {
+        // Arrange
+        ModelCatalog priced = ModelCatalog.of(Arrays.asList(
+                priced("free-tools-stream", "$0.00", "$0.00", "stream", "tools"),
+                priced("free-tools", "$0.00", "", "tools"),
+                priced("paid-tools-stream", "$1.25", "$10.00", "stream", "tools"),
+                priced("builtin", "$3.00", "$15.00", "stream", "tools", "vision")),
+                Collections.singleton("builtin"));
+
+        // Act
+        List<ModelResponse.ModelInfo> results =
+                priced.filter(ModelCatalog.FREE | ModelCatalog.TOOLS | ModelCatalog.STREAM);
+
+        // Assert
+        assertEquals(2, results.size());
+        assertEquals("free-tools-stream", results.get(0).getId());
+        assertEquals("builtin", results.get(1).getId());
+        assertTrue(priced.hasFlags("free-tools", ModelCatalog.FREE | ModelCatalog.TOOLS));
+        assertEquals(0, priced.getFlags("missing"));
+    }
+
+    @Test
+    public void getFlags_shouldTreatMissingPricingAsPaid() {
+        // Act & Assert
+        assertEquals(0, catalog.getFlags("gpt-5") & ModelCatalog.FREE);
+        assertEquals(ModelCatalog.UNKNOWN_PRICE, catalog.getPromptPriceMicros("gpt-5"));
+    }
+
+    @Test
+    public void parsePrice_shouldUseFixedPointMicros() {
+        // Act & Assert
+        assertEquals(0, ModelCatalog.parsePrice("$0.00"));
+        assertEquals(0, ModelCatalog.parsePrice(null));
+        assertEquals(1_250_000, ModelCatalog.parsePrice("$1.25"));
+        assertEquals(150_000, ModelCatalog.parsePrice(" 0.15 "));
+        assertEquals(ModelCatalog.UNKNOWN_PRICE, ModelCatalog.parsePrice("free"));
+    }
+
+    private static ModelResponse.ModelInfo priced(String id, String prompt, String completion,
+                                                  String... capabilities) {
+        ModelResponse.ModelInfo info = model(id);
+        ModelResponse.ModelInfo.Pricing pricing = new ModelResponse.ModelInfo.Pricing();
+        pricing.setPromptTokens(prompt);
+        pricing.setCompletionTokens(completion);
+        info.setPricing(pricing);
+        Map<String, Boolean> map = new HashMap<>();
+        for (String capability : capabilities) {
+            map.put(capability, true);
+        }
+        info.setCapabilities(map);
+        return info;
+    }
+
+    private static ModelResponse.ModelInfo model(String id) {
+        ModelResponse.ModelInfo info = new ModelResponse.ModelInfo();
+        info.setId(id);
+        return info;
+    }
+}
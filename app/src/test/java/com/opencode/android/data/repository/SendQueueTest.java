@@ -0,0 +1,231 @@
+package com.opencode.android.data.repository;
+
+import com.google.gson.Gson;
+import com.opencode.android.data.local.entity.PendingSendEntity;
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for SendQueue.
+ */
+public class SendQueueTest {
+
+    private final FakePendingSendDao dao = new FakePendingSendDao();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private SendQueue queue;
+
+    @Before
+    public void setup() {
+        queue = new SendQueue(dao, new Gson(), scheduled::incrementAndGet, 2, now::get);
+    }
+
+    @Test
+    public void isOfflineFailure_shouldOnlyAcceptFailuresBeforeTheRequestLeft() {
+        assertTrue(SendQueue.isOfflineFailure(new UnknownHostException("opencode.ai")));
+        assertTrue(SendQueue.isOfflineFailure(new IOException(new ConnectException("refused"))));
+        assertFalse(SendQueue.isOfflineFailure(new SocketTimeoutException("timeout")));
+        assertFalse(SendQueue.isOfflineFailure(new IllegalStateException()));
+    }
+
+    @Test
+    public void enqueue_shouldPersistAndScheduleDrain() {
+        // Act
+        String key = queue.enqueue("session-1", null, request());
+
+        // Assert
+        assertEquals(1, dao.rows.size());
+        assertEquals("session-1", dao.rows.get(key).getSessionId());
+        assertEquals(1, scheduled.get());
+    }
+
+    @Test
+    public void enqueue_whenSessionDeleted_shouldDropWithoutScheduling() {
+        // Arrange
+        dao.deletedSessions.add("session-1");
+
+        // Act
+        String key = queue.enqueue("session-1", "message-1", request());
+
+        // Assert
+        assertNull(key);
+        assertTrue(dao.rows.isEmpty());
+        assertEquals(0, scheduled.get());
+    }
+
+    @Test
+    public void drain_shouldReplayWithoutStreamingAndRemoveSent() {
+        // Arrange
+        String key = queue.enqueue("session-1", null, request());
+        List<String> replayedKeys = new ArrayList<>();
+        queue.setReplayer((pendingSend, request) -> {
+            assertEquals(Boolean.FALSE, request.getStream());
+            assertEquals("glm-4.7", request.getModel());
+            replayedKeys.add(pendingSend.getIdempotencyKey());
+            return SendQueue.Result.SENT;
+        });
+
+        // Act
+        boolean pending = queue.drain();
+
+        // Assert
+        assertFalse(pending);
+        assertEquals(Collections.singletonList(key), replayedKeys);
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void drain_whenReplayFails_shouldKeepRequestWithSameKey() {
+        // Arrange
+        String key = queue.enqueue("session-1", null, request());
+        queue.setReplayer((pendingSend, request) -> SendQueue.Result.RETRY);
+
+        // Act
+        boolean pending = queue.drain();
+
+        // Assert
+        assertTrue(pending);
+        PendingSendEntity row = dao.rows.get(key);
+        assertEquals(1, row.getAttempts());
+        assertEquals(0, row.getClaimedAt());
+    }
+
+    @Test
+    public void drain_shouldGiveUpAfterMaxAttempts() {
+        // Arrange
+        String key = queue.enqueue("session-1", null, request());
+        dao.rows.get(key).setAttempts(SendQueue.MAX_ATTEMPTS - 1);
+        queue.setReplayer((pendingSend, request) -> SendQueue.Result.RETRY);
+
+        // Act
+        boolean pending = queue.drain();
+
+        // Assert
+        assertFalse(pending);
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void drain_whenDropped_shouldNotifyReplayer() {
+        // Arrange
+        String key = queue.enqueue("session-1", "message-1", request());
+        List<String> droppedKeys = new ArrayList<>();
+        queue.setReplayer(new SendQueue.Replayer() {
+            @Override
+            public SendQueue.Result replay(PendingSendEntity pendingSend, ChatRequest request) {
+                return SendQueue.Result.DROP;
+            }
+
+            @Override
+            public void onDropped(PendingSendEntity pendingSend) {
+                droppedKeys.add(pendingSend.getIdempotencyKey());
+            }
+        });
+
+        // Act
+        boolean pending = queue.drain();
+
+        // Assert
+        assertFalse(pending);
+        assertEquals(Collections.singletonList(key), droppedKeys);
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void drain_shouldSkipRequestClaimedByAnotherDrain() {
+        // Arrange
+        String key = queue.enqueue("session-1", null, request());
+        dao.rows.get(key).setClaimedAt(now.get() - 1);
+        AtomicInteger replays = new AtomicInteger();
+        queue.setReplayer((pendingSend, request) -> {
+            replays.incrementAndGet();
+            return SendQueue.Result.SENT;
+        });
+
+        // Act
+        queue.drain();
+        now.addAndGet(SendQueue.CLAIM_TIMEOUT_MS);
+        queue.drain();
+
+        // Assert: replayed only once the claim went stale
+        assertEquals(1, replays.get());
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void drain_withRequestQueuedMeanwhile_shouldAskForRetry() {
+        // Arrange: a request is queued while the drain is replaying another
+        queue.enqueue("session-1", null, request());
+        List<String> queuedMeanwhile = new ArrayList<>();
+        queue.setReplayer((pendingSend, request) -> {
+            if (queuedMeanwhile.isEmpty()) {
+                queuedMeanwhile.add(queue.enqueue("session-2", null, request()));
+            }
+            return SendQueue.Result.SENT;
+        });
+
+        // Act
+        boolean pending = queue.drain();
+
+        // Assert: the kept worker runs again for it
+        assertTrue(pending);
+        assertEquals(1, dao.rows.size());
+        assertTrue(dao.rows.containsKey(queuedMeanwhile.get(0)));
+        assertFalse(queue.drain());
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void drain_shouldBoundParallelism() {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            queue.enqueue("session-1", null, request());
+            now.incrementAndGet();
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        queue.setReplayer((pendingSend, request) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return SendQueue.Result.SENT;
+        });
+
+        // Act
+        queue.drain();
+
+        // Assert
+        assertTrue(maxRunning.get() <= 2);
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    private static ChatRequest request() {
+        return new ChatRequest.Builder()
+                .model("glm-4.7")
+                .messages(Collections.singletonList(ChatMessage.user("Hi")))
+                .stream(true)
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.opencode.android.data.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for SingleFlight.
+ */
+public class SingleFlightTest {
+
+    private static final long DEBOUNCE_MS = 2000;
+
+    private long now;
+    private int calls;
+    private final List<Consumer<String>> pending = new ArrayList<>();
+    private SingleFlight<String> flight;
+
+    @Before
+    public void setUp() {
+        now = 10_000;
+        flight = new SingleFlight<>(DEBOUNCE_MS, result -> !result.startsWith("error"), () -> now);
+    }
+
+    @Test
+    public void execute_shouldShareInFlightCall() {
+        // Arrange
+        List<String> results = new ArrayList<>();
+
+        // Act
+        flight.execute(this::startCall, results::add);
+        flight.execute(this::startCall, results::add);
+        flight.execute(this::startCall, results::add);
+        pending.get(0).accept("catalog");
+
+        // Assert
+        assertEquals(1, calls);
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch("catalog"::equals));
+    }
+
+    @Test
+    public void execute_shouldReuseRecentResultWithinDebounce() {
+        // Arrange
+        List<String> results = new ArrayList<>();
+        flight.execute(this::startCall, results::add);
+        pending.get(0).accept("catalog");
+
+        // Act
+        now += DEBOUNCE_MS - 1;
+        flight.execute(this::startCall, results::add);
+
+        // Assert
+        assertEquals(1, calls);
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void execute_shouldStartNewCallAfterDebounce() {
+        // Arrange
+        flight.execute(this::startCall, result -> { });
+        pending.get(0).accept("catalog");
+
+        // Act
+        now += DEBOUNCE_MS;
+        flight.execute(this::startCall, result -> { });
+
+        // Assert
+        assertEquals(2, calls);
+    }
+
+    @Test
+    public void execute_shouldNotReuseFailedResult() {
+        // Arrange
+        flight.execute(this::startCall, result -> { });
+        pending.get(0).accept("error 503");
+
+        // Act
+        flight.execute(this::startCall, result -> { });
+
+        // Assert
+        assertEquals(2, calls);
+    }
+
+    @Test
+    public void invalidate_shouldForceNewCall() {
+        // Arrange
+        flight.execute(this::startCall, result -> { });
+        pending.get(0).accept("catalog");
+
+        // Act
+        flight.invalidate();
+        flight.execute(this::startCall, result -> { });
+
+        // Assert
+        assertEquals(2, calls);
+    }
+
+    @Test
+    public void invalidate_whileInFlight_shouldStartNewCallForLaterCallers() {
+        // Arrange: a fetch with the old credentials is in flight
+        List<String> before = new ArrayList<>();
+        List<String> after = new ArrayList<>();
+        flight.execute(this::startCall, before::add);
+
+        // Act
+        flight.invalidate();
+        flight.execute(this::startCall, after::add);
+        pending.get(0).accept("old catalog");
+        pending.get(1).accept("new catalog");
+        flight.execute(this::startCall, after::add);
+
+        // Assert: the detached result is neither shared nor reused
+        assertEquals(2, calls);
+        assertEquals(Collections.singletonList("old catalog"), before);
+        assertEquals(Arrays.asList("new catalog", "new catalog"), after);
+    }
+
+    @Test
+    public void execute_shouldMakeOneCallForConcurrentCallers() throws InterruptedException {
+        // Arrange
+        SingleFlight<String> slowFlight = new SingleFlight<>(DEBOUNCE_MS, result -> true, () -> now);
+        AtomicInteger started = new AtomicInteger();
+        CountDownLatch delivered = new CountDownLatch(50);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        SingleFlight.Call<String> call = done -> {
+            started.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.accept("catalog");
+            });
+        };
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            executor.execute(() -> slowFlight.execute(call, result -> delivered.countDown()));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, started.get());
+        executor.shutdownNow();
+    }
+
+    private void startCall(Consumer<String> onResult) {
+        calls++;
+        pending.add(onResult);
+    }
+}
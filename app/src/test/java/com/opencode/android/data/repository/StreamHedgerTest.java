@@ -0,0 +1,144 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.model.zen.ChatMessage;
+import com.opencode.android.data.model.zen.ChatRequest;
+import com.opencode.android.data.model.zen.ModelResponse;
+import com.opencode.android.data.remote.zen.StreamEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Unit tests for StreamHedger.
+ */
+public class StreamHedgerTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final AtomicLong now = new AtomicLong();
+    private final Map<String, PublishProcessor<StreamEvent>> streams = new HashMap<>();
+    private List<ModelResponse.ModelInfo> freeModels;
+    private StreamHedger hedger;
+
+    @Before
+    public void setup() {
+        freeModels = Arrays.asList(model("opencode/sonic"), model("opencode/big-pickle"));
+        hedger = new StreamHedger(() -> freeModels, 0.95, scheduler, now::get);
+        hedger.setEnabled(true);
+    }
+
+    @Test
+    public void stream_whenPrimaryAnswersBeforeDeadline_shouldNotSendBackup() {
+        // Act
+        TestSubscriber<StreamEvent> subscriber = hedger.stream(request("opencode/sonic"), this::open).test();
+        streams.get("opencode/sonic").onNext(delta("Hi"));
+        scheduler.advanceTimeBy(StreamHedger.DEFAULT_DEADLINE_MS, TimeUnit.MILLISECONDS);
+
+        // Assert
+        subscriber.assertValueCount(1);
+        assertFalse(streams.containsKey("opencode/big-pickle"));
+    }
+
+    @Test
+    public void stream_whenPrimaryMissesDeadline_shouldHedgeAndCancelLoser() {
+        // Act
+        TestSubscriber<StreamEvent> subscriber = hedger.stream(request("opencode/sonic"), this::open).test();
+        PublishProcessor<StreamEvent> primary = streams.get("opencode/sonic");
+        scheduler.advanceTimeBy(StreamHedger.DEFAULT_DEADLINE_MS, TimeUnit.MILLISECONDS);
+        PublishProcessor<StreamEvent> backup = streams.get("opencode/big-pickle");
+        backup.onNext(delta("Hello"));
+        backup.onComplete();
+
+        // Assert
+        assertFalse(primary.hasSubscribers());
+        subscriber.assertComplete();
+        assertEquals("Hello", subscriber.values().get(0).getText());
+    }
+
+    @Test
+    public void stream_forPaidModel_shouldNotHedge() {
+        // Act
+        hedger.stream(request("claude-sonnet-4-5"), this::open).test();
+        scheduler.advanceTimeBy(StreamHedger.MAX_DEADLINE_MS, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertEquals(Collections.singleton("claude-sonnet-4-5"), streams.keySet());
+    }
+
+    @Test
+    public void deadlineMs_shouldFollowPercentileOfFirstTokenLatencies() {
+        // Arrange
+        assertEquals(StreamHedger.DEFAULT_DEADLINE_MS, hedger.deadlineMs());
+        hedger.setEnabled(false);
+
+        // Act: 20 first tokens at 1..20 seconds
+        for (int i = 1; i <= 20; i++) {
+            hedger.stream(request("opencode/sonic"), this::open).test();
+            now.addAndGet(1000L * i);
+            streams.get("opencode/sonic").onNext(delta("x"));
+            now.addAndGet(-1000L * i);
+        }
+
+        // Assert: nearest-rank p95 of 20 samples is the 19th, clamped to the maximum
+        assertEquals(StreamHedger.MAX_DEADLINE_MS, hedger.deadlineMs());
+    }
+
+    @Test
+    public void latencyWindow_shouldKeepMostRecentSamples() {
+        // Arrange
+        StreamHedger.LatencyWindow window = new StreamHedger.LatencyWindow(4);
+
+        // Act
+        for (long sample : new long[]{900, 900, 100, 200, 300, 400}) {
+            window.add(sample);
+        }
+
+        // Assert
+        assertEquals(400, window.percentile(1.0, 4));
+        assertEquals(200, window.percentile(0.5, 4));
+        assertEquals(-1, new StreamHedger.LatencyWindow(4).percentile(0.5, 1));
+    }
+
+    private Flowable<StreamEvent> open(ChatRequest request) {
+        PublishProcessor<StreamEvent> processor = PublishProcessor.create();
+        streams.put(request.getModel(), processor);
+        return processor;
+    }
+
+    private static ChatRequest request(String model) {
+        return new ChatRequest.Builder()
+                .model(model)
+                .messages(Collections.singletonList(ChatMessage.user("Hi")))
+                .stream(true)
+                .build();
+    }
+
+    private static StreamEvent delta(String text) {
+        return StreamEvent.delta(text, new StringBuffer(text));
+    }
+
+    private static ModelResponse.ModelInfo model(String id) {
+        ModelResponse.ModelInfo model = new ModelResponse.ModelInfo();
+        model.setId(id);
+        Map<String, Boolean> capabilities = new HashMap<>();
+        capabilities.put("stream", true);
+        capabilities.put("tools", true);
+        model.setCapabilities(capabilities);
+        return model;
+    }
+}
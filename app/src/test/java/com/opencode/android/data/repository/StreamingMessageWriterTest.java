@@ -0,0 +1,158 @@
+package com.opencode.android.data.repository;
+
+import com.opencode.android.data.local.entity.MessageEntity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for StreamingMessageWriter.
+ */
+public class StreamingMessageWriterTest {
+
+    private final FakeMessageDao messageDao = new FakeMessageDao();
+    private final AtomicLong now = new AtomicLong(10_000);
+    private StreamingMessageWriter writer;
+    private MessageEntity message;
+
+    @Before
+    public void setup() {
+        writer = new StreamingMessageWriter(messageDao,
+                StreamingMessageWriter.DEFAULT_FLUSH_INTERVAL_MS,
+                StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS, now::get);
+        message = MessageEntity.assistant("session-1", "");
+        message.setStreaming(true);
+        messageDao.insert(message);
+        writer.begin(message.getId());
+    }
+
+    @Test
+    public void append_shouldBufferUntilFlushInterval() {
+        // Act
+        writer.append(message.getId(), "Hel");
+        now.addAndGet(999);
+        writer.append(message.getId(), "lo");
+        int writesBeforeInterval = messageDao.contentWrites.size();
+        now.addAndGet(1);
+        writer.append(message.getId(), " world");
+
+        // Assert
+        assertEquals(0, writesBeforeInterval);
+        assertEquals(Collections.singletonList("Hello world"), messageDao.contentWrites);
+    }
+
+    @Test
+    public void append_shouldFlushAtThresholdChars() {
+        // Arrange
+        char[] half = new char[StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS / 2];
+        Arrays.fill(half, 'a');
+        String delta = new String(half);
+
+        // Act
+        writer.append(message.getId(), delta);
+        int writesBelowThreshold = messageDao.contentWrites.size();
+        writer.append(message.getId(), delta);
+
+        // Assert: flushed on size alone, with no time passing
+        assertEquals(0, writesBelowThreshold);
+        assertEquals(1, messageDao.contentWrites.size());
+        assertEquals(StreamingMessageWriter.DEFAULT_FLUSH_THRESHOLD_CHARS,
+                messageDao.contentWrites.get(0).length());
+    }
+
+    @Test
+    public void flush_shouldOnlyWriteNewContent() {
+        // Act
+        writer.append(message.getId(), "Hi");
+        writer.flush(message.getId());
+        writer.flush(message.getId());
+
+        // Assert
+        assertEquals(Collections.singletonList("Hi"), messageDao.contentWrites);
+    }
+
+    @Test
+    public void getContent_shouldIncludeUnflushedDeltas() {
+        // Act
+        writer.append(message.getId(), "Hel");
+        writer.append(message.getId(), "lo");
+
+        // Assert
+        assertEquals("Hello", writer.getContent(message.getId()));
+        assertTrue(messageDao.contentWrites.isEmpty());
+        assertNull(writer.getContent("unknown"));
+    }
+
+    @Test
+    public void finish_shouldCompleteMessageInOneTransaction() {
+        // Arrange
+        writer.append(message.getId(), "Hel");
+        writer.append(message.getId(), "lo");
+        writer.setToolCalls(message.getId(), "[{\"id\":\"call_1\"}]");
+        writer.setTokenCount(message.getId(), 5);
+
+        // Act
+        writer.finish(message.getId());
+
+        // Assert
+        MessageEntity row = messageDao.getByIdSync(message.getId());
+        assertEquals("Hello", row.getContent());
+        assertEquals("[{\"id\":\"call_1\"}]", row.getToolCalls());
+        assertEquals(5, row.getTokenCount());
+        assertTrue(row.isComplete());
+        assertFalse(row.isStreaming());
+        assertNull(writer.getContent(message.getId()));
+    }
+
+    @Test
+    public void finish_withoutUsage_shouldCountDeltas() {
+        // Arrange
+        writer.append(message.getId(), "Hel");
+        writer.append(message.getId(), "lo");
+        writer.append(message.getId(), "!");
+
+        // Act
+        writer.finish(message.getId());
+
+        // Assert
+        assertEquals(3, messageDao.getByIdSync(message.getId()).getTokenCount());
+    }
+
+    @Test
+    public void finish_shouldOnlyWriteOnce() {
+        // Arrange
+        writer.append(message.getId(), "Hello");
+        writer.finish(message.getId());
+
+        // Act: a cancel racing the end of the stream finishes again
+        writer.finish(message.getId());
+        writer.append(message.getId(), " late");
+
+        // Assert
+        assertEquals(Collections.singletonList("Hello"), messageDao.contentWrites);
+        assertEquals("Hello", messageDao.getByIdSync(message.getId()).getContent());
+    }
+
+    @Test
+    public void abandon_shouldLeaveTheRowStreaming() {
+        // Act: a queued replay will fill the placeholder instead
+        writer.abandon(message.getId());
+        writer.append(message.getId(), "late");
+        writer.finish(message.getId());
+
+        // Assert
+        MessageEntity row = messageDao.getByIdSync(message.getId());
+        assertTrue(messageDao.contentWrites.isEmpty());
+        assertTrue(row.isStreaming());
+        assertFalse(row.isComplete());
+    }
+}
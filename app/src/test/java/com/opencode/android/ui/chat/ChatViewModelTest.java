@@ -1,12 +1,17 @@
 package com.opencode.android.ui.chat;
 
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.opencode.android.data.local.entity.MessageEntity;
 import com.opencode.android.data.local.entity.SessionEntity;
 import com.opencode.android.data.model.zen.ModelResponse;
+import com.opencode.android.data.remote.ConnectionPrewarmer;
+import com.opencode.android.data.remote.zen.StreamEvent;
 import com.opencode.android.data.repository.ChatRepository;
+import com.opencode.android.data.repository.InFlightMessage;
+import com.opencode.android.data.repository.LiveMessageOverlay;
 import com.opencode.android.data.repository.ModelRepository;
 
 import org.junit.Before;
@@ -21,6 +26,10 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,11 +48,14 @@ public class ChatViewModelTest {
     @Mock
     private ModelRepository modelRepository;
 
+    @Mock
+    private ConnectionPrewarmer connectionPrewarmer;
+
     private ChatViewModel viewModel;
 
     @Before
     public void setup() {
-        viewModel = new ChatViewModel(chatRepository, modelRepository);
+        viewModel = new ChatViewModel(chatRepository, modelRepository, connectionPrewarmer);
     }
 
     @Test
@@ -104,6 +116,15 @@ public class ChatViewModelTest {
         verify(chatRepository).pinSession(sessionId, pinned);
     }
 
+    @Test
+    public void onComposeFocused_shouldPrewarmConnection() {
+        // Act
+        viewModel.onComposeFocused();
+
+        // Assert
+        verify(connectionPrewarmer).prewarm();
+    }
+
     @Test
     public void setLoading_shouldUpdateLoadingState() {
         // Act
@@ -184,4 +205,56 @@ public class ChatViewModelTest {
         // Assert
         verify(chatRepository).sendMessage(sessionId, content, true);
     }
+
+    @Test
+    public void getStreamingMessage_shouldForwardOverlayWhileRowStreams() {
+        // Arrange
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        MessageEntity placeholder = MessageEntity.assistant(session.getId(), "Hel");
+        placeholder.setStreaming(true);
+        LiveMessageOverlay overlay = new LiveMessageOverlay();
+        when(chatRepository.getMessagesBySessionId(session.getId()))
+                .thenReturn(new MutableLiveData<>(Arrays.asList(placeholder)));
+        when(chatRepository.getInFlightMessage(session.getId())).thenReturn(overlay.observe(session.getId()));
+        LiveData<InFlightMessage> streaming = viewModel.getStreamingMessage(session.getId());
+
+        // Act
+        overlay.update(session.getId(), placeholder.getId(),
+                StreamEvent.delta("lo", new StringBuffer("Hello")));
+
+        // Assert
+        assertNotNull(streaming.getValue());
+        assertEquals("Hello", streaming.getValue().getContent());
+        verify(chatRepository, never()).releaseInFlightMessage(anyString(), anyString());
+    }
+
+    @Test
+    public void getStreamingMessage_shouldReleaseOverlayOnceRowCompletes() {
+        // Arrange
+        SessionEntity session = new SessionEntity("Chat", "glm-4.7");
+        MessageEntity placeholder = MessageEntity.assistant(session.getId(), "");
+        placeholder.setStreaming(true);
+        LiveMessageOverlay overlay = new LiveMessageOverlay();
+        MutableLiveData<List<MessageEntity>> persisted = new MutableLiveData<>(Arrays.asList(placeholder));
+        when(chatRepository.getMessagesBySessionId(session.getId())).thenReturn(persisted);
+        when(chatRepository.getInFlightMessage(session.getId())).thenReturn(overlay.observe(session.getId()));
+        doAnswer(invocation -> {
+            overlay.release(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(chatRepository).releaseInFlightMessage(session.getId(), placeholder.getId());
+        LiveData<InFlightMessage> streaming = viewModel.getStreamingMessage(session.getId());
+        overlay.update(session.getId(), placeholder.getId(),
+                StreamEvent.delta("Hello", new StringBuffer("Hello")));
+
+        // Act: the final write lands in Room
+        MessageEntity completed = placeholder.copyWithContent("Hello world");
+        completed.setStreaming(false);
+        completed.setComplete(true);
+        persisted.setValue(Arrays.asList(completed));
+
+        // Assert
+        verify(chatRepository).releaseInFlightMessage(session.getId(), placeholder.getId());
+        assertNull(overlay.observe(session.getId()).getValue());
+        assertNull(streaming.getValue());
+    }
 }
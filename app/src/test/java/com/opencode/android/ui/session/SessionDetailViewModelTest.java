@@ -0,0 +1,172 @@
+package com.opencode.android.ui.session;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.MutableLiveData;
+
+import com.opencode.android.data.local.entity.MessageEntity;
+import com.opencode.android.data.local.entity.SessionEntity;
+import com.opencode.android.data.remote.zen.StreamEvent;
+import com.opencode.android.data.repository.ChatRepository;
+import com.opencode.android.data.repository.LiveMessageOverlay;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SessionDetailViewModel.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SessionDetailViewModelTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    @Mock
+    private ChatRepository chatRepository;
+
+    private final LiveMessageOverlay overlay = new LiveMessageOverlay();
+    private final MutableLiveData<List<MessageEntity>> persisted = new MutableLiveData<>();
+    private SessionEntity session;
+    private MessageEntity user;
+    private MessageEntity placeholder;
+    private SessionDetailViewModel viewModel;
+
+    @Before
+    public void setup() {
+        session = new SessionEntity("Chat", "glm-4.7");
+        user = MessageEntity.user(session.getId(), "Hi");
+        placeholder = MessageEntity.assistant(session.getId(), "");
+        placeholder.setStreaming(true);
+
+        when(chatRepository.getSessionById(session.getId())).thenReturn(new MutableLiveData<>(session));
+        when(chatRepository.getMessagesBySessionId(session.getId())).thenReturn(persisted);
+        when(chatRepository.getInFlightMessage(session.getId())).thenReturn(overlay.observe(session.getId()));
+
+        viewModel = new SessionDetailViewModel(chatRepository);
+        viewModel.loadSession(session.getId());
+    }
+
+    @Test
+    public void overlay_shouldMaskStalePersistedRow() {
+        // Arrange: Room still holds the first flush of the answer
+        placeholder.setContent("Hel");
+        persisted.setValue(Arrays.asList(user, placeholder));
+
+        // Act
+        overlay.update(session.getId(), placeholder.getId(),
+                StreamEvent.delta("lo world", new StringBuffer("Hello world")));
+
+        // Assert
+        List<MessageEntity> messages = viewModel.getMessages().getValue();
+        assertEquals(2, messages.size());
+        assertSame(user, messages.get(0));
+        assertEquals(placeholder.getId(), messages.get(1).getId());
+        assertEquals("Hello world", messages.get(1).getContent());
+        // The persisted row itself is left untouched
+        assertEquals("Hel", placeholder.getContent());
+        verify(chatRepository, never()).releaseInFlightMessage(anyString(), anyString());
+    }
+
+    @Test
+    public void overlay_shouldBeReleasedOnceRowCompletes() {
+        // Arrange
+        doAnswer(invocation -> {
+            overlay.release(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(chatRepository).releaseInFlightMessage(session.getId(), placeholder.getId());
+        persisted.setValue(Arrays.asList(user, placeholder));
+        overlay.update(session.getId(), placeholder.getId(),
+                StreamEvent.delta("Hello", new StringBuffer("Hello")));
+
+        // Act: the final write lands in Room
+        MessageEntity completed = placeholder.copyWithContent("Hello world");
+        completed.setStreaming(false);
+        completed.setComplete(true);
+        persisted.setValue(Arrays.asList(user, completed));
+
+        // Assert: the persisted row is shown as is and the overlay is dropped
+        verify(chatRepository).releaseInFlightMessage(session.getId(), placeholder.getId());
+        assertNull(overlay.observe(session.getId()).getValue());
+        List<MessageEntity> messages = viewModel.getMessages().getValue();
+        assertSame(completed, messages.get(1));
+        assertEquals("Hello world", messages.get(1).getContent());
+    }
+
+    @Test
+    public void overlay_forAnotherMessage_shouldNotChangeRows() {
+        // Arrange
+        MessageEntity answered = MessageEntity.assistant(session.getId(), "Earlier answer");
+        answered.setComplete(true);
+        persisted.setValue(Arrays.asList(user, answered));
+
+        // Act: deltas arrive before the new placeholder is visible in Room
+        overlay.update(session.getId(), placeholder.getId(),
+                StreamEvent.delta("Hel", new StringBuffer("Hel")));
+
+        // Assert
+        List<MessageEntity> messages = viewModel.getMessages().getValue();
+        assertEquals(2, messages.size());
+        assertSame(answered, messages.get(1));
+    }
+
+    @Test
+    public void loadSession_forAnotherSession_shouldStopMergingPreviousOverlay() {
+        // Arrange: an answer is streaming into the first session
+        persisted.setValue(Arrays.asList(user, placeholder));
+        SessionEntity other = new SessionEntity("Other", "glm-4.7");
+        MessageEntity otherAnswer = MessageEntity.assistant(other.getId(), "Done");
+        otherAnswer.setComplete(true);
+        MutableLiveData<List<MessageEntity>> otherPersisted = new MutableLiveData<>(Arrays.asList(otherAnswer));
+        when(chatRepository.getSessionById(other.getId())).thenReturn(new MutableLiveData<>(other));
+        when(chatRepository.getMessagesBySessionId(other.getId())).thenReturn(otherPersisted);
+        when(chatRepository.getInFlightMessage(other.getId())).thenReturn(overlay.observe(other.getId()));
+
+        // Act
+        viewModel.loadSession(other.getId());
+        overlay.update(session.getId(), placeholder.getId(),
+                StreamEvent.delta("Hel", new StringBuffer("Hel")));
+        persisted.setValue(Arrays.asList(user));
+
+        // Assert: only the second session is shown
+        assertSame(other, viewModel.getSession().getValue());
+        List<MessageEntity> messages = viewModel.getMessages().getValue();
+        assertEquals(1, messages.size());
+        assertSame(otherAnswer, messages.get(0));
+        assertFalse(persisted.hasObservers());
+        assertFalse(overlay.observe(session.getId()).hasObservers());
+    }
+
+    @Test
+    public void onCleared_afterReload_shouldRemoveEveryObserver() {
+        // Arrange
+        MutableLiveData<SessionEntity> sessionData = new MutableLiveData<>(session);
+        when(chatRepository.getSessionById(session.getId())).thenReturn(sessionData);
+        viewModel.loadSession(session.getId());
+        viewModel.loadSession(session.getId());
+
+        // Act
+        viewModel.onCleared();
+
+        // Assert
+        assertFalse(sessionData.hasObservers());
+        assertFalse(persisted.hasObservers());
+        assertFalse(overlay.observe(session.getId()).hasObservers());
+    }
+}